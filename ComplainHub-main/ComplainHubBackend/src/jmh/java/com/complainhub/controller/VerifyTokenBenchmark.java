@@ -0,0 +1,106 @@
+package com.complainhub.controller;
+
+import com.complainhub.repository.EmbeddedUserRepository;
+import com.complainhub.service.BenchmarkData;
+import com.complainhub.service.IdTokenVerifier;
+import com.complainhub.service.LocalIdTokenVerifier;
+import com.complainhub.service.UserService;
+import com.complainhub.service.VerifiedTokenCache;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /api/auth/verifyToken end to end: RS256 signature and claim checks through the local verifier,
+ * then the profile upsert against the embedded user store. Runs without Firebase credentials.
+ * {@code tokenCache} toggles the verified-token cache, so both the cold and steady-state paths are covered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifyTokenBenchmark {
+    private static final String ISSUER = "https://securetoken.google.com/complainhub-bench";
+    private static final String AUDIENCE = "complainhub-bench";
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    private Path directory;
+    private AnnotationConfigApplicationContext context;
+    private AuthController authController;
+    private IdTokenVerifier verifier;
+    private AuthController.TokenRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("verify-token-bench");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        Path publicKey = directory.resolve("public.pem");
+        Files.writeString(publicKey, "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n");
+
+        context = BenchmarkData.context(Map.of(
+                        "complainhub.auth.token-cache.enabled", tokenCache,
+                        "complainhub.auth.mode", "local",
+                        "complainhub.auth.local.public-key", publicKey.toUri().toString(),
+                        "complainhub.auth.local.issuer", ISSUER,
+                        "complainhub.auth.local.audience", AUDIENCE,
+                        "complainhub.storage", "embedded",
+                        "complainhub.storage.embedded.directory", directory.resolve("data").toString()),
+                EmbeddedUserRepository.class, UserService.class, LocalIdTokenVerifier.class, VerifiedTokenCache.class,
+                AuthController.class);
+        authController = context.getBean(AuthController.class);
+        verifier = context.getBean(IdTokenVerifier.class);
+
+        long now = System.currentTimeMillis() / 1000;
+        JsonWebSignature.Header header = new JsonWebSignature.Header().setAlgorithm("RS256").setType("JWT");
+        JsonWebSignature.Payload payload = new JsonWebSignature.Payload()
+                .setIssuer(ISSUER)
+                .setAudience(AUDIENCE)
+                .setSubject("bench-user")
+                .setIssuedAtTimeSeconds(now)
+                .setExpirationTimeSeconds(now + 3600);
+        payload.set("email", "bench@complainhub.local");
+        payload.set("name", "Bench User");
+        request = new AuthController.TokenRequest();
+        request.setIdToken(JsonWebSignature.signUsingRsaSha256(keyPair.getPrivate(), GsonFactory.getDefaultInstance(), header, payload));
+
+        ResponseEntity<?> first = authController.verifyToken(request);
+        if (!first.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Benchmark token was rejected: " + first.getBody());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Object verifyOnly() throws Exception {
+        return verifier.verify(request.getIdToken());
+    }
+
+    @Benchmark
+    public ResponseEntity<?> verifyToken() {
+        return authController.verifyToken(request);
+    }
+}
@@ -0,0 +1,100 @@
+package com.complainhub.service;
+
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/** Shared fixtures: complaint texts from complaints_priority_dataset.csv and Firestore-shaped documents. */
+public final class BenchmarkData {
+    private static final String[] STATUSES = {"pending", "in-progress", "resolved", "rejected"};
+    private static final String[] CATEGORIES = {"academic", "hostel", "infrastructure", "canteen", "others"};
+    private static final String[] DEPARTMENTS = {"cs", "ece", "mech", "civil", "admin"};
+    private static final String[] PRIORITIES = {"low", "medium", "high"};
+
+    private BenchmarkData() {
+    }
+
+    public static List<String> datasetComplaints() {
+        List<String> complaints = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                BenchmarkData.class.getClassLoader().getResourceAsStream("complaints_priority_dataset.csv"), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String text = line.substring(0, line.lastIndexOf(','));
+                if (text.startsWith("\"") && text.endsWith("\"")) {
+                    text = text.substring(1, text.length() - 1).replace("\"\"", "\"");
+                }
+                complaints.add(text);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read complaints_priority_dataset.csv", e);
+        }
+        return complaints;
+    }
+
+    /** Documents as the repositories return them: Timestamp dates, "id" included, comment and update history. */
+    public static List<Map<String, Object>> complaintDocuments(int count, int commentsPerComplaint, int updatesPerComplaint) {
+        List<String> texts = datasetComplaints();
+        Random random = new Random(42);
+        List<Map<String, Object>> documents = new ArrayList<>(count);
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < count; i++) {
+            String text = texts.get(i % texts.size());
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", String.format("complaint%011d", i));
+            data.put("title", text.length() > 40 ? text.substring(0, 40) : text);
+            data.put("description", text);
+            data.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            data.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            data.put("priority", PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            data.put("uid", "student" + random.nextInt(count / 4 + 1));
+            data.put("studentId", data.get("uid"));
+            data.put("studentName", "Student " + data.get("uid"));
+            data.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            Timestamp createdAt = Timestamp.ofTimeSecondsAndNanos(now - random.nextInt(90 * 86400), 0);
+            data.put("createdAt", createdAt);
+            data.put("timestamp", createdAt);
+            data.put("updatedAt", Timestamp.ofTimeSecondsAndNanos(createdAt.getSeconds() + 3600, 0));
+            List<Map<String, Object>> comments = new ArrayList<>();
+            for (int c = 0; c < commentsPerComplaint; c++) {
+                Map<String, Object> comment = new HashMap<>();
+                comment.put("userId", "admin");
+                comment.put("userName", "Admin");
+                comment.put("content", texts.get((i + c) % texts.size()));
+                comment.put("createdAt", Timestamp.ofTimeSecondsAndNanos(createdAt.getSeconds() + c * 60L, 0));
+                comments.add(comment);
+            }
+            data.put("comments", comments);
+            List<Map<String, Object>> updates = new ArrayList<>();
+            for (int u = 0; u < updatesPerComplaint; u++) {
+                Map<String, Object> update = new HashMap<>();
+                update.put("by", "admin");
+                update.put("status", STATUSES[u % STATUSES.length]);
+                update.put("date", Timestamp.ofTimeSecondsAndNanos(createdAt.getSeconds() + u * 120L, 0));
+                update.put("description", "Status changed");
+                updates.add(update);
+            }
+            data.put("updates", updates);
+            documents.add(data);
+        }
+        return documents;
+    }
+
+    /** A bare Spring context with the given beans and properties, for benchmarking components outside the app. */
+    public static AnnotationConfigApplicationContext context(Map<String, Object> properties, Class<?>... components) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(components);
+        context.refresh();
+        return context;
+    }
+}
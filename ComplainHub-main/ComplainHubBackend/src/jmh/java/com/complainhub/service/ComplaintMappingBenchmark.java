@@ -0,0 +1,115 @@
+package com.complainhub.service;
+
+import com.complainhub.model.Complaint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GET /api/complaint/all hot path: document-to-response mapping, Jackson serialization of the
+ * mapped list with the application's ObjectMapper settings, and createComplaint payload normalization.
+ * The legacy* methods keep the former map-per-complaint path as a baseline; run with {@code -prof gc}
+ * to compare allocation per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComplaintMappingBenchmark {
+    @Param({"1000", "10000"})
+    public int complaints;
+
+    private List<Map<String, Object>> documents;
+    private List<Complaint> responses;
+    private List<Complaint> summaries;
+    private List<Map<String, Object>> legacyResponses;
+    private Map<String, Object> newComplaint;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        documents = BenchmarkData.complaintDocuments(complaints, 5, 3);
+        responses = ComplaintService.toComplaints(documents, true);
+        summaries = ComplaintService.toComplaints(documents, false);
+        legacyResponses = legacyMap();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        newComplaint = new HashMap<>();
+        newComplaint.put("title", "Projector not working");
+        newComplaint.put("description", BenchmarkData.datasetComplaints().get(0));
+        newComplaint.put("category", "infrastructure");
+        newComplaint.put("uid", "student42");
+        newComplaint.put("studentName", "Student 42");
+        newComplaint.put("department", "cs");
+    }
+
+    @Benchmark
+    public List<Complaint> mapWithHistory() {
+        return ComplaintService.toComplaints(documents, true);
+    }
+
+    @Benchmark
+    public List<Complaint> mapSummary() {
+        return ComplaintService.toComplaints(documents, false);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> legacyMapWithHistory() {
+        return legacyMap();
+    }
+
+    @Benchmark
+    public void serializeWithHistory() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), responses);
+    }
+
+    @Benchmark
+    public void serializeSummary() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), summaries);
+    }
+
+    @Benchmark
+    public void legacySerializeWithHistory() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), legacyResponses);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Map<String, Object> normalizeNewComplaint() {
+        Map<String, Object> payload = new HashMap<>(newComplaint);
+        ComplaintService.normalizeNewComplaint(payload);
+        return payload;
+    }
+
+    // The response mapping as it was before the typed model: a HashMap per complaint, fresh Date defaults
+    private List<Map<String, Object>> legacyMap() {
+        List<Map<String, Object>> result = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            Map<String, Object> complaint = new HashMap<>(32);
+            complaint.put("id", data.get("id"));
+            complaint.put("title", data.getOrDefault("title", ""));
+            complaint.put("description", data.getOrDefault("description", ""));
+            complaint.put("category", data.getOrDefault("category", "others"));
+            complaint.put("status", data.getOrDefault("status", "pending"));
+            complaint.put("priority", data.getOrDefault("priority", "low"));
+            complaint.put("studentId", data.getOrDefault("studentId", ""));
+            complaint.put("studentName", data.getOrDefault("studentName", ""));
+            complaint.put("department", data.getOrDefault("department", ""));
+            complaint.put("createdAt", data.containsKey("createdAt") ? data.get("createdAt") : new Date());
+            complaint.put("updatedAt", data.containsKey("updatedAt") ? data.get("updatedAt") : new Date());
+            complaint.put("comments", data.getOrDefault("comments", new ArrayList<>()));
+            complaint.put("updates", data.getOrDefault("updates", new ArrayList<>()));
+            complaint.put("assignedTo", data.getOrDefault("assignedTo", ""));
+            complaint.put("resolvedAt", data.getOrDefault("resolvedAt", null));
+            complaint.put("rejectionReason", data.getOrDefault("rejectionReason", ""));
+            complaint.put("imageUrl", data.getOrDefault("imageUrl", ""));
+            result.add(complaint);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.EmbeddedComplaintRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-duplicate lookup at creation time. Half of the distinct sentences in
+ * complaints_priority_dataset.csv are indexed; each of those is then reworded (words dropped or swapped, typos, greeting/sign-off added) and
+ * should match its original, while the other half should match nothing. Recall and false-positive
+ * rate per threshold are printed at setup. check() is then timed with the index filled to its default cap of
+ * 20000 recent complaints (two-sentence combinations of the dataset).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DuplicateDetectionBenchmark {
+    private static final int FILLED_SIZE = 20_000;
+    private static final String[] PREFIXES = {"", "Hello, ", "Please help: ", "Urgent - ", "Dear admin, "};
+    private static final String[] SUFFIXES = {"", " Please fix it.", " Kindly look into this.", " Thanks.", " This happens daily."};
+
+    private Path directory;
+    private AnnotationConfigApplicationContext context;
+    private ComplaintDedupIndex index;
+    private String[] reworded;
+    private String[] unrelated;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("dedup-bench");
+        context = BenchmarkData.context(Map.of(
+                        "complainhub.storage", "embedded",
+                        "complainhub.storage.embedded.directory", directory.toString(),
+                        "complainhub.dedup.max-entries", FILLED_SIZE,
+                        "complainhub.dedup.threshold", 0),
+                EmbeddedComplaintRepository.class, ComplaintDedupIndex.class);
+        index = context.getBean(ComplaintDedupIndex.class);
+        index.start();
+        while (!Boolean.TRUE.equals(index.stats().get("ready"))) {
+            Thread.sleep(10);
+        }
+
+        List<String> texts = new ArrayList<>(new LinkedHashSet<>(BenchmarkData.datasetComplaints()));
+        Random random = new Random(7);
+        int half = texts.size() / 2;
+        long now = System.currentTimeMillis();
+        reworded = new String[half];
+        unrelated = texts.subList(half, texts.size()).toArray(new String[0]);
+        for (int i = 0; i < half; i++) {
+            String text = texts.get(i);
+            index.confirm(index.reserve(text, now), "original" + i);
+            reworded[i] = reword(text, random);
+        }
+
+        // The index runs with threshold 0 so every LSH candidate comes back; thresholds are applied here
+        System.out.printf("%n[DEDUP] threshold  recall  false-positives (%d reworded, %d unrelated)%n", half, unrelated.length);
+        for (double threshold = 0.3; threshold < 0.85; threshold += 0.05) {
+            int found = 0;
+            for (int i = 0; i < half; i++) {
+                ComplaintDedupIndex.Candidate candidate = index.check(reworded[i]);
+                if (candidate.similarity() >= threshold && ("original" + i).equals(candidate.duplicateOf())) {
+                    found++;
+                }
+            }
+            int falsePositives = 0;
+            for (String text : unrelated) {
+                if (index.check(text).similarity() >= threshold) {
+                    falsePositives++;
+                }
+            }
+            System.out.printf("[DEDUP] %9.2f  %6.3f  %15.3f%n", threshold, (double) found / half, (double) falsePositives / unrelated.length);
+        }
+
+        for (int i = 0; index.stats().get("complaints") instanceof Integer size && size < FILLED_SIZE; i++) {
+            String text = texts.get(random.nextInt(texts.size())) + " " + texts.get(random.nextInt(texts.size()));
+            index.confirm(index.reserve(text, now), "filler" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public ComplaintDedupIndex.Candidate checkReworded() {
+        return index.check(reworded[next++ % reworded.length]);
+    }
+
+    @Benchmark
+    public ComplaintDedupIndex.Candidate checkUnrelated() {
+        return index.check(unrelated[next++ % unrelated.length]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int[] signature() {
+        return ComplaintDedupIndex.signature(reworded[next++ % reworded.length]);
+    }
+
+    // One or two edits of the kinds students make when re-filing the same problem
+    private static String reword(String text, Random random) {
+        List<String> words = new ArrayList<>(Arrays.asList(text.split(" ")));
+        int edits = 1 + random.nextInt(2);
+        for (int e = 0; e < edits && words.size() > 3; e++) {
+            int at = random.nextInt(words.size());
+            switch (random.nextInt(3)) {
+                case 0 -> words.remove(at);
+                case 1 -> Collections.swap(words, at, (at + 1) % words.size());
+                default -> {
+                    String word = words.get(at);
+                    if (word.length() > 3) {
+                        int c = 1 + random.nextInt(word.length() - 2);
+                        words.set(at, word.substring(0, c) + word.charAt(c + 1) + word.charAt(c) + word.substring(c + 2));
+                    }
+                }
+            }
+        }
+        return PREFIXES[random.nextInt(PREFIXES.length)] + String.join(" ", words) + SUFFIXES[random.nextInt(SUFFIXES.length)];
+    }
+}
@@ -0,0 +1,126 @@
+package com.complainhub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Priority classification per complaint: the in-process model against the HTTP path. The HTTP path
+ * targets a stub server that answers instantly, so the numbers are the client-side floor (connection,
+ * serialization, RestTemplate) rather than the Python model's cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriorityClassificationBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final byte[] SINGLE_RESPONSE = "{\"priority\":\"Medium\",\"source\":\"ml\"}".getBytes(StandardCharsets.UTF_8);
+
+    private String[] texts;
+    private List<String> batch;
+    private int next;
+    private PriorityModel model;
+    private AnnotationConfigApplicationContext localContext;
+    private AnnotationConfigApplicationContext remoteContext;
+    private PriorityClassifier localClassifier;
+    private PriorityClassifier remoteClassifier;
+    private HttpServer stub;
+
+    @Setup
+    public void setUp() throws Exception {
+        texts = BenchmarkData.datasetComplaints().toArray(new String[0]);
+        batch = Arrays.asList(texts).subList(0, BATCH_SIZE);
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("complaint_priority_model.json")) {
+            model = PriorityModel.load(in);
+        }
+        stub = startStub();
+        String base = "http://localhost:" + stub.getAddress().getPort();
+        localContext = BenchmarkData.context(Map.of("complainhub.classifier.mode", "local"), PriorityClassifier.class);
+        remoteContext = BenchmarkData.context(Map.of(
+                "complainhub.classifier.mode", "remote",
+                "complainhub.classifier.remote-url", base + "/predict_priority",
+                "complainhub.classifier.remote-batch-url", base + "/predict_priority_batch"), PriorityClassifier.class);
+        localClassifier = localContext.getBean(PriorityClassifier.class);
+        remoteClassifier = remoteContext.getBean(PriorityClassifier.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        localContext.close();
+        remoteContext.close();
+        stub.stop(0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public PriorityModel.Prediction inProcessModel() {
+        return model.predict(nextText());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Map<String, Object> inProcessClassifier() {
+        return localClassifier.classify(nextText());
+    }
+
+    @Benchmark
+    public Map<String, Object> httpClassifier() {
+        return remoteClassifier.classify(nextText());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> inProcessBatch() {
+        return localClassifier.classifyAll(batch);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> httpBatch() {
+        return remoteClassifier.classifyAll(batch);
+    }
+
+    private String nextText() {
+        String text = texts[next];
+        next = next + 1 == texts.length ? 0 : next + 1;
+        return text;
+    }
+
+    // Mimics complaint_priority_api.py's response shapes without doing any work
+    private static HttpServer startStub() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/predict_priority", exchange -> respond(exchange, SINGLE_RESPONSE));
+        server.createContext("/predict_priority_batch", exchange -> {
+            int count = mapper.readTree(exchange.getRequestBody().readAllBytes()).path("complaints").size();
+            List<Map<String, String>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(Map.of("priority", "Medium", "source", "ml"));
+            }
+            respond(exchange, mapper.writeValueAsBytes(Map.of("results", results)));
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws java.io.IOException {
+        exchange.getRequestBody().close();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.EmbeddedComplaintRepository;
+import com.google.cloud.Timestamp;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin work queue operations with {@code size} open complaints created over the last ten days, so they
+ * sit at every escalation level. Each operation should stay flat as the queue grows: claim/release and
+ * close/recreate are a few heap sifts, top20 walks only the first entries, and escalate() advances a
+ * simulated clock by one step divided by the queue size, i.e. about one escalation per call (the max
+ * level is set high enough that complaints never stop escalating).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkQueueBenchmark {
+    private static final String[] DEPARTMENTS = {"cs", "ece", "mech", "civil", "admin"};
+    private static final String[] PRIORITIES = {"low", "medium", "high"};
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Path directory;
+    private AnnotationConfigApplicationContext context;
+    private ComplaintWorkQueue queue;
+    private List<Map<String, Object>> created;
+    private long clock;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("queue-bench");
+        context = BenchmarkData.context(Map.of(
+                        "complainhub.storage", "embedded",
+                        "complainhub.storage.embedded.directory", directory.toString(),
+                        "complainhub.queue.sla.department-hours", "admin:12",
+                        "complainhub.queue.escalation-step-hours", 1,
+                        "complainhub.queue.max-escalation-level", 100_000,
+                        "complainhub.queue.tick-seconds", 3600),
+                EmbeddedComplaintRepository.class, PriorityClassifier.class, ComplaintWorkQueue.class);
+        queue = context.getBean(ComplaintWorkQueue.class);
+        queue.start();
+        while (!queue.isReady()) {
+            Thread.sleep(10);
+        }
+        Random random = new Random(42);
+        clock = System.currentTimeMillis();
+        created = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("status", "pending");
+            fields.put("priority", PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            fields.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            fields.put("createdAt", Timestamp.ofTimeSecondsAndNanos(clock / 1000 - random.nextInt(10 * 86400), 0));
+            created.add(fields);
+            queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, "complaint" + i, fields, null));
+        }
+        System.out.printf("%n[QUEUE] %d open complaints%n", size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public ComplaintWorkQueue.Slot claimAndRelease() {
+        ComplaintWorkQueue.Slot slot = queue.claim("admin", 1, 0, null, clock).get(0);
+        return queue.release(slot.id(), "admin");
+    }
+
+    @Benchmark
+    public List<ComplaintWorkQueue.Slot> top20() {
+        return queue.top(20, null);
+    }
+
+    @Benchmark
+    public void closeAndRecreate() {
+        int i = next++ % size;
+        String id = "complaint" + i;
+        queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, id, Map.of("status", "resolved"), null));
+        queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, id, created.get(i), null));
+    }
+
+    @Benchmark
+    public int escalate() {
+        clock += TimeUnit.HOURS.toMillis(1) / size;
+        return queue.escalate(clock);
+    }
+}
@@ -0,0 +1,474 @@
+package com.complainhub.load;
+
+import com.complainhub.ComplainHubBackendApplication;
+import com.complainhub.repository.ComplaintRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the whole backend in this JVM on embedded storage, local ID-token verification and the
+ * in-process priority model, then drives its HTTP endpoints over loopback with a weighted mix of
+ * operations. Nothing leaves the machine. After a warmup, every endpoint's throughput and latency
+ * percentiles are recorded; each endpoint is then run alone to measure the bytes the server allocates
+ * per request. Results go to {@link LoadReport}.
+ *
+ * <p>Arguments, all name=value and optional: scenario=mixed|create-burst|triage|capacity, duration=30
+ * (seconds), warmup=10, concurrency=32, rate=0 (requests/s across all workers; 0 runs closed-loop,
+ * each worker sending its next request as soon as the last returns), students=500,
+ * seed-complaints=2000, alloc-seconds=3, report-dir=load-reports, report-name=scenario.
+ * storage-latency-ms=0 adds that much wait to every repository call, standing in for a Firestore
+ * round trip the embedded store does not have. Arguments named server.*, spring.* or complainhub.*
+ * are passed to the backend, e.g. complainhub.async.enabled=false.
+ */
+public final class LoadHarness {
+    private static final String ISSUER = "https://securetoken.google.com/complainhub-load";
+    private static final String AUDIENCE = "complainhub-load";
+    private static final String[] STATUSES = {"pending", "in-progress", "resolved", "rejected"};
+    private static final String[] CATEGORIES = {"academic", "hostel", "infrastructure", "canteen", "others"};
+    private static final String[] DEPARTMENTS = {"cs", "ece", "mech", "civil", "admin"};
+    private static final String[] SEARCH_TERMS = {"hostel water", "wifi", "exam marks", "canteen food", "projector", "library books"};
+    private static final int KNOWN_IDS = 1 << 16;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, String> options;
+    private final String scenario;
+    private final List<Operation> operations;
+    private final List<String> texts;
+    private final AtomicReferenceArray<String> complaintIds = new AtomicReferenceArray<>(KNOWN_IDS);
+    private final AtomicInteger complaintCount = new AtomicInteger();
+    private String base;
+    private String[] studentTokens;
+
+    private LoadHarness(Map<String, String> options) throws IOException {
+        this.options = options;
+        this.scenario = options.getOrDefault("scenario", "mixed");
+        this.operations = operations(scenario);
+        this.texts = datasetComplaints();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadHarness(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        int duration = intOption("duration", 30);
+        int warmup = intOption("warmup", 10);
+        int concurrency = intOption("concurrency", 32);
+        int rate = intOption("rate", 0);
+        int students = intOption("students", 500);
+        int seedComplaints = intOption("seed-complaints", 2000);
+        int allocSeconds = intOption("alloc-seconds", 3);
+        int storageLatency = intOption("storage-latency-ms", 0);
+        Path directory = Files.createTempDirectory("complainhub-load");
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        Path publicKey = directory.resolve("auth-public.pem");
+        Files.writeString(publicKey, "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n");
+
+        // Passed as command-line arguments so they override application.properties
+        List<String> serverArgs = new ArrayList<>();
+        serverProperties(directory, publicKey).forEach((name, value) -> serverArgs.add("--" + name + "=" + value));
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(ComplainHubBackendApplication.class)
+                .initializers(storageLatency(storageLatency))
+                .run(serverArgs.toArray(new String[0]));
+        try {
+            base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            System.out.println("[LOAD] Backend up at " + base + "; seeding " + students + " students and " + seedComplaints + " complaints.");
+            studentTokens = new String[students];
+            for (int i = 0; i < students; i++) {
+                studentTokens[i] = idToken(keyPair, "student" + i);
+                send(new Request("POST", "/api/auth/verifyToken", "{\"idToken\":\"" + studentTokens[i] + "\"}"));
+            }
+            seed(seedComplaints, concurrency);
+
+            System.out.println("[LOAD] Warming up '" + scenario + "' for " + warmup + " s.");
+            drive(warmup, concurrency, rate, operations);
+            System.out.println("[LOAD] Measuring for " + duration + " s with " + concurrency + " workers" + (rate > 0 ? " at " + rate + " req/s." : ", closed-loop."));
+            Run measured = drive(duration, concurrency, rate, operations);
+
+            Map<String, Long> bytesPerRequest = new LinkedHashMap<>();
+            for (Operation operation : operations) {
+                Run alone = drive(allocSeconds, 1, 0, List.of(operation));
+                long requests = alone.requests(operation.name());
+                bytesPerRequest.put(operation.name(), requests == 0 ? 0 : alone.serverAllocatedBytes / requests);
+            }
+
+            LoadReport report = new LoadReport(options.getOrDefault("report-name", scenario), scenario, duration, warmup,
+                    concurrency, rate, students, seedComplaints, storageLatency, serverOverrides());
+            for (Operation operation : operations) {
+                report.add(operation.name(), measured.histograms.get(operation.name()), measured.errors.get(operation.name()).get(),
+                        bytesPerRequest.get(operation.name()));
+            }
+            report.finish(measured.seconds, measured.serverAllocatedBytes);
+            Path reportDirectory = Paths.get(options.getOrDefault("report-dir", "load-reports"));
+            report.write(reportDirectory);
+            System.out.println(report.markdown());
+            System.out.println("[LOAD] Report written to " + reportDirectory.resolve(options.getOrDefault("report-name", scenario) + ".md").toAbsolutePath());
+        } finally {
+            app.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    private Map<String, Object> serverProperties(Path directory, Path publicKey) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("complainhub.storage", "embedded");
+        properties.put("complainhub.storage.embedded.directory", directory.resolve("data").toString());
+        properties.put("complainhub.search.index-file", directory.resolve("search-index.bin").toString());
+        properties.put("complainhub.stats.checkpoint-file", directory.resolve("complaint-stats.json").toString());
+        properties.put("complainhub.history.migration.checkpoint-file", directory.resolve("history-migration.json").toString());
+        properties.put("complainhub.auth.mode", "local");
+        properties.put("complainhub.auth.local.public-key", publicKey.toUri().toString());
+        properties.put("complainhub.auth.local.issuer", ISSUER);
+        properties.put("complainhub.auth.local.audience", AUDIENCE);
+        properties.put("complainhub.classifier.mode", "local");
+        properties.put("complainhub.logging.create-sample-rate", 0);
+        properties.putAll(serverOverrides());
+        return properties;
+    }
+
+    private Map<String, String> serverOverrides() {
+        Map<String, String> overrides = new TreeMap<>();
+        options.forEach((name, value) -> {
+            if (name.startsWith("server.") || name.startsWith("spring.") || name.startsWith("complainhub.")) {
+                overrides.put(name, value);
+            }
+        });
+        return overrides;
+    }
+
+    // Every repository call waits first, blocking its thread the way a synchronous Firestore read or write does
+    private static ApplicationContextInitializer<ConfigurableApplicationContext> storageLatency(long millis) {
+        return context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String name) {
+                if (millis == 0 || !(bean instanceof ComplaintRepository repository)) {
+                    return bean;
+                }
+                return Proxy.newProxyInstance(ComplaintRepository.class.getClassLoader(), new Class<?>[]{ComplaintRepository.class},
+                        (proxy, method, args) -> {
+                            if (method.getDeclaringClass() == ComplaintRepository.class && !method.getName().equals("watch")) {
+                                Thread.sleep(millis);
+                            }
+                            try {
+                                return method.invoke(repository, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        });
+    }
+
+    private void seed(int count, int concurrency) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pending.add(pool.submit(() -> {
+                Response response = send(createComplaint(ThreadLocalRandom.current()));
+                rememberComplaint(response);
+                return null;
+            }));
+        }
+        for (Future<?> future : pending) {
+            future.get();
+        }
+        pool.shutdown();
+    }
+
+    // Each worker picks operations by weight; with a rate, latency counts from when the request was due, not sent
+    private Run drive(int seconds, int concurrency, int rate, List<Operation> mix) throws Exception {
+        Run run = new Run(mix);
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * concurrency / rate : 0;
+        long totalBefore = allocatedBytes();
+        AtomicLong workerBytes = new AtomicLong();
+        Thread[] workers = new Thread[concurrency];
+        for (int w = 0; w < concurrency; w++) {
+            long offset = intervalNanos * w / concurrency;
+            workers[w] = new Thread(() -> {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long due = start + offset;
+                while (true) {
+                    if (intervalNanos > 0) {
+                        long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    long sent = intervalNanos > 0 ? due : System.nanoTime();
+                    if (sent >= end) {
+                        break;
+                    }
+                    Operation operation = pick(mix, totalWeight, random);
+                    try {
+                        Response response = send(operation.request().create(this, random));
+                        if (response.status() >= 400) {
+                            run.errors.get(operation.name()).incrementAndGet();
+                        } else if (operation.name().equals(CREATE)) {
+                            rememberComplaint(response);
+                        }
+                    } catch (IOException e) {
+                        run.errors.get(operation.name()).incrementAndGet();
+                    }
+                    run.recorders.get(operation.name()).recordValue(System.nanoTime() - sent);
+                    due += intervalNanos;
+                }
+                workerBytes.addAndGet(THREADS.getCurrentThreadAllocatedBytes() - before);
+            }, "load-worker-" + w);
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        run.seconds = (System.nanoTime() - start) / 1e9;
+        run.serverAllocatedBytes = Math.max(0, allocatedBytes() - totalBefore - workerBytes.get());
+        for (Operation operation : mix) {
+            run.histograms.put(operation.name(), run.recorders.get(operation.name()).getIntervalHistogram());
+        }
+        return run;
+    }
+
+    private static Operation pick(List<Operation> mix, int totalWeight, Random random) {
+        int r = random.nextInt(totalWeight);
+        for (Operation operation : mix) {
+            r -= operation.weight();
+            if (r < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    // Live threads only; the server's request and executor threads are pooled, so little is lost to exits
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private Response send(Request request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + request.path()).openConnection();
+        connection.setRequestMethod(request.method());
+        connection.setRequestProperty("Accept", "application/json");
+        if (request.idToken() != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + request.idToken());
+        }
+        if (request.body() != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request.body().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        // Reading the body to the end lets the connection go back to the keep-alive pool
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        byte[] body = in == null ? new byte[0] : in.readAllBytes();
+        if (in != null) {
+            in.close();
+        }
+        return new Response(status, body);
+    }
+
+    private void rememberComplaint(Response response) throws IOException {
+        if (response.status() < 400) {
+            JsonNode id = JSON.readTree(response.body()).get("id");
+            if (id != null) {
+                complaintIds.set(complaintCount.getAndIncrement() & (KNOWN_IDS - 1), id.asText());
+            }
+        }
+    }
+
+    private String anyComplaint(Random random) {
+        int known = Math.min(complaintCount.get(), KNOWN_IDS);
+        return complaintIds.get(random.nextInt(Math.max(known, 1)));
+    }
+
+    private static final String CREATE = "POST /api/complaint/create";
+
+    private Request createComplaint(Random random) throws IOException {
+        int student = random.nextInt(studentTokens.length);
+        String text = texts.get(random.nextInt(texts.size()));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("title", text.length() > 40 ? text.substring(0, 40) : text);
+        payload.put("description", text + " Block " + (char) ('A' + random.nextInt(8)) + ", room " + random.nextInt(400) + ".");
+        payload.put("uid", "student" + student);
+        payload.put("studentName", "Student " + student);
+        payload.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        payload.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+        return new Request("POST", "/api/complaint/create", JSON.writeValueAsString(payload), studentTokens[student]);
+    }
+
+    private static List<Operation> operations(String scenario) {
+        Operation create = new Operation(CREATE, (h, r) -> h.createComplaint(r));
+        Operation verifyToken = new Operation("POST /api/auth/verifyToken",
+                (h, r) -> new Request("POST", "/api/auth/verifyToken", "{\"idToken\":\"" + h.studentTokens[r.nextInt(h.studentTokens.length)] + "\"}"));
+        Operation myComplaints = new Operation("GET /api/complaint/user/{uid}",
+                (h, r) -> new Request("GET", "/api/complaint/user/student" + r.nextInt(h.studentTokens.length), null));
+        Operation adminPage = new Operation("GET /api/complaint/all?pageSize=50",
+                (h, r) -> new Request("GET", "/api/complaint/all?pageSize=50&view=summary&status=" + STATUSES[r.nextInt(2)], null));
+        Operation statusUpdate = new Operation("PUT /api/complaint/{id}/status",
+                (h, r) -> new Request("PUT", "/api/complaint/" + h.anyComplaint(r) + "/status",
+                        "{\"status\":\"" + STATUSES[1 + r.nextInt(3)] + "\",\"updatedBy\":\"admin\",\"description\":\"Triaged\"}"));
+        Operation comment = new Operation("POST /api/complaint/{id}/comment",
+                (h, r) -> new Request("POST", "/api/complaint/" + h.anyComplaint(r) + "/comment",
+                        "{\"content\":\"Forwarded to the department\",\"userId\":\"admin\",\"userName\":\"Admin\"}"));
+        Operation history = new Operation("GET /api/complaint/{id}/updates",
+                (h, r) -> new Request("GET", "/api/complaint/" + h.anyComplaint(r) + "/updates", null));
+        Operation search = new Operation("GET /api/complaint/search",
+                (h, r) -> new Request("GET", "/api/complaint/search?q=" + SEARCH_TERMS[r.nextInt(SEARCH_TERMS.length)].replace(" ", "+"), null));
+        Operation stats = new Operation("GET /api/complaint/stats", (h, r) -> new Request("GET", "/api/complaint/stats", null));
+        Operation listUsers = new Operation("GET /api/users/all", (h, r) -> new Request("GET", "/api/users/all", null));
+        Operation editUser = new Operation("PUT /api/users/edit/{id}",
+                (h, r) -> new Request("PUT", "/api/users/edit/student" + r.nextInt(h.studentTokens.length),
+                        "{\"department\":\"" + DEPARTMENTS[r.nextInt(DEPARTMENTS.length)] + "\"}"));
+        switch (scenario) {
+            // Students filing at the start of term: mostly creates, plus sign-ins and checking their own list
+            case "create-burst":
+                return List.of(create.weighted(80), verifyToken.weighted(10), myComplaints.weighted(10));
+            // Admins working through the queue
+            case "triage":
+                return List.of(adminPage.weighted(30), statusUpdate.weighted(25), comment.weighted(15), search.weighted(10),
+                        history.weighted(10), stats.weighted(5), listUsers.weighted(5));
+            // Storage-bound admin work next to sign-ins; meant to run with storage-latency-ms and many workers,
+            // where it shows what waiting requests hold: Tomcat's threads, or the async executor's
+            case "capacity":
+                return List.of(statusUpdate.weighted(40), history.weighted(30), verifyToken.weighted(15), myComplaints.weighted(15));
+            case "mixed":
+                return List.of(create.weighted(30), verifyToken.weighted(10), myComplaints.weighted(10), adminPage.weighted(15),
+                        statusUpdate.weighted(15), comment.weighted(5), search.weighted(5), history.weighted(5),
+                        stats.weighted(3), listUsers.weighted(1), editUser.weighted(1));
+            default:
+                throw new IllegalArgumentException("Unknown scenario " + scenario + "; expected mixed, create-burst, triage or capacity");
+        }
+    }
+
+    private static String idToken(KeyPair keyPair, String uid) throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        JsonWebSignature.Header header = new JsonWebSignature.Header().setAlgorithm("RS256").setType("JWT");
+        JsonWebSignature.Payload payload = new JsonWebSignature.Payload()
+                .setIssuer(ISSUER)
+                .setAudience(AUDIENCE)
+                .setSubject(uid)
+                .setIssuedAtTimeSeconds(now)
+                .setExpirationTimeSeconds(now + 6 * 3600);
+        payload.set("email", uid + "@complainhub.local");
+        payload.set("name", "Student " + uid.substring("student".length()));
+        return JsonWebSignature.signUsingRsaSha256(keyPair.getPrivate(), GsonFactory.getDefaultInstance(), header, payload);
+    }
+
+    private static List<String> datasetComplaints() throws IOException {
+        List<String> complaints = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                LoadHarness.class.getClassLoader().getResourceAsStream("complaints_priority_dataset.csv"), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String text = line.substring(0, line.lastIndexOf(','));
+                if (text.startsWith("\"") && text.endsWith("\"")) {
+                    text = text.substring(1, text.length() - 1).replace("\"\"", "\"");
+                }
+                complaints.add(text);
+            }
+        }
+        return complaints;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        Request create(LoadHarness harness, Random random) throws IOException;
+    }
+
+    private record Operation(String name, RequestFactory request, int weight) {
+        Operation(String name, RequestFactory request) {
+            this(name, request, 0);
+        }
+
+        Operation weighted(int weight) {
+            return new Operation(name, request, weight);
+        }
+    }
+
+    private record Request(String method, String path, String body, String idToken) {
+        Request(String method, String path, String body) {
+            this(method, path, body, null);
+        }
+    }
+
+    private record Response(int status, byte[] body) {}
+
+    private static final class Run {
+        final Map<String, Recorder> recorders = new HashMap<>();
+        final Map<String, Histogram> histograms = new HashMap<>();
+        final Map<String, AtomicLong> errors = new HashMap<>();
+        double seconds;
+        long serverAllocatedBytes;
+
+        Run(List<Operation> mix) {
+            for (Operation operation : mix) {
+                recorders.put(operation.name(), new Recorder(3));
+                errors.put(operation.name(), new AtomicLong());
+            }
+        }
+
+        long requests(String name) {
+            return histograms.get(name).getTotalCount();
+        }
+    }
+}
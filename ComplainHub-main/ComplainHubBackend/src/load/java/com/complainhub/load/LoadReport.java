@@ -0,0 +1,154 @@
+package com.complainhub.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * One load run's results, written as {@code <name>.json} (for tools and the next run) and
+ * {@code <name>.md} (for review) into the report directory; the name is the scenario unless the run
+ * gives another. The file names are stable so the reports can be checked in and diffed; when a previous
+ * {@code <name>.json} is there, the Markdown also shows each endpoint's change in throughput and p99 against it.
+ */
+final class LoadReport {
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String name;
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+    private final List<Map<String, Object>> endpoints = new ArrayList<>();
+    private JsonNode previous;
+
+    LoadReport(String name, String scenario, int duration, int warmup, int concurrency, int rate, int students, int seedComplaints,
+               int storageLatencyMs, Map<String, String> serverOverrides) {
+        this.name = name;
+        summary.put("scenario", scenario);
+        summary.put("recordedAt", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString());
+        summary.put("java", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        summary.put("cpus", Runtime.getRuntime().availableProcessors());
+        summary.put("maxHeapMb", Runtime.getRuntime().maxMemory() >> 20);
+        summary.put("jvmArgs", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        summary.put("durationSeconds", duration);
+        summary.put("warmupSeconds", warmup);
+        summary.put("concurrency", concurrency);
+        summary.put("targetRate", rate == 0 ? "closed-loop" : rate + "/s");
+        summary.put("students", students);
+        summary.put("seedComplaints", seedComplaints);
+        summary.put("storageLatencyMs", storageLatencyMs);
+        summary.put("serverOverrides", serverOverrides);
+    }
+
+    void add(String name, Histogram latencyNanos, long errors, long allocatedBytesPerRequest) {
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("endpoint", name);
+        endpoint.put("requests", latencyNanos.getTotalCount());
+        endpoint.put("errors", errors);
+        endpoint.put("p50Ms", millis(latencyNanos.getValueAtPercentile(50)));
+        endpoint.put("p99Ms", millis(latencyNanos.getValueAtPercentile(99)));
+        endpoint.put("p999Ms", millis(latencyNanos.getValueAtPercentile(99.9)));
+        endpoint.put("maxMs", millis(latencyNanos.getMaxValue()));
+        endpoint.put("allocatedKbPerRequest", Math.round(allocatedBytesPerRequest / 102.4) / 10.0);
+        endpoints.add(endpoint);
+    }
+
+    void finish(double seconds, long serverAllocatedBytes) {
+        long requests = 0;
+        for (Map<String, Object> endpoint : endpoints) {
+            long count = (long) endpoint.get("requests");
+            endpoint.put("throughput", round(count / seconds));
+            requests += count;
+        }
+        summary.put("throughput", round(requests / seconds));
+        summary.put("allocationMbPerSecond", round(serverAllocatedBytes / seconds / (1 << 20)));
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path json = directory.resolve(name + ".json");
+        if (Files.exists(json)) {
+            previous = JSON.readTree(json.toFile());
+        }
+        Map<String, Object> report = new LinkedHashMap<>(summary);
+        report.put("endpoints", endpoints);
+        JSON.writeValue(json.toFile(), report);
+        Files.writeString(directory.resolve(name + ".md"), markdown());
+    }
+
+    String markdown() {
+        StringBuilder md = new StringBuilder();
+        md.append("# Load report: ").append(name).append("\n\n");
+        md.append("Recorded ").append(summary.get("recordedAt")).append(" on ").append(summary.get("java"))
+                .append(", ").append(summary.get("cpus")).append(" CPUs, ").append(summary.get("maxHeapMb")).append(" MB max heap.\n");
+        md.append(summary.get("durationSeconds")).append(" s measured after ").append(summary.get("warmupSeconds"))
+                .append(" s warmup, ").append(summary.get("concurrency")).append(" workers, ").append(summary.get("targetRate"))
+                .append("; ").append(summary.get("students")).append(" students, ").append(summary.get("seedComplaints"))
+                .append(" seeded complaints.\n");
+        if (!summary.get("storageLatencyMs").equals(0)) {
+            md.append(summary.get("storageLatencyMs")).append(" ms added to every repository call.\n");
+        }
+        if (!((Map<?, ?>) summary.get("serverOverrides")).isEmpty()) {
+            md.append("Server settings: ").append(summary.get("serverOverrides")).append(".\n");
+        }
+        md.append("\n");
+        md.append("Total: ").append(summary.get("throughput")).append(" req/s, server allocation ")
+                .append(summary.get("allocationMbPerSecond")).append(" MB/s");
+        if (previous != null) {
+            md.append(" (previous run: ").append(previous.path("throughput").asText()).append(" req/s, ")
+                    .append(previous.path("allocationMbPerSecond").asText()).append(" MB/s)");
+        }
+        md.append(".\n\n");
+        md.append("| Endpoint | Requests | Errors | Req/s | p50 ms | p99 ms | p99.9 ms | Max ms | KB allocated/req |");
+        md.append(previous != null ? " Req/s vs previous | p99 vs previous |\n" : "\n");
+        md.append("|---|---:|---:|---:|---:|---:|---:|---:|---:|").append(previous != null ? "---:|---:|\n" : "\n");
+        for (Map<String, Object> endpoint : endpoints) {
+            md.append("| ").append(endpoint.get("endpoint"));
+            for (String field : List.of("requests", "errors", "throughput", "p50Ms", "p99Ms", "p999Ms", "maxMs", "allocatedKbPerRequest")) {
+                md.append(" | ").append(endpoint.get(field));
+            }
+            if (previous != null) {
+                JsonNode before = previousEndpoint((String) endpoint.get("endpoint"));
+                md.append(" | ").append(change(before, endpoint, "throughput"));
+                md.append(" | ").append(change(before, endpoint, "p99Ms"));
+            }
+            md.append(" |\n");
+        }
+        md.append("\nLatency is measured from when each request was due (closed-loop: when it was sent) to the end of its response. ")
+                .append("Allocation per request comes from running each endpoint alone on one worker and counting the bytes ")
+                .append("allocated by every thread except the load generator's.\n");
+        return md.toString();
+    }
+
+    private JsonNode previousEndpoint(String name) {
+        for (JsonNode endpoint : previous.path("endpoints")) {
+            if (name.equals(endpoint.path("endpoint").asText())) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private static String change(JsonNode before, Map<String, Object> now, String field) {
+        if (before == null || before.path(field).asDouble() == 0) {
+            return "new";
+        }
+        double was = before.path(field).asDouble();
+        double is = ((Number) now.get(field)).doubleValue();
+        return String.format(Locale.ROOT, "%+.1f%%", (is - was) / was * 100);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.complainhub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+    @Value("${complainhub.async.timeout-ms:30000}")
+    private long timeoutMillis;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Applies to CompletableFuture results and streaming bodies alike
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+}
@@ -1,37 +1,179 @@
 package com.complainhub.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.firestore.Firestore;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.cloud.FirestoreClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 
 import javax.annotation.PostConstruct;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Initializes the Firebase app and hands out its Firestore and Auth clients. With init=eager (the
+ * default) this happens during startup as before; "background" starts it on its own thread so the rest
+ * of the context comes up meanwhile, and "lazy" waits for the first caller. Callers block in
+ * {@link #firestore()} / {@link #auth()} until it is done, and the "firebase" health indicator keeps the
+ * readiness probe down while it is in progress.
+ */
 @Configuration
 public class FirebaseConfig {
+    private static final Logger log = LoggerFactory.getLogger(FirebaseConfig.class);
+
+    @Value("${complainhub.storage:firestore}")
+    private String storage;
+
+    @Value("${complainhub.firebase.credentials:classpath:firebase-service-account.json}")
+    private Resource credentials;
+
+    @Value("${complainhub.firebase.init:eager}")
+    private String initMode;
+
+    @Value("${complainhub.firebase.init-timeout-seconds:60}")
+    private long initTimeoutSeconds;
+
+    // true once Firebase is up, false when running without it (embedded storage, no service account)
+    private final CompletableFuture<Boolean> ready = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
     @PostConstruct
     public void init() {
+        if ("background".equals(initMode)) {
+            start(true);
+        } else if (!"lazy".equals(initMode)) {
+            start(false);
+            if (ready.isCompletedExceptionally()) {
+                throw new RuntimeException(failure());
+            }
+        }
+    }
+
+    /** The Firestore client, initializing Firebase first if nothing has yet. */
+    public Firestore firestore() {
+        requireFirebase();
+        return FirestoreClient.getFirestore();
+    }
+
+    /** The Auth client, initializing Firebase first if nothing has yet. */
+    public FirebaseAuth auth() {
+        requireFirebase();
+        return FirebaseAuth.getInstance();
+    }
+
+    /** Whether Firebase is configured; waits for a pending initialization. */
+    public boolean available() {
+        try {
+            return awaitReady();
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Bean
+    public HealthIndicator firebaseHealthIndicator() {
+        return () -> {
+            if (!started.get()) {
+                return Health.up().withDetail("init", "on first use").build();
+            }
+            if (!ready.isDone()) {
+                return Health.outOfService().withDetail("init", "in progress").build();
+            }
+            if (ready.isCompletedExceptionally()) {
+                return Health.down().withDetail("error", String.valueOf(failure().getMessage())).build();
+            }
+            return Health.up().withDetail("configured", ready.join()).build();
+        };
+    }
+
+    private void requireFirebase() {
+        if (!awaitReady()) {
+            throw new IllegalStateException("Firebase is not configured (no " + credentials.getDescription() + ")");
+        }
+    }
+
+    private boolean awaitReady() {
+        start(false);
+        try {
+            return ready.get(initTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for Firebase initialization");
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Firebase initialization did not finish within " + initTimeoutSeconds + "s");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firebase initialization failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private Throwable failure() {
         try {
-            InputStream serviceAccount = getClass().getClassLoader().getResourceAsStream("firebase-service-account.json");
-            if (serviceAccount == null) {
-                System.err.println("[FIREBASE CONFIG] firebase-service-account.json NOT FOUND in classpath!");
-                throw new RuntimeException("firebase-service-account.json not found in classpath");
+            ready.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+
+    // The first caller initializes (or hands it to a thread); everyone else waits on ready
+    private void start(boolean async) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        if (async) {
+            Thread thread = new Thread(this::initialize, "firebase-init");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            initialize();
+        }
+    }
+
+    private void initialize() {
+        long startedAt = System.nanoTime();
+        try {
+            if (!credentials.exists() && "embedded".equals(storage)) {
+                // Embedded storage needs no Firestore; only Firebase Auth endpoints stay unavailable
+                log.info("{} not found; running without Firebase (embedded storage)", credentials.getDescription());
+                ready.complete(false);
+                return;
+            }
+            if (!credentials.exists()) {
+                log.error("{} NOT FOUND!", credentials.getDescription());
+                throw new RuntimeException(credentials.getDescription() + " not found");
             } else {
-                System.out.println("[FIREBASE CONFIG] firebase-service-account.json found and loaded.");
+                log.info("{} found and loaded", credentials.getDescription());
+            }
+            FirebaseOptions options;
+            try (InputStream serviceAccount = credentials.getInputStream()) {
+                options = FirebaseOptions.builder()
+                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                        .build();
             }
-            FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .build();
             if (FirebaseApp.getApps().isEmpty()) {
                 FirebaseApp.initializeApp(options);
-                System.out.println("[FIREBASE CONFIG] Firebase initialized successfully.");
+                log.info("Firebase initialized successfully ({}, {} ms)", initMode,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
             }
+            ready.complete(true);
         } catch (Exception e) {
-            System.err.println("[FIREBASE CONFIG] Error initializing Firebase: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException(e);
+            log.error("Error initializing Firebase: {}", e.getMessage(), e);
+            ready.completeExceptionally(e);
         }
     }
 }
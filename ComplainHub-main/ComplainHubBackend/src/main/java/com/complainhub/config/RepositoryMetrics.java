@@ -0,0 +1,145 @@
+package com.complainhub.config;
+
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.ComplaintUpdate;
+import com.complainhub.repository.UserRepository;
+import io.micrometer.core.instrument.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the complaint and user repositories so every storage call is timed (with a percentile
+ * histogram), its result-set and payload sizes recorded and its failures counted, all tagged by
+ * repository and operation. Works the same for the Firestore and embedded engines.
+ */
+@Component
+public class RepositoryMetrics implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ComplaintRepository) {
+            return meter(bean, ComplaintRepository.class, "complaints");
+        }
+        if (bean instanceof UserRepository) {
+            return meter(bean, UserRepository.class, "users");
+        }
+        return bean;
+    }
+
+    private Object meter(Object target, Class<?> type, String repository) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Metered(target, repository));
+    }
+
+    private final class Metered implements InvocationHandler {
+        private final Object target;
+        private final String repository;
+        private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+        Metered(Object target, String repository) {
+            this.target = target;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            Meters m = meters.computeIfAbsent(method, this::metersFor);
+            if (args != null) {
+                for (Object arg : args) {
+                    if (isPayload(arg)) {
+                        m.payload.record(estimateSize(arg, 0));
+                    }
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = method.invoke(target, args);
+                m.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (result instanceof Collection<?> collection) {
+                    m.results.record(collection.size());
+                } else if (result instanceof Optional<?> optional) {
+                    m.results.record(optional.isPresent() ? 1 : 0);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                m.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                Counter.builder("complainhub.repository.errors")
+                        .tag("repository", repository)
+                        .tag("operation", method.getName())
+                        .tag("exception", e.getCause().getClass().getSimpleName())
+                        .register(registry.getObject())
+                        .increment();
+                throw e.getCause();
+            }
+        }
+
+        private Meters metersFor(Method method) {
+            MeterRegistry meterRegistry = registry.getObject();
+            Tags tags = Tags.of("repository", repository, "operation", method.getName());
+            return new Meters(
+                    timer(meterRegistry, tags.and("outcome", "success")),
+                    timer(meterRegistry, tags.and("outcome", "error")),
+                    DistributionSummary.builder("complainhub.repository.results").tags(tags)
+                            .description("Documents returned per call").register(meterRegistry),
+                    DistributionSummary.builder("complainhub.repository.payload").tags(tags).baseUnit("bytes")
+                            .description("Approximate size of the data written per call").register(meterRegistry));
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, Tags tags) {
+        return Timer.builder("complainhub.repository").tags(tags).publishPercentileHistogram().register(registry);
+    }
+
+    private static boolean isPayload(Object arg) {
+        return arg instanceof Map<?, ?> || arg instanceof ComplaintUpdate
+                || arg instanceof Collection<?> collection && !collection.isEmpty() && collection.iterator().next() instanceof ComplaintUpdate;
+    }
+
+    // Rough encoded size without serializing: string lengths plus a few bytes per scalar
+    private static long estimateSize(Object value, int depth) {
+        if (value == null || depth > 8) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + estimateSize(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 0;
+            for (Object element : collection) {
+                size += estimateSize(element, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof ComplaintUpdate update) {
+            return estimateSize(update.fields(), depth + 1) + estimateSize(update.appends(), depth + 1);
+        }
+        return 8;
+    }
+
+    private record Meters(Timer success, Timer failure, DistributionSummary results, DistributionSummary payload) {}
+}
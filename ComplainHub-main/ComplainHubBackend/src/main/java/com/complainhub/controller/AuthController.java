@@ -1,11 +1,14 @@
 package com.complainhub.controller;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
+import com.complainhub.service.VerifiedToken;
+import com.complainhub.service.VerifiedTokenCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*") // Allow all origins for dev; restrict in prod
@@ -14,11 +17,14 @@ public class AuthController {
     @Autowired
     private com.complainhub.service.UserService userService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     @PostMapping("/verifyToken")
     public ResponseEntity<?> verifyToken(@RequestBody TokenRequest tokenRequest) {
         try {
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(tokenRequest.getIdToken());
-            // Upsert user data in Firestore if missing
+            VerifiedToken decodedToken = verifiedTokenCache.verify(tokenRequest.getIdToken());
+            // Upsert user data if missing
             String uid = decodedToken.getUid();
             String email = decodedToken.getEmail();
             String name = (String) decodedToken.getClaims().getOrDefault("name", email);
@@ -30,6 +36,14 @@ public class AuthController {
         }
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("verifiedTokens", verifiedTokenCache.stats());
+        stats.put("knownUsers", userService.knownUserStats());
+        return ResponseEntity.ok(stats);
+    }
+
     // You can add more endpoints for admin logic, user registration, etc.
 
     public static class TokenRequest {
@@ -1,11 +1,19 @@
 package com.complainhub.controller;
 
+import com.complainhub.repository.ComplaintHistory;
 import com.complainhub.service.ComplaintService;
+import com.complainhub.service.RequestExecutor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/complaint")
@@ -14,37 +22,220 @@ public class ComplaintController {
         @Autowired
     private ComplaintService complaintService;
 
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    // Rate limited per signed-in student ("Authorization: Bearer <ID token>"), otherwise per client address
+    // (429 with Retry-After); accepted creates are committed in small batches
     @PostMapping("/create")
-    public ResponseEntity<?> createComplaint(@RequestBody Map<String, Object> payload) {
-        return complaintService.createComplaint(payload);
+    public CompletableFuture<ResponseEntity<?>> createComplaint(@RequestBody Map<String, Object> payload,
+                                                                @RequestHeader(value = "Authorization", required = false) String authorization,
+                                                                HttpServletRequest request) {
+        String clientAddress = request.getRemoteAddr();
+        return requestExecutor.submit(() -> complaintService.createComplaint(payload, authorization, clientAddress));
     }
 
+    // Without pageSize this returns the full (optionally filtered) list as before.
+    // view=summary drops the comments and updates arrays.
     @GetMapping("/all")
-    public ResponseEntity<?> getAllComplaints() {
-        return complaintService.getAllComplaints();
+    public CompletableFuture<ResponseEntity<?>> getAllComplaints(@RequestParam(required = false) Integer pageSize,
+                                              @RequestParam(required = false) String startAfter,
+                                              @RequestParam(required = false) String status,
+                                              @RequestParam(required = false) String category,
+                                              @RequestParam(required = false) String department,
+                                              @RequestParam(required = false) String priority,
+                                              @RequestParam(required = false) String clusterId,
+                                              @RequestParam(defaultValue = "full") String view) {
+        Map<String, String> filters = filters(status, category, department, priority, clusterId);
+        boolean includeHistory = !"summary".equals(view);
+        if (pageSize == null) {
+            return requestExecutor.submit(() -> complaintService.getAllComplaints(filters, includeHistory));
+        }
+        return requestExecutor.submit(() -> complaintService.getComplaintPage(filters, includeHistory, pageSize, startAfter));
+    }
+
+    // Newline-delimited JSON, written while the pages are still being read
+    @GetMapping(value = "/all", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamComplaints(@RequestParam(required = false) String status,
+                                                                  @RequestParam(required = false) String category,
+                                                                  @RequestParam(required = false) String department,
+                                                                  @RequestParam(required = false) String priority,
+                                                                  @RequestParam(required = false) String clusterId,
+                                                                  @RequestParam(defaultValue = "full") String view) {
+        return complaintService.streamComplaints(filters(status, category, department, priority, clusterId), !"summary".equals(view));
+    }
+
+    // Download for audits (csv, ndjson) or model retraining (training: the complaints_priority_dataset.csv columns).
+    // from/to are yyyy-MM-dd (to inclusive) or ISO instants; streamed page by page, gzip=true compresses it.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportComplaints(@RequestParam(defaultValue = "csv") String format,
+                                                                  @RequestParam(required = false) String from,
+                                                                  @RequestParam(required = false) String to,
+                                                                  @RequestParam(required = false) String status,
+                                                                  @RequestParam(required = false) String category,
+                                                                  @RequestParam(required = false) String department,
+                                                                  @RequestParam(required = false) String priority,
+                                                                  @RequestParam(defaultValue = "false") boolean gzip,
+                                                                  HttpServletRequest request) {
+        return complaintService.exportComplaints(filters(status, category, department, priority, null), from, to, format, gzip, request);
+    }
+
+    // Hit rate, time since the last change and size of the in-process complaint view
+    @GetMapping("/view/stats")
+    public ResponseEntity<?> getViewStats() {
+        return complaintService.getViewStats();
+    }
+
+    // Ranked full-text search over title, description and comments; the last word also matches as a prefix
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchComplaints(@RequestParam(required = false) String q,
+                                                                 @RequestParam(required = false) String status,
+                                                                 @RequestParam(required = false) String category,
+                                                                 @RequestParam(required = false) String department,
+                                                                 @RequestParam(defaultValue = "true") boolean prefix,
+                                                                 @RequestParam(defaultValue = "20") int limit) {
+        Map<String, String> filters = filters(status, category, department, null, null);
+        return requestExecutor.submit(() -> complaintService.searchComplaints(q, filters, prefix, limit));
+    }
+
+    // Counts by status/category/department/priority, time to resolution, daily and weekly rollups
+    @GetMapping("/stats")
+    public ResponseEntity<?> getComplaintStats(@RequestParam(defaultValue = "30") int days,
+                                               @RequestParam(defaultValue = "12") int weeks) {
+        return complaintService.getComplaintStats(days, weeks);
+    }
+
+    // Live deltas (created, status_updated, commented) as Server-Sent Events; reconnects resume from Last-Event-ID
+    @GetMapping(value = "/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) String uid,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                    @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        return complaintService.streamChanges(uid, lastEventId != null ? lastEventId : lastEventIdParam);
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<?> getStreamStats() {
+        return complaintService.getStreamStats();
+    }
+
+    // Progress of moving legacy comment/update arrays into subcollections
+    @GetMapping("/history/migration")
+    public ResponseEntity<?> getHistoryMigrationStats() {
+        return complaintService.getHistoryMigrationStats();
+    }
+
+    // Size, hit rate and settings of the near-duplicate index
+    @GetMapping("/dedup/stats")
+    public ResponseEntity<?> getDedupStats() {
+        return complaintService.getDedupStats();
+    }
+
+    // Batches, average batch size and fallbacks of the create write coalescer
+    @GetMapping("/create/stats")
+    public ResponseEntity<?> getWriteBatchStats() {
+        return complaintService.getWriteBatchStats();
+    }
+
+    @GetMapping("/search/stats")
+    public ResponseEntity<?> getSearchStats() {
+        return complaintService.getSearchStats();
+    }
+
+    // ADMIN: Open unclaimed complaints by escalation level, priority and SLA deadline
+    @GetMapping("/queue")
+    public CompletableFuture<ResponseEntity<?>> getWorkQueue(@RequestParam(defaultValue = "20") int limit,
+                                                             @RequestParam(required = false) String department) {
+        return requestExecutor.submit(() -> complaintService.getWorkQueue(limit, department));
+    }
+
+    // ADMIN: Lease the next complaints, e.g. {"admin": "uid", "count": 1}; 204 when nothing is waiting
+    @PostMapping("/queue/claim")
+    public CompletableFuture<ResponseEntity<?>> claimFromQueue(@RequestBody Map<String, Object> payload) {
+        return requestExecutor.submit(() -> complaintService.claimFromQueue(payload));
+    }
+
+    // ADMIN: Extend a claim held by {"admin": "uid"} (optional "leaseSeconds")
+    @PostMapping("/queue/{id}/renew")
+    public ResponseEntity<?> renewQueueClaim(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        return complaintService.updateQueueClaim(id, payload, true);
+    }
+
+    // ADMIN: Hand a claimed complaint back to the queue
+    @PostMapping("/queue/{id}/release")
+    public ResponseEntity<?> releaseQueueClaim(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        return complaintService.updateQueueClaim(id, payload, false);
+    }
+
+    @GetMapping("/queue/stats")
+    public ResponseEntity<?> getWorkQueueStats() {
+        return complaintService.getWorkQueueStats();
     }
 
     @GetMapping("/user/{uid}")
-    public ResponseEntity<?> getComplaintsByUser(@PathVariable String uid) {
-        return complaintService.getComplaintsByUser(uid);
+    public CompletableFuture<ResponseEntity<?>> getComplaintsByUser(@PathVariable String uid) {
+        return requestExecutor.submit(() -> complaintService.getComplaintsByUser(uid));
     }
 
     // ADMIN: Update complaint status
     @PutMapping("/{id}/status")
-    public ResponseEntity<?> updateComplaintStatus(@PathVariable String id, @RequestBody Map<String, Object> payload) {
-        return complaintService.updateComplaintStatus(id, payload);
+    public CompletableFuture<ResponseEntity<?>> updateComplaintStatus(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        return requestExecutor.submit(() -> complaintService.updateComplaintStatus(id, payload));
+    }
+
+    // ADMIN: Many status changes/comments at once, e.g. {"items": [{"id": "...", "status": "resolved", "comment": {"content": "..."}}]}
+    @PutMapping("/status/bulk")
+    public CompletableFuture<ResponseEntity<?>> updateComplaintStatusBulk(@RequestBody Map<String, List<Map<String, Object>>> payload) {
+        return requestExecutor.submit(() -> complaintService.updateComplaintStatusBulk(payload.get("items")));
+    }
+
+    // ADMIN: Same body as /{id}/status (plus an optional "comment"), applied to every complaint in a duplicate cluster
+    @PutMapping("/cluster/{clusterId}/status")
+    public CompletableFuture<ResponseEntity<?>> updateClusterStatus(@PathVariable String clusterId, @RequestBody Map<String, Object> payload) {
+        return requestExecutor.submit(() -> complaintService.updateClusterStatus(clusterId, payload));
     }
 
     // ADMIN: Add comment to complaint
     @PostMapping("/{id}/comment")
-    public ResponseEntity<?> addAdminComment(@PathVariable String id, @RequestBody Map<String, Object> payload) {
-        return complaintService.addAdminComment(id, payload);
+    public CompletableFuture<ResponseEntity<?>> addAdminComment(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        return requestExecutor.submit(() -> complaintService.addAdminComment(id, payload));
+    }
+
+    // Full comment history, newest first: {"items": [...], "nextPageToken": "..." | null}
+    @GetMapping("/{id}/comments")
+    public CompletableFuture<ResponseEntity<?>> getComments(@PathVariable String id,
+                                                            @RequestParam(defaultValue = "20") int pageSize,
+                                                            @RequestParam(required = false) String startAfter) {
+        return requestExecutor.submit(() -> complaintService.getComplaintHistory(id, ComplaintHistory.COMMENTS, pageSize, startAfter));
+    }
+
+    // Full status history, newest first, paged like /comments
+    @GetMapping("/{id}/updates")
+    public CompletableFuture<ResponseEntity<?>> getUpdates(@PathVariable String id,
+                                                           @RequestParam(defaultValue = "20") int pageSize,
+                                                           @RequestParam(required = false) String startAfter) {
+        return requestExecutor.submit(() -> complaintService.getComplaintHistory(id, ComplaintHistory.UPDATES, pageSize, startAfter));
     }
 
     // ADMIN: Classify complaint priority
     @PostMapping("/admin/classify-priority")
-    public ResponseEntity<?> classifyComplaintPriority(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> classifyComplaintPriority(@RequestBody Map<String, String> payload) {
         String complaint = payload.getOrDefault("complaint", "");
-        return complaintService.classifyComplaintPriority(complaint);
+        return requestExecutor.submit(() -> complaintService.classifyComplaintPriority(complaint));
+    }
+
+    // ADMIN: Classify a batch of complaints, e.g. {"complaints": ["...", "..."]}
+    @PostMapping("/admin/classify-priority/batch")
+    public CompletableFuture<ResponseEntity<?>> classifyComplaintPriorityBatch(@RequestBody Map<String, List<String>> payload) {
+        return requestExecutor.submit(() -> complaintService.classifyComplaintPriorityBatch(payload.get("complaints")));
+    }
+
+    private static Map<String, String> filters(String status, String category, String department, String priority, String clusterId) {
+        Map<String, String> filters = new HashMap<>();
+        filters.put("status", status);
+        filters.put("category", category);
+        filters.put("department", department);
+        filters.put("priority", priority);
+        filters.put("clusterId", clusterId);
+        return filters;
     }
 }
@@ -1,36 +1,50 @@
 package com.complainhub.controller;
 
+import com.complainhub.service.RequestExecutor;
 import com.complainhub.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping({"/api/user", "/api/users"})
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
     @PutMapping("/edit/{id}")
-    public ResponseEntity<?> editUser(@PathVariable String id, @RequestBody Map<String, Object> payload) {
-        return userService.editUser(id, payload);
+    public CompletableFuture<ResponseEntity<?>> editUser(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        return requestExecutor.submit(() -> userService.editUser(id, payload));
     }
 
     @GetMapping("/all")
-    public ResponseEntity<?> getAllUsers() {
-        return userService.getAllUsers();
+    public CompletableFuture<ResponseEntity<?>> getAllUsers() {
+        return requestExecutor.submit(() -> userService.getAllUsers());
     }
 
+    // Pages are chained on the Auth client's futures; no thread waits between them
     @GetMapping("/all-auth")
-    public ResponseEntity<?> getAllAuthUsers() {
+    public CompletableFuture<ResponseEntity<?>> getAllAuthUsers() {
         return userService.getAllAuthUsers();
     }
-    @Autowired
-    private UserService userService;
+
+    // Admin user screen: Auth users joined with role, department and status, one page at a time
+    @GetMapping("/directory")
+    public CompletableFuture<ResponseEntity<?>> getDirectory(@RequestParam(defaultValue = "100") int pageSize,
+                                                             @RequestParam(required = false) String pageToken) {
+        return requestExecutor.submit(() -> userService.getDirectoryPage(pageSize, pageToken));
+    }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> signup(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> signup(@RequestBody Map<String, String> payload) {
         String email = payload.get("email");
         String password = payload.get("password");
         String name = payload.get("name");
@@ -39,7 +53,7 @@ public class UserController {
         String studentId = payload.getOrDefault("studentId", "");
         String status = payload.getOrDefault("status", "active");
         String blockReason = payload.getOrDefault("blockReason", "");
-        return userService.signup(email, password, name, role, department, studentId, status, blockReason);
+        return requestExecutor.submit(() -> userService.signup(email, password, name, role, department, studentId, status, blockReason));
     }
 
     @PostMapping("/signin")
@@ -57,13 +71,13 @@ public class UserController {
     }
 
     @RequestMapping(value = {"/block/{id}"}, method = {RequestMethod.PATCH, RequestMethod.POST})
-    public ResponseEntity<?> blockUser(@PathVariable String id, @RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> blockUser(@PathVariable String id, @RequestBody Map<String, String> payload) {
         String blockReason = payload.get("blockReason");
-        return userService.blockUser(id, blockReason);
+        return requestExecutor.submit(() -> userService.blockUser(id, blockReason));
     }
 
     @RequestMapping(value = {"/unblock/{id}"}, method = {RequestMethod.PATCH, RequestMethod.POST})
-    public ResponseEntity<?> unblockUser(@PathVariable String id) {
-        return userService.unblockUser(id);
+    public CompletableFuture<ResponseEntity<?>> unblockUser(@PathVariable String id) {
+        return requestExecutor.submit(() -> userService.unblockUser(id));
     }
 }
@@ -0,0 +1,15 @@
+package com.complainhub.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.cloud.Timestamp;
+
+import java.util.Map;
+
+/** An element of a complaint's "comments" array. Absent fields are null and left out of the JSON. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CommentEntry(String userId, String userName, String content, Timestamp createdAt) {
+    public static CommentEntry fromDocument(Map<?, ?> data) {
+        return new CommentEntry(Complaint.string(data.get("userId"), null), Complaint.string(data.get("userName"), null),
+                Complaint.string(data.get("content"), null), Complaint.timestamp(data.get("createdAt")));
+    }
+}
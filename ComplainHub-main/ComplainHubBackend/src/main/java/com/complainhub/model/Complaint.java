@@ -0,0 +1,129 @@
+package com.complainhub.model;
+
+import com.complainhub.repository.ComplaintHistory;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.cloud.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A complaint as the API returns it. Missing or null document fields take the defaults below, the
+ * same for every endpoint; dates are Firestore {@link Timestamp}s. duplicateOf and clusterId are set
+ * only on complaints flagged as near-duplicates (and on the first complaint of each cluster). {@code comments} and
+ * {@code updates} hold the whole history while the document keeps it in its arrays, otherwise the most
+ * recent entries only (the full history is paged separately); they are null for summary views, which
+ * leave them out of the JSON entirely.
+ */
+@JsonSerialize(using = ComplaintJsonSerializer.class)
+public record Complaint(String id, String title, String description, String category, String status,
+                        String priority, String studentId, String studentName, String department,
+                        Timestamp createdAt, Timestamp updatedAt, List<CommentEntry> comments,
+                        List<StatusUpdate> updates, long commentCount, long updateCount, String assignedTo,
+                        Timestamp resolvedAt, String rejectionReason, String imageUrl, String duplicateOf,
+                        String clusterId) {
+    public static final String DEFAULT_CATEGORY = "others";
+    public static final String DEFAULT_STATUS = "pending";
+    public static final String DEFAULT_PRIORITY = "low";
+
+    /**
+     * Maps a stored document in one pass. A missing createdAt stays null and a missing updatedAt
+     * falls back to createdAt. A document that carries a complete "comments"/"updates" array (kept for
+     * clients that append to it directly), or a legacy one not yet migrated, returns the whole array;
+     * otherwise the stored preview. Counts come from {@link ComplaintHistory#count}.
+     */
+    public static Complaint fromDocument(String id, Map<String, Object> data, boolean includeHistory) {
+        Timestamp createdAt = timestamp(data.get("createdAt"));
+        Timestamp updatedAt = timestamp(data.get("updatedAt"));
+        return new Complaint(id,
+                string(data.get("title"), ""),
+                string(data.get("description"), ""),
+                string(data.get("category"), DEFAULT_CATEGORY),
+                string(data.get("status"), DEFAULT_STATUS),
+                string(data.get("priority"), DEFAULT_PRIORITY),
+                string(data.get("studentId"), ""),
+                string(data.get("studentName"), ""),
+                string(data.get("department"), ""),
+                createdAt,
+                updatedAt != null ? updatedAt : createdAt,
+                includeHistory ? comments(history(data, ComplaintHistory.COMMENTS)) : null,
+                includeHistory ? updates(history(data, ComplaintHistory.UPDATES)) : null,
+                count(data, ComplaintHistory.COMMENTS),
+                count(data, ComplaintHistory.UPDATES),
+                string(data.get("assignedTo"), ""),
+                timestamp(data.get("resolvedAt")),
+                string(data.get("rejectionReason"), ""),
+                string(data.get("imageUrl"), ""),
+                string(data.get("duplicateOf"), null),
+                string(data.get("clusterId"), null));
+    }
+
+    private static Object history(Map<String, Object> data, String kind) {
+        if (ComplaintHistory.hasCompleteArray(data, kind) || (!ComplaintHistory.isMigrated(data) && ComplaintHistory.hasArray(data, kind))) {
+            return data.get(kind);
+        }
+        return data.get(ComplaintHistory.previewField(kind));
+    }
+
+    // A complete array can be longer than the count when clients append to it directly
+    private static long count(Map<String, Object> data, String kind) {
+        if (ComplaintHistory.hasCompleteArray(data, kind)) {
+            return ((List<?>) data.get(kind)).size();
+        }
+        return ComplaintHistory.count(data, kind);
+    }
+
+    private static List<CommentEntry> comments(Object value) {
+        if (!(value instanceof List<?> list) || list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CommentEntry> comments = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (element instanceof Map<?, ?> entry) {
+                comments.add(CommentEntry.fromDocument(entry));
+            }
+        }
+        return comments;
+    }
+
+    private static List<StatusUpdate> updates(Object value) {
+        if (!(value instanceof List<?> list) || list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<StatusUpdate> updates = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (element instanceof Map<?, ?> entry) {
+                updates.add(StatusUpdate.fromDocument(entry));
+            }
+        }
+        return updates;
+    }
+
+    static String string(Object value, String defaultValue) {
+        if (value instanceof String s) {
+            return s;
+        }
+        return value == null ? defaultValue : value.toString();
+    }
+
+    // Firestore returns Timestamp; freshly created payloads still hold Date; ISO strings come from older clients
+    static Timestamp timestamp(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp;
+        }
+        if (value instanceof Date date) {
+            return Timestamp.of(date);
+        }
+        if (value instanceof String text) {
+            try {
+                return Timestamp.parseTimestamp(text);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
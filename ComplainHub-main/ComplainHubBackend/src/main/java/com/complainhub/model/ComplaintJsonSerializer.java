@@ -0,0 +1,164 @@
+package com.complainhub.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.google.cloud.Timestamp;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes {@link Complaint} straight to a {@link JsonGenerator} with pre-encoded field names, instead
+ * of building a map and having Jackson introspect it. Output matches the former map-based responses;
+ * timestamps keep their {"seconds", "nanos"} shape.
+ */
+public class ComplaintJsonSerializer extends JsonSerializer<Complaint> {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString CATEGORY = new SerializedString("category");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString PRIORITY = new SerializedString("priority");
+    private static final SerializedString STUDENT_ID = new SerializedString("studentId");
+    private static final SerializedString STUDENT_NAME = new SerializedString("studentName");
+    private static final SerializedString DEPARTMENT = new SerializedString("department");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializedString COMMENTS = new SerializedString("comments");
+    private static final SerializedString UPDATES = new SerializedString("updates");
+    private static final SerializedString COMMENT_COUNT = new SerializedString("commentCount");
+    private static final SerializedString UPDATE_COUNT = new SerializedString("updateCount");
+    private static final SerializedString ASSIGNED_TO = new SerializedString("assignedTo");
+    private static final SerializedString RESOLVED_AT = new SerializedString("resolvedAt");
+    private static final SerializedString REJECTION_REASON = new SerializedString("rejectionReason");
+    private static final SerializedString IMAGE_URL = new SerializedString("imageUrl");
+    private static final SerializedString DUPLICATE_OF = new SerializedString("duplicateOf");
+    private static final SerializedString CLUSTER_ID = new SerializedString("clusterId");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString USER_NAME = new SerializedString("userName");
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString BY = new SerializedString("by");
+    private static final SerializedString DATE = new SerializedString("date");
+    private static final SerializedString SECONDS = new SerializedString("seconds");
+    private static final SerializedString NANOS = new SerializedString("nanos");
+    private static final SerializedString SCORE = new SerializedString("score");
+
+    @Override
+    public void serialize(Complaint complaint, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        write(complaint, generator);
+    }
+
+    /** Writes one complaint object; usable on a raw generator without an ObjectMapper. */
+    public static void write(Complaint complaint, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeFields(complaint, generator);
+        generator.writeEndObject();
+    }
+
+    private static void writeFields(Complaint complaint, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(ID);
+        generator.writeString(complaint.id());
+        writeString(generator, TITLE, complaint.title());
+        writeString(generator, DESCRIPTION, complaint.description());
+        writeString(generator, CATEGORY, complaint.category());
+        writeString(generator, STATUS, complaint.status());
+        writeString(generator, PRIORITY, complaint.priority());
+        writeString(generator, STUDENT_ID, complaint.studentId());
+        writeString(generator, STUDENT_NAME, complaint.studentName());
+        writeString(generator, DEPARTMENT, complaint.department());
+        generator.writeFieldName(CREATED_AT);
+        writeTimestamp(generator, complaint.createdAt());
+        generator.writeFieldName(UPDATED_AT);
+        writeTimestamp(generator, complaint.updatedAt());
+        if (complaint.comments() != null) {
+            generator.writeFieldName(COMMENTS);
+            writeComments(generator, complaint.comments());
+        }
+        if (complaint.updates() != null) {
+            generator.writeFieldName(UPDATES);
+            writeUpdates(generator, complaint.updates());
+        }
+        generator.writeFieldName(COMMENT_COUNT);
+        generator.writeNumber(complaint.commentCount());
+        generator.writeFieldName(UPDATE_COUNT);
+        generator.writeNumber(complaint.updateCount());
+        writeString(generator, ASSIGNED_TO, complaint.assignedTo());
+        generator.writeFieldName(RESOLVED_AT);
+        writeTimestamp(generator, complaint.resolvedAt());
+        writeString(generator, REJECTION_REASON, complaint.rejectionReason());
+        writeString(generator, IMAGE_URL, complaint.imageUrl());
+        writeOptionalString(generator, DUPLICATE_OF, complaint.duplicateOf());
+        writeOptionalString(generator, CLUSTER_ID, complaint.clusterId());
+    }
+
+    private static void writeComments(JsonGenerator generator, List<CommentEntry> comments) throws IOException {
+        generator.writeStartArray();
+        for (CommentEntry comment : comments) {
+            generator.writeStartObject();
+            writeOptionalString(generator, USER_ID, comment.userId());
+            writeOptionalString(generator, USER_NAME, comment.userName());
+            writeOptionalString(generator, CONTENT, comment.content());
+            if (comment.createdAt() != null) {
+                generator.writeFieldName(CREATED_AT);
+                writeTimestamp(generator, comment.createdAt());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeUpdates(JsonGenerator generator, List<StatusUpdate> updates) throws IOException {
+        generator.writeStartArray();
+        for (StatusUpdate update : updates) {
+            generator.writeStartObject();
+            writeOptionalString(generator, BY, update.by());
+            if (update.date() != null) {
+                generator.writeFieldName(DATE);
+                writeTimestamp(generator, update.date());
+            }
+            writeOptionalString(generator, STATUS, update.status());
+            writeOptionalString(generator, DESCRIPTION, update.description());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializedString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    private static void writeOptionalString(JsonGenerator generator, SerializedString name, String value) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, Timestamp timestamp) throws IOException {
+        if (timestamp == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeFieldName(SECONDS);
+        generator.writeNumber(timestamp.getSeconds());
+        generator.writeFieldName(NANOS);
+        generator.writeNumber(timestamp.getNanos());
+        generator.writeEndObject();
+    }
+
+    /** Serializer for {@link ScoredComplaint}: the complaint's fields followed by "score". */
+    public static class Scored extends JsonSerializer<ScoredComplaint> {
+        @Override
+        public void serialize(ScoredComplaint scored, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            writeFields(scored.complaint(), generator);
+            generator.writeFieldName(SCORE);
+            generator.writeNumber(scored.score());
+            generator.writeEndObject();
+        }
+    }
+}
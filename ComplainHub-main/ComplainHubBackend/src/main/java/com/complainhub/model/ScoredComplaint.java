@@ -0,0 +1,8 @@
+package com.complainhub.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/** A search hit: the complaint summary with its relevance score as one more top-level field. */
+@JsonSerialize(using = ComplaintJsonSerializer.Scored.class)
+public record ScoredComplaint(Complaint complaint, double score) {
+}
@@ -0,0 +1,15 @@
+package com.complainhub.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.cloud.Timestamp;
+
+import java.util.Map;
+
+/** An element of a complaint's "updates" array. Absent fields are null and left out of the JSON. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StatusUpdate(String by, Timestamp date, String status, String description) {
+    public static StatusUpdate fromDocument(Map<?, ?> data) {
+        return new StatusUpdate(Complaint.string(data.get("by"), null), Complaint.timestamp(data.get("date")),
+                Complaint.string(data.get("status"), null), Complaint.string(data.get("description"), null));
+    }
+}
@@ -0,0 +1,21 @@
+package com.complainhub.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/** Receives change batches from {@link ComplaintRepository#watch}. */
+public interface ComplaintChangeListener {
+    /**
+     * @param reset   true when {@code changes} is the complete collection and replaces any earlier state
+     * @param changes upserts carry the full document data; removals carry null data
+     */
+    void onChanges(boolean reset, List<Change> changes);
+
+    void onError(Exception error);
+
+    record Change(String id, Map<String, Object> data) {
+        public boolean removed() {
+            return data == null;
+        }
+    }
+}
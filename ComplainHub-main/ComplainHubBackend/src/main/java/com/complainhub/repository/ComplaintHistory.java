@@ -0,0 +1,295 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Layout of a complaint's comment and status history. Each kind ("comments", "updates") is an
+ * append-only subcollection of the complaint; the complaint itself keeps only "commentCount" /
+ * "updateCount" and the last {@link #PREVIEW_SIZE} entries in "recentComments" / "recentUpdates".
+ * Documents written before this layout still hold the whole history in a "comments" / "updates"
+ * array and have no {@link #SCHEMA_FIELD}; the history migration moves the arrays out.
+ *
+ * <p>Appends are blind, so they need no read of the complaint: the entry is written under an id chosen
+ * up front, the count is incremented and, while clients still read and append to the arrays directly
+ * (complainhub.history.keep-arrays, the default), the element is array-unioned into the complaint's
+ * array. The preview is not touched by an append; it is rebuilt afterwards from the subcollection (see
+ * ComplaintHistoryMigrator) and by the migration. Until a legacy complaint is migrated, entries appended
+ * without the arrays kept are only in its subcollection, so its history is the array and the
+ * subcollection together.
+ */
+public final class ComplaintHistory {
+    public static final String COMMENTS = "comments";
+    public static final String UPDATES = "updates";
+    public static final List<String> KINDS = List.of(COMMENTS, UPDATES);
+    public static final String SCHEMA_FIELD = "historySchema";
+    public static final long SCHEMA_VERSION = 2;
+    public static final int PREVIEW_SIZE = 3;
+
+    private ComplaintHistory() {
+    }
+
+    public static boolean isKind(String kind) {
+        return KINDS.contains(kind);
+    }
+
+    /** Field each kind is ordered by. */
+    public static String timeField(String kind) {
+        return COMMENTS.equals(kind) ? "createdAt" : "date";
+    }
+
+    public static String countField(String kind) {
+        return COMMENTS.equals(kind) ? "commentCount" : "updateCount";
+    }
+
+    public static String previewField(String kind) {
+        return COMMENTS.equals(kind) ? "recentComments" : "recentUpdates";
+    }
+
+    public static boolean isMigrated(Map<String, Object> complaint) {
+        return complaint.get(SCHEMA_FIELD) != null;
+    }
+
+    /** Whether the complaint holds a {@code kind} array, complete or not (see {@link #hasCompleteArray}). */
+    public static boolean hasArray(Map<String, Object> complaint, String kind) {
+        return complaint.get(kind) instanceof List<?>;
+    }
+
+    /**
+     * Whether the complaint's {@code kind} array holds its whole history of that kind: a migrated complaint
+     * whose array has as many elements as its count. An array appends recreated on a complaint migrated
+     * while the arrays were not kept, or one that stopped being appended to, is partial.
+     */
+    public static boolean hasCompleteArray(Map<String, Object> complaint, String kind) {
+        return isMigrated(complaint) && complaint.get(kind) instanceof List<?> array && array.size() >= storedCount(complaint, kind);
+    }
+
+    /** Entries of {@code kind}: the stored count, or for a legacy complaint at least its array's length. */
+    public static long count(Map<String, Object> complaint, String kind) {
+        long count = storedCount(complaint, kind);
+        if (!isMigrated(complaint) && complaint.get(kind) instanceof List<?> array) {
+            return Math.max(count, array.size());
+        }
+        return count;
+    }
+
+    private static long storedCount(Map<String, Object> complaint, String kind) {
+        return complaint.get(countField(kind)) instanceof Number n ? n.longValue() : 0;
+    }
+
+    public static boolean hasArrays(Map<String, Object> complaint) {
+        return hasArray(complaint, COMMENTS) || hasArray(complaint, UPDATES);
+    }
+
+    /** A copy of a new complaint with empty history (and empty arrays when they are kept). */
+    static Map<String, Object> newDocument(Map<String, Object> data, boolean keepArrays) {
+        Map<String, Object> document = new HashMap<>(data);
+        for (String kind : KINDS) {
+            if (keepArrays) {
+                document.put(kind, new ArrayList<>());
+            } else {
+                document.remove(kind);
+            }
+            document.put(countField(kind), 0L);
+            document.put(previewField(kind), List.of());
+        }
+        document.put(SCHEMA_FIELD, SCHEMA_VERSION);
+        return document;
+    }
+
+    /**
+     * What it takes to append {@code appends} (keyed by kind) without reading the complaint: each entry
+     * under a new id, a count increment and, with {@code keepArrays}, the element (with its id) to union
+     * into the complaint's array.
+     */
+    static Plan append(Map<String, Map<String, Object>> appends, Supplier<String> newId, boolean keepArrays) {
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Map<String, Object>> arrayAppends = new HashMap<>();
+        Map<String, Long> increments = new HashMap<>();
+        for (String kind : KINDS) {
+            Map<String, Object> appended = appends.get(kind);
+            if (appended == null) {
+                continue;
+            }
+            String id = newId.get();
+            entries.add(new Entry(kind, id, appended));
+            increments.put(countField(kind), 1L);
+            if (keepArrays) {
+                Map<String, Object> element = new HashMap<>(appended);
+                element.put("id", id);
+                arrayAppends.put(kind, element);
+            }
+        }
+        return new Plan(Map.of(), List.of(), entries, arrayAppends, increments);
+    }
+
+    /**
+     * Moves a complaint's arrays into its subcollections, given the entries already there ({@code stored},
+     * by kind, with their ids). Array elements go in under stable ids (the id a kept array stored with the
+     * element, else "legacy-00000", ...), so repeating an interrupted migration writes the same entries
+     * again rather than duplicates; the count and preview are set from the array and the stored entries together.
+     */
+    static Plan migrate(Map<String, Object> current, Map<String, List<Map<String, Object>>> stored) {
+        Map<String, Object> fields = new HashMap<>();
+        List<String> removed = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        for (String kind : KINDS) {
+            List<Map<String, Object>> all = merged(legacyEntries(current, kind), stored.getOrDefault(kind, List.of()), kind);
+            Set<Object> present = new HashSet<>();
+            for (Map<String, Object> entry : stored.getOrDefault(kind, List.of())) {
+                present.add(entry.get("id"));
+            }
+            for (Map<String, Object> entry : legacyEntries(current, kind)) {
+                if (!present.contains(entry.get("id"))) {
+                    entries.add(new Entry(kind, (String) entry.remove("id"), entry));
+                }
+            }
+            if (current.containsKey(kind)) {
+                removed.add(kind);
+            }
+            fields.put(countField(kind), (long) all.size());
+            fields.put(previewField(kind), preview(all));
+        }
+        fields.put(SCHEMA_FIELD, SCHEMA_VERSION);
+        return new Plan(fields, removed, entries, Map.of(), Map.of());
+    }
+
+    /** The preview fields for {@code newest}, the complaint's latest entries of each kind, newest first. */
+    static Map<String, Object> previewFields(Map<String, List<Map<String, Object>>> newest) {
+        Map<String, Object> fields = new HashMap<>();
+        for (Map.Entry<String, List<Map<String, Object>>> kind : newest.entrySet()) {
+            List<Map<String, Object>> oldestFirst = new ArrayList<>(kind.getValue().subList(0, Math.min(PREVIEW_SIZE, kind.getValue().size())));
+            Collections.reverse(oldestFirst);
+            fields.put(previewField(kind.getKey()), oldestFirst);
+        }
+        return fields;
+    }
+
+    /** A legacy complaint's array together with its stored entries, each id once, oldest first. */
+    static List<Map<String, Object>> merged(List<Map<String, Object>> array, List<Map<String, Object>> stored, String kind) {
+        Map<Object, Map<String, Object>> byId = new LinkedHashMap<>();
+        for (Map<String, Object> entry : array) {
+            byId.put(entry.get("id"), entry);
+        }
+        for (Map<String, Object> entry : stored) {
+            byId.putIfAbsent(entry.get("id"), entry);
+        }
+        List<Map<String, Object>> all = new ArrayList<>(byId.values());
+        String timeField = timeField(kind);
+        all.sort(Comparator.comparing(entry -> toTimestamp(entry.get(timeField))));
+        return all;
+    }
+
+    private static List<Map<String, Object>> preview(List<Map<String, Object>> oldestFirst) {
+        return new ArrayList<>(oldestFirst.subList(Math.max(0, oldestFirst.size() - PREVIEW_SIZE), oldestFirst.size()));
+    }
+
+    /**
+     * Puts back the arrays of a migrated complaint from its subcollection entries ({@code stored}, by kind,
+     * with their ids), keeping anything a client appended to a re-created array since. Only the kinds
+     * whose array is missing entries are rewritten; an empty plan means the arrays were complete.
+     */
+    static Plan restoreArrays(Map<String, Object> current, Map<String, List<Map<String, Object>>> stored) {
+        Map<String, Object> fields = new HashMap<>();
+        for (String kind : KINDS) {
+            List<Map<String, Object>> array = entries(current.get(kind));
+            Set<Object> present = new HashSet<>();
+            for (Map<String, Object> element : array) {
+                present.add(element.get("id"));
+            }
+            List<Map<String, Object>> restored = new ArrayList<>(array);
+            for (Map<String, Object> entry : stored.getOrDefault(kind, List.of())) {
+                if (!present.contains(entry.get("id"))) {
+                    restored.add(entry);
+                }
+            }
+            if (hasArray(current, kind) && restored.size() == array.size()) {
+                continue;
+            }
+            String timeField = timeField(kind);
+            restored.sort(Comparator.comparing(entry -> toTimestamp(entry.get(timeField))));
+            fields.put(kind, restored);
+            fields.put(countField(kind), (long) restored.size());
+            fields.put(previewField(kind), preview(restored));
+        }
+        return new Plan(fields, List.of(), List.of(), Map.of(), Map.of());
+    }
+
+    /** The elements of a history array with their stable ids under "id", in append order. */
+    static List<Map<String, Object>> legacyEntries(Map<String, Object> complaint, String kind) {
+        List<Map<String, Object>> existing = entries(complaint.get(kind));
+        List<Map<String, Object>> result = new ArrayList<>(existing.size());
+        for (int i = 0; i < existing.size(); i++) {
+            Map<String, Object> entry = new HashMap<>(existing.get(i));
+            // Paging needs a time on every entry; the few legacy ones without sort first
+            entry.putIfAbsent(timeField(kind), Timestamp.ofTimeSecondsAndNanos(0, 0));
+            // Elements the backend appended to a kept array carry their subcollection id
+            if (!(entry.get("id") instanceof String)) {
+                entry.put("id", String.format("legacy-%05d", i));
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /** Newest first by time then id; {@code entries} carry their id under "id". */
+    static HistoryPage page(List<Map<String, Object>> entries, String kind, int pageSize, PageCursor startAfter) {
+        String timeField = timeField(kind);
+        Comparator<Map<String, Object>> newestFirst = Comparator
+                .comparing((Map<String, Object> entry) -> toTimestamp(entry.get(timeField)))
+                .thenComparing(entry -> (String) entry.get("id"))
+                .reversed();
+        List<Map<String, Object>> sorted = new ArrayList<>(entries);
+        sorted.sort(newestFirst);
+        int from = 0;
+        if (startAfter != null) {
+            Map<String, Object> probe = new HashMap<>();
+            probe.put(timeField, startAfter.createdAt());
+            probe.put("id", startAfter.id());
+            int position = Collections.binarySearch(sorted, probe, newestFirst);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(sorted.size(), from + pageSize);
+        List<Map<String, Object>> items = new ArrayList<>(sorted.subList(from, to));
+        return new HistoryPage(items, items.size() == pageSize && to < sorted.size() ? cursorAfter(items.get(items.size() - 1), kind) : null);
+    }
+
+    static PageCursor cursorAfter(Map<String, Object> entry, String kind) {
+        return new PageCursor(toTimestamp(entry.get(timeField(kind))), (String) entry.get("id"));
+    }
+
+    static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp;
+        }
+        if (value instanceof Date date) {
+            return Timestamp.of(date);
+        }
+        return Timestamp.ofTimeSecondsAndNanos(0, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> entries(Object value) {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            for (Object element : list) {
+                if (element instanceof Map<?, ?> map) {
+                    entries.add((Map<String, Object>) map);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /** One subcollection document to write. */
+    record Entry(String kind, String id, Map<String, Object> data) {}
+
+    /**
+     * Complaint fields to set, fields to delete, subcollection entries to add, elements to union into the
+     * kept arrays (by kind) and counts to increment, all in one write.
+     */
+    record Plan(Map<String, Object> fields, List<String> removed, List<Entry> entries, Map<String, Map<String, Object>> arrayAppends,
+                Map<String, Long> increments) {}
+}
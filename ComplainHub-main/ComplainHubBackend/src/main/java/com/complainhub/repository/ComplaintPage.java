@@ -0,0 +1,7 @@
+package com.complainhub.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/** A page of complaints; {@code next} is null on the last page. */
+public record ComplaintPage(List<Map<String, Object>> items, PageCursor next) {}
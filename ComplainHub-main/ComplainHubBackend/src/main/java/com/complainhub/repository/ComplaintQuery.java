@@ -0,0 +1,26 @@
+package com.complainhub.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Equality filters on status, category, department, priority and clusterId (null or empty values are ignored)
+ * and an optional projection; {@code fields == null} returns whole documents.
+ */
+public record ComplaintQuery(Map<String, String> filters, List<String> fields) {
+    public static final List<String> FILTER_FIELDS = List.of("status", "category", "department", "priority", "clusterId");
+
+    public boolean hasFilter(String field) {
+        String value = filters.get(field);
+        return value != null && !value.isEmpty();
+    }
+
+    public boolean matches(Map<String, Object> data) {
+        for (String field : FILTER_FIELDS) {
+            if (hasFilter(field) && !filters.get(field).equals(data.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage for the complaints collection. Documents are plain maps; reads return them with the
+ * document id under "id" and date fields as {@link com.google.cloud.Timestamp}, whichever engine
+ * is behind the interface.
+ */
+public interface ComplaintRepository {
+    /** Stores a new complaint and returns its generated id. */
+    String create(Map<String, Object> data) throws Exception;
+
+    /** Stores new complaints in one atomic batch and returns their generated ids, in order. */
+    List<String> createAll(List<Map<String, Object>> documents) throws Exception;
+
+    Optional<Map<String, Object>> findById(String id) throws Exception;
+
+    /** Documents that exist among {@code ids}; missing ids are skipped. */
+    List<Map<String, Object>> findByIds(Collection<String> ids) throws Exception;
+
+    List<Map<String, Object>> findAll(ComplaintQuery query) throws Exception;
+
+    /** One page ordered by createdAt then id, newest first; complaints without createdAt are not paged. */
+    ComplaintPage findPage(ComplaintQuery query, int pageSize, PageCursor startAfter) throws Exception;
+
+    /**
+     * Complaints whose "updatedAt" is at or after {@code since}, in no particular order, with the
+     * {@code fields} projection ({@code null} for whole documents). Complaints never updated are not returned.
+     */
+    List<Map<String, Object>> findUpdatedSince(Timestamp since, List<String> fields) throws Exception;
+
+    /** Complaints whose "uid" field equals {@code uid}. */
+    List<Map<String, Object>> findByUser(String uid) throws Exception;
+
+    /** Merges {@code fields} into an existing complaint; fails if it does not exist. */
+    void update(String id, Map<String, Object> fields) throws Exception;
+
+    /**
+     * Applies the whole update as a single write without reading the complaint; fails if it does not exist.
+     * Appends go to the complaint's history (see {@link ComplaintHistory}) together with its counts; the
+     * preview is left to {@link #refreshHistoryPreview}.
+     */
+    void apply(ComplaintUpdate update) throws Exception;
+
+    /**
+     * Applies independent updates with bounded parallelism. The result has one element per update, in
+     * order: null when it was written, otherwise the error for that item alone.
+     */
+    List<Exception> applyAll(List<ComplaintUpdate> updates) throws Exception;
+
+    /** A page of the complaint's "comments" or "updates", newest first; empty when the complaint does not exist. */
+    Optional<HistoryPage> findHistory(String id, String kind, int pageSize, PageCursor startAfter) throws Exception;
+
+    /** Every history entry of {@code kind} already moved out of its complaint, with the complaint's id. */
+    void forEachHistoryEntry(String kind, BiConsumer<String, Map<String, Object>> consumer) throws Exception;
+
+    /** Moves a complaint's history arrays into its subcollections; false if there was nothing to move. */
+    boolean migrateHistory(String id) throws Exception;
+
+    /** Rebuilds the complaint's "recentComments" / "recentUpdates" from its subcollections; fails if it does not exist. */
+    void refreshHistoryPreview(String id) throws Exception;
+
+    /**
+     * Puts back the history arrays of a complaint an earlier migration moved out, from its subcollections,
+     * for clients that still read the arrays; false if it had none moved out or they were complete.
+     */
+    boolean restoreHistoryArrays(String id) throws Exception;
+
+    /**
+     * Streams changes to the whole collection. The first delivery is a reset carrying every document;
+     * after an error the subscription is dead and the caller must watch again.
+     */
+    Subscription watch(ComplaintChangeListener listener);
+
+    interface Subscription {
+        void cancel();
+    }
+}
@@ -0,0 +1,10 @@
+package com.complainhub.repository;
+
+import java.util.Map;
+
+/**
+ * One atomic change to a complaint: {@code fields} are merged in and each entry of {@code appends}
+ * is added to the history it is keyed by ("updates", "comments"; see {@link ComplaintHistory}).
+ */
+public record ComplaintUpdate(String id, Map<String, Object> fields, Map<String, Map<String, Object>> appends) {
+}
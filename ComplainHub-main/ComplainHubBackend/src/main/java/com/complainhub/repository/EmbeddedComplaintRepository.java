@@ -0,0 +1,351 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Complaints in the local {@link EmbeddedStore}; selected with complainhub.storage=embedded. History
+ * entries live in a second store ("complaint-history"), keyed "complaintId/kind/entryId".
+ */
+@Repository
+@ConditionalOnProperty(name = "complainhub.storage", havingValue = "embedded")
+public class EmbeddedComplaintRepository implements ComplaintRepository {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedComplaintRepository.class);
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final List<String> INDEXED_FIELDS = List.of("uid", "status", "category", "department", "priority", "clusterId");
+    private static final String PARENT_FIELD = "$parent";
+
+    @Value("${complainhub.storage.embedded.directory:./data}")
+    private String directory;
+
+    @Value("${complainhub.storage.embedded.compact-threshold-bytes:67108864}")
+    private long compactThresholdBytes;
+
+    @Value("${complainhub.storage.embedded.fsync:false}")
+    private boolean fsync;
+
+    @Value("${complainhub.history.keep-arrays:true}")
+    private boolean keepArrays;
+
+    private final SecureRandom random = new SecureRandom();
+    private EmbeddedStore store;
+    private EmbeddedStore history;
+
+    @PostConstruct
+    public void open() throws Exception {
+        store = new EmbeddedStore(Path.of(directory, "complaints"), INDEXED_FIELDS, "createdAt", compactThresholdBytes, fsync);
+        history = new EmbeddedStore(Path.of(directory, "complaint-history"), List.of(PARENT_FIELD), null, compactThresholdBytes, fsync);
+        log.info("Loaded {} complaints and {} history entries from {}", store.size(), history.size(), Path.of(directory).toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        store.close();
+        history.close();
+    }
+
+    @Override
+    public String create(Map<String, Object> data) throws Exception {
+        Map<String, Object> document = ComplaintHistory.newDocument(data, keepArrays);
+        while (true) {
+            String id = newId();
+            if (store.insert(id, document)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public List<String> createAll(List<Map<String, Object>> documents) throws Exception {
+        while (true) {
+            Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+            while (batch.size() < documents.size()) {
+                batch.put(newId(), ComplaintHistory.newDocument(documents.get(batch.size()), keepArrays));
+            }
+            if (store.insertAll(batch)) {
+                return new ArrayList<>(batch.keySet());
+            }
+        }
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findById(String id) {
+        Map<String, Object> document = store.get(id);
+        return document == null ? Optional.empty() : Optional.of(withId(id, document, null));
+    }
+
+    @Override
+    public List<Map<String, Object>> findByIds(Collection<String> ids) {
+        List<Map<String, Object>> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Map<String, Object> document = store.get(id);
+            if (document != null) {
+                result.add(withId(id, document, null));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAll(ComplaintQuery query) {
+        Set<String> candidates = candidates(query);
+        List<Map<String, Object>> result = new ArrayList<>(candidates.size());
+        for (String id : candidates) {
+            Map<String, Object> document = store.get(id);
+            if (document != null && query.matches(document)) {
+                result.add(withId(id, document, query.fields()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ComplaintPage findPage(ComplaintQuery query, int pageSize, PageCursor startAfter) {
+        EmbeddedStore.OrderKey after = startAfter == null ? null : new EmbeddedStore.OrderKey(startAfter.createdAt(), startAfter.id());
+        List<Map<String, Object>> items = new ArrayList<>(pageSize);
+        for (EmbeddedStore.OrderKey key : store.newestFirst(after)) {
+            Map<String, Object> document = store.get(key.id());
+            if (document != null && query.matches(document)) {
+                items.add(withId(key.id(), document, query.fields()));
+                if (items.size() == pageSize) {
+                    return new ComplaintPage(items, new PageCursor(key.createdAt(), key.id()));
+                }
+            }
+        }
+        return new ComplaintPage(items, null);
+    }
+
+    // updatedAt is not indexed; this is a scan, meant for periodic catch-up rather than requests
+    @Override
+    public List<Map<String, Object>> findUpdatedSince(Timestamp since, List<String> fields) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String id : store.ids()) {
+            Map<String, Object> document = store.get(id);
+            if (document != null && document.get("updatedAt") instanceof Timestamp updatedAt && updatedAt.compareTo(since) >= 0) {
+                result.add(withId(id, document, fields));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> findByUser(String uid) {
+        return findByIds(store.idsWhere("uid", uid));
+    }
+
+    @Override
+    public void update(String id, Map<String, Object> fields) throws Exception {
+        store.update(id, current -> {
+            current.putAll(fields);
+            return current;
+        });
+    }
+
+    // Same blind append as on Firestore; serialised so the existence check holds for the write. History
+    // entries are stored before the complaint; after a crash between the two the entry exists but is not yet counted.
+    @Override
+    public synchronized void apply(ComplaintUpdate update) throws Exception {
+        if (store.get(update.id()) == null) {
+            throw new NoSuchElementException("No document to update: " + update.id());
+        }
+        if (update.appends().isEmpty()) {
+            update(update.id(), update.fields());
+            return;
+        }
+        ComplaintHistory.Plan plan = ComplaintHistory.append(update.appends(), this::newId, keepArrays);
+        writeEntries(update.id(), plan);
+        store.update(update.id(), document -> {
+            document.putAll(update.fields());
+            for (Map.Entry<String, Long> increment : plan.increments().entrySet()) {
+                long count = document.get(increment.getKey()) instanceof Number n ? n.longValue() : 0;
+                document.put(increment.getKey(), count + increment.getValue());
+            }
+            for (Map.Entry<String, Map<String, Object>> element : plan.arrayAppends().entrySet()) {
+                List<Object> array = new ArrayList<>(document.get(element.getKey()) instanceof List<?> list ? list : List.of());
+                array.add(element.getValue());
+                document.put(element.getKey(), array);
+            }
+            return document;
+        });
+    }
+
+    private void writeEntries(String id, ComplaintHistory.Plan plan) throws Exception {
+        for (ComplaintHistory.Entry entry : plan.entries()) {
+            Map<String, Object> data = new HashMap<>(entry.data());
+            data.put(PARENT_FIELD, id + "/" + entry.kind());
+            history.put(id + "/" + entry.kind() + "/" + entry.id(), data);
+        }
+    }
+
+    @Override
+    public Optional<HistoryPage> findHistory(String id, String kind, int pageSize, PageCursor startAfter) {
+        Map<String, Object> complaint = store.get(id);
+        if (complaint == null) {
+            return Optional.empty();
+        }
+        if (ComplaintHistory.hasCompleteArray(complaint, kind)) {
+            return Optional.of(ComplaintHistory.page(ComplaintHistory.legacyEntries(complaint, kind), kind, pageSize, startAfter));
+        }
+        if (ComplaintHistory.hasArray(complaint, kind)) {
+            return Optional.of(ComplaintHistory.page(ComplaintHistory.merged(ComplaintHistory.legacyEntries(complaint, kind),
+                    storedEntries(id, kind), kind), kind, pageSize, startAfter));
+        }
+        return Optional.of(ComplaintHistory.page(storedEntries(id, kind), kind, pageSize, startAfter));
+    }
+
+    private List<Map<String, Object>> storedEntries(String id, String kind) {
+        String prefix = id + "/" + kind + "/";
+        Set<String> keys = history.idsWhere(PARENT_FIELD, id + "/" + kind);
+        List<Map<String, Object>> entries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Map<String, Object> entry = history.get(key);
+            if (entry != null) {
+                entries.add(historyEntry(key.substring(prefix.length()), entry));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void forEachHistoryEntry(String kind, BiConsumer<String, Map<String, Object>> consumer) {
+        for (String key : history.ids()) {
+            String[] parts = key.split("/", 3);
+            Map<String, Object> entry = history.get(key);
+            if (parts.length == 3 && parts[1].equals(kind) && entry != null) {
+                consumer.accept(parts[0], historyEntry(parts[2], entry));
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean migrateHistory(String id) throws Exception {
+        Map<String, Object> current = store.get(id);
+        if (current == null || (ComplaintHistory.isMigrated(current) && !ComplaintHistory.hasArrays(current))) {
+            return false;
+        }
+        Map<String, List<Map<String, Object>>> stored = new HashMap<>();
+        for (String kind : ComplaintHistory.KINDS) {
+            stored.put(kind, storedEntries(id, kind));
+        }
+        ComplaintHistory.Plan plan = ComplaintHistory.migrate(current, stored);
+        writeEntries(id, plan);
+        store.update(id, document -> {
+            document.putAll(plan.fields());
+            for (String field : plan.removed()) {
+                document.remove(field);
+            }
+            return document;
+        });
+        return true;
+    }
+
+    @Override
+    public synchronized void refreshHistoryPreview(String id) throws Exception {
+        Map<String, List<Map<String, Object>>> newest = new HashMap<>();
+        for (String kind : ComplaintHistory.KINDS) {
+            newest.put(kind, ComplaintHistory.page(storedEntries(id, kind), kind, ComplaintHistory.PREVIEW_SIZE, null).items());
+        }
+        update(id, ComplaintHistory.previewFields(newest));
+    }
+
+    @Override
+    public synchronized boolean restoreHistoryArrays(String id) throws Exception {
+        Map<String, Object> current = store.get(id);
+        if (current == null || !ComplaintHistory.isMigrated(current)) {
+            return false;
+        }
+        Map<String, List<Map<String, Object>>> stored = new HashMap<>();
+        for (String kind : ComplaintHistory.KINDS) {
+            stored.put(kind, storedEntries(id, kind));
+        }
+        ComplaintHistory.Plan plan = ComplaintHistory.restoreArrays(current, stored);
+        if (plan.fields().isEmpty()) {
+            return false;
+        }
+        update(id, plan.fields());
+        return true;
+    }
+
+    // Writes are local and serialised on the store, so there is nothing to parallelise
+    @Override
+    public List<Exception> applyAll(List<ComplaintUpdate> updates) {
+        List<Exception> results = new ArrayList<>(updates.size());
+        for (ComplaintUpdate update : updates) {
+            try {
+                apply(update);
+                results.add(null);
+            } catch (Exception e) {
+                results.add(e);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Subscription watch(ComplaintChangeListener listener) {
+        BiConsumer<String, Map<String, Object>> forward = (id, document) ->
+                listener.onChanges(false, List.of(new ComplaintChangeListener.Change(id, document == null ? null : withId(id, document, null))));
+        store.subscribe(current -> {
+            List<ComplaintChangeListener.Change> initial = new ArrayList<>(current.size());
+            for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+                initial.add(new ComplaintChangeListener.Change(entry.getKey(), withId(entry.getKey(), entry.getValue(), null)));
+            }
+            listener.onChanges(true, initial);
+        }, forward);
+        return () -> store.unsubscribe(forward);
+    }
+
+    private static Map<String, Object> historyEntry(String entryId, Map<String, Object> stored) {
+        Map<String, Object> entry = new HashMap<>(stored);
+        entry.remove(PARENT_FIELD);
+        entry.put("id", entryId);
+        return entry;
+    }
+
+    private Set<String> candidates(ComplaintQuery query) {
+        Set<String> candidates = store.ids();
+        for (String field : ComplaintQuery.FILTER_FIELDS) {
+            if (query.hasFilter(field)) {
+                Set<String> ids = store.idsWhere(field, query.filters().get(field));
+                if (ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private String newId() {
+        char[] id = new char[20];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length()));
+        }
+        return new String(id);
+    }
+
+    private static Map<String, Object> withId(String id, Map<String, Object> document, List<String> fields) {
+        Map<String, Object> copy = new HashMap<>(document.size() * 2);
+        if (fields == null) {
+            copy.putAll(document);
+        } else {
+            for (String field : fields) {
+                if (document.containsKey(field)) {
+                    copy.put(field, document.get(field));
+                }
+            }
+        }
+        copy.put("id", id);
+        return copy;
+    }
+}
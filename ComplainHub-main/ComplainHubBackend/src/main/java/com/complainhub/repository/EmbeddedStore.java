@@ -0,0 +1,486 @@
+package com.complainhub.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage engine behind the embedded repositories, one instance per collection.
+ * <p>
+ * Every write appends the complete new document (or a tombstone) to {@code log} as a length-prefixed
+ * JSON record. Once the log passes the compaction threshold, all documents are written to a
+ * memory-mapped {@code snapshot} file and the log is truncated. Startup maps the snapshot and
+ * replays the log on top of it; a torn record at the tail of the log is cut off. Files are mapped
+ * a window of at most 64 MB at a time, since a single mapping cannot exceed 2 GB.
+ * <p>
+ * Documents are held in memory as immutable maps with Firestore's value types (Long, Double,
+ * Timestamp), alongside hash indexes on the configured fields and an optional newest-first order
+ * on a timestamp field. Writers are serialised on the store; readers never lock.
+ */
+final class EmbeddedStore implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedStore.class);
+    private static final int SNAPSHOT_MAGIC = 0x43485331;
+    private static final String TIMESTAMP_KEY = "$ts";
+    private static final long MAP_WINDOW_BYTES = 64L << 20;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path logPath;
+    private final Path snapshotPath;
+    private final String orderField;
+    private final long compactThresholdBytes;
+    private final boolean fsync;
+
+    private final Map<String, Map<String, Object>> documents = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Set<String>>> indexes = new HashMap<>();
+    private final ConcurrentSkipListSet<OrderKey> order = new ConcurrentSkipListSet<>();
+    private final List<BiConsumer<String, Map<String, Object>>> listeners = new CopyOnWriteArrayList<>();
+    private FileChannel logChannel;
+
+    EmbeddedStore(Path directory, List<String> indexedFields, String orderField,
+                  long compactThresholdBytes, boolean fsync) throws IOException {
+        this.logPath = directory.resolve("log");
+        this.snapshotPath = directory.resolve("snapshot");
+        this.orderField = orderField;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.fsync = fsync;
+        for (String field : indexedFields) {
+            indexes.put(field, new ConcurrentHashMap<>());
+        }
+        Files.createDirectories(directory);
+        loadSnapshot();
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayLog();
+    }
+
+    Map<String, Object> get(String id) {
+        return documents.get(id);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    Set<String> ids() {
+        return documents.keySet();
+    }
+
+    Set<String> idsWhere(String field, Object value) {
+        Map<String, Set<String>> index = indexes.get(field);
+        if (index == null) {
+            throw new IllegalArgumentException("Field is not indexed: " + field);
+        }
+        return index.getOrDefault(String.valueOf(value), Collections.emptySet());
+    }
+
+    /** Ids of documents that have the order field, newest first, strictly after {@code after} if given. */
+    Iterable<OrderKey> newestFirst(OrderKey after) {
+        return after == null ? order : order.tailSet(after, false);
+    }
+
+    synchronized void put(String id, Map<String, Object> data) throws IOException {
+        Map<String, Object> document = normalizeDocument(data);
+        append(id, document);
+        apply(id, document);
+        publish(id, document);
+        compactIfNeeded();
+    }
+
+    synchronized boolean insert(String id, Map<String, Object> data) throws IOException {
+        if (documents.containsKey(id)) {
+            return false;
+        }
+        put(id, data);
+        return true;
+    }
+
+    /** Inserts every document with one log write (and one fsync); false, writing nothing, if any id is taken. */
+    synchronized boolean insertAll(Map<String, Map<String, Object>> data) throws IOException {
+        for (String id : data.keySet()) {
+            if (documents.containsKey(id)) {
+                return false;
+            }
+        }
+        Map<String, Map<String, Object>> normalized = new LinkedHashMap<>();
+        List<byte[]> records = new ArrayList<>(data.size());
+        int length = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
+            Map<String, Object> document = normalizeDocument(entry.getValue());
+            normalized.put(entry.getKey(), document);
+            byte[] record = encodeRecord(entry.getKey(), document);
+            records.add(record);
+            length += 4 + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] record : records) {
+            buffer.putInt(record.length).put(record);
+        }
+        write(buffer.flip());
+        for (Map.Entry<String, Map<String, Object>> entry : normalized.entrySet()) {
+            apply(entry.getKey(), entry.getValue());
+            publish(entry.getKey(), entry.getValue());
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /** Replaces an existing document with {@code change.apply(current)}. */
+    synchronized void update(String id, UnaryOperator<Map<String, Object>> change) throws IOException {
+        Map<String, Object> current = documents.get(id);
+        if (current == null) {
+            throw new NoSuchElementException("No document to update: " + id);
+        }
+        put(id, change.apply(new LinkedHashMap<>(current)));
+    }
+
+    synchronized boolean delete(String id) throws IOException {
+        if (!documents.containsKey(id)) {
+            return false;
+        }
+        append(id, null);
+        apply(id, null);
+        publish(id, null);
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Hands the current documents to {@code initial}, then registers {@code listener} for every later
+     * write (data is null for deletes); no write can slip between the two.
+     */
+    synchronized void subscribe(Consumer<Map<String, Map<String, Object>>> initial,
+                                BiConsumer<String, Map<String, Object>> listener) {
+        initial.accept(documents);
+        listeners.add(listener);
+    }
+
+    void unsubscribe(BiConsumer<String, Map<String, Object>> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (logChannel.isOpen()) {
+            snapshot();
+            logChannel.close();
+        }
+    }
+
+    private void publish(String id, Map<String, Object> document) {
+        for (BiConsumer<String, Map<String, Object>> listener : listeners) {
+            listener.accept(id, document);
+        }
+    }
+
+    private void apply(String id, Map<String, Object> document) {
+        Map<String, Object> old = document == null ? documents.remove(id) : documents.put(id, document);
+        if (old != null) {
+            for (Map.Entry<String, Map<String, Set<String>>> index : indexes.entrySet()) {
+                Object value = old.get(index.getKey());
+                if (value != null) {
+                    Set<String> ids = index.getValue().get(String.valueOf(value));
+                    if (ids != null) {
+                        ids.remove(id);
+                    }
+                }
+            }
+            if (orderField != null && old.get(orderField) instanceof Timestamp createdAt) {
+                order.remove(new OrderKey(createdAt, id));
+            }
+        }
+        if (document != null) {
+            for (Map.Entry<String, Map<String, Set<String>>> index : indexes.entrySet()) {
+                Object value = document.get(index.getKey());
+                if (value != null) {
+                    index.getValue().computeIfAbsent(String.valueOf(value), k -> ConcurrentHashMap.newKeySet()).add(id);
+                }
+            }
+            if (orderField != null && document.get(orderField) instanceof Timestamp createdAt) {
+                order.add(new OrderKey(createdAt, id));
+            }
+        }
+    }
+
+    private void append(String id, Map<String, Object> document) throws IOException {
+        byte[] record = encodeRecord(id, document);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        write(buffer);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        logChannel.position(logChannel.size());
+        while (buffer.hasRemaining()) {
+            logChannel.write(buffer);
+        }
+        if (fsync) {
+            logChannel.force(false);
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (logChannel.size() >= compactThresholdBytes) {
+            snapshot();
+        }
+    }
+
+    // Callers hold the store's lock, so the document count in the header cannot change underneath
+    private void snapshot() throws IOException {
+        Path tmp = snapshotPath.resolveSibling("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedWriter out = new MappedWriter(channel);
+            out.header(SNAPSHOT_MAGIC, documents.size());
+            for (Map.Entry<String, Map<String, Object>> entry : documents.entrySet()) {
+                out.record(encodeRecord(entry.getKey(), entry.getValue()));
+            }
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Replaying the log over a newer snapshot is harmless (records are whole documents), so a crash here loses nothing
+        logChannel.truncate(0);
+        if (fsync) {
+            logChannel.force(true);
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel, channel.size());
+            if (in.remaining() < 8 || in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot file: " + snapshotPath);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                applyRecord(in.read(in.readInt()));
+            }
+        }
+    }
+
+    private void replayLog() throws IOException {
+        long size = logChannel.size();
+        if (size == 0) {
+            return;
+        }
+        MappedReader in = new MappedReader(logChannel, size);
+        long valid = 0;
+        while (in.remaining() >= 4) {
+            int length = in.readInt();
+            if (length < 0 || length > in.remaining()) {
+                break;
+            }
+            byte[] record = in.read(length);
+            try {
+                applyRecord(record);
+            } catch (IOException e) {
+                break;
+            }
+            valid = in.position();
+        }
+        if (valid < size) {
+            log.warn("Dropping {} bytes of incomplete log at {}", size - valid, logPath);
+            logChannel.truncate(valid);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyRecord(byte[] record) throws IOException {
+        Map<String, Object> decoded = mapper.readValue(record, Map.class);
+        Object data = decoded.get("data");
+        apply((String) decoded.get("id"), data == null ? null : normalizeDocument((Map<String, Object>) fromJson(data)));
+    }
+
+    private byte[] encodeRecord(String id, Map<String, Object> document) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>(4);
+        record.put("id", id);
+        record.put("data", document == null ? null : toJson(document));
+        return mapper.writeValueAsBytes(record);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> normalizeDocument(Map<String, Object> data) {
+        return (Map<String, Object>) normalize(data);
+    }
+
+    // Mirrors what Firestore hands back: Long, Double, Timestamp and immutable containers
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>(map.size() * 2);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                copy.add(normalize(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof Date date) {
+            return Timestamp.of(date);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float f) {
+            return f.doubleValue();
+        }
+        return value;
+    }
+
+    private static Object toJson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>(map.size() * 2);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), toJson(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(toJson(element));
+            }
+            return copy;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return Collections.singletonMap(TIMESTAMP_KEY, List.of(timestamp.getSeconds(), timestamp.getNanos()));
+        }
+        return value;
+    }
+
+    private static Object fromJson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            if (map.size() == 1 && map.get(TIMESTAMP_KEY) instanceof List<?> parts) {
+                return Timestamp.ofTimeSecondsAndNanos(((Number) parts.get(0)).longValue(), ((Number) parts.get(1)).intValue());
+            }
+            Map<String, Object> copy = new LinkedHashMap<>(map.size() * 2);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), fromJson(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(fromJson(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /** Reads a file front to back, remapping whenever the next value does not fit in the current window. */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        long position() {
+            return window == null ? 0 : windowStart + window.position();
+        }
+
+        long remaining() {
+            return size - position();
+        }
+
+        int readInt() throws IOException {
+            return window(4).getInt();
+        }
+
+        byte[] read(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            window(length).get(bytes);
+            return bytes;
+        }
+
+        private MappedByteBuffer window(int length) throws IOException {
+            if (window == null || window.remaining() < length) {
+                long start = position();
+                window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Math.max(MAP_WINDOW_BYTES, length)));
+                windowStart = start;
+            }
+            return window;
+        }
+    }
+
+    /** Collects length-prefixed records and writes each window's worth through one exactly sized mapping. */
+    private static final class MappedWriter {
+        private final FileChannel channel;
+        private final List<byte[]> pending = new ArrayList<>();
+        private long pendingBytes;
+        private long position;
+
+        MappedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void header(int magic, int count) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(magic).putInt(count).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, position + header.position());
+            }
+            position += 8;
+        }
+
+        void record(byte[] record) throws IOException {
+            if (!pending.isEmpty() && pendingBytes + 4 + record.length > MAP_WINDOW_BYTES) {
+                flush();
+            }
+            pending.add(record);
+            pendingBytes += 4 + record.length;
+        }
+
+        void flush() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, pendingBytes);
+            for (byte[] record : pending) {
+                window.putInt(record.length).put(record);
+            }
+            window.force();
+            position += pendingBytes;
+            pending.clear();
+            pendingBytes = 0;
+        }
+    }
+
+    /** Newest first, ties broken by id descending, matching the Firestore page order. */
+    record OrderKey(Timestamp createdAt, String id) implements Comparable<OrderKey> {
+        @Override
+        public int compareTo(OrderKey other) {
+            int byTime = other.createdAt.compareTo(createdAt);
+            return byTime != 0 ? byTime : other.id.compareTo(id);
+        }
+    }
+}
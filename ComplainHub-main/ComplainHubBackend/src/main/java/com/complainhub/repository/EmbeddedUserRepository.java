@@ -0,0 +1,79 @@
+package com.complainhub.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/** User profiles in the local {@link EmbeddedStore}; selected with complainhub.storage=embedded. */
+@Repository
+@ConditionalOnProperty(name = "complainhub.storage", havingValue = "embedded")
+public class EmbeddedUserRepository implements UserRepository {
+    @Value("${complainhub.storage.embedded.directory:./data}")
+    private String directory;
+
+    @Value("${complainhub.storage.embedded.compact-threshold-bytes:67108864}")
+    private long compactThresholdBytes;
+
+    @Value("${complainhub.storage.embedded.fsync:false}")
+    private boolean fsync;
+
+    private EmbeddedStore store;
+
+    @PostConstruct
+    public void open() throws Exception {
+        store = new EmbeddedStore(Path.of(directory, "users"), List.of(), null, compactThresholdBytes, fsync);
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        store.close();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findById(String uid) {
+        Map<String, Object> document = store.get(uid);
+        return document == null ? Optional.empty() : Optional.of(new HashMap<>(document));
+    }
+
+    @Override
+    public List<Map<String, Object>> findAll() {
+        List<Map<String, Object>> users = new ArrayList<>(store.size());
+        for (String uid : store.ids()) {
+            Map<String, Object> document = store.get(uid);
+            if (document != null) {
+                users.add(new HashMap<>(document));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> findByIds(Collection<String> uids) {
+        Map<String, Map<String, Object>> users = new HashMap<>();
+        for (String uid : uids) {
+            Map<String, Object> document = store.get(uid);
+            if (document != null) {
+                users.put(uid, new HashMap<>(document));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public void save(String uid, Map<String, Object> data) throws Exception {
+        store.put(uid, data);
+    }
+
+    @Override
+    public void update(String uid, Map<String, Object> fields) throws Exception {
+        store.update(uid, current -> {
+            current.putAll(fields);
+            return current;
+        });
+    }
+}
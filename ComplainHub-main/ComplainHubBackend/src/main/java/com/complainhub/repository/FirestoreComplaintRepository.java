@@ -0,0 +1,347 @@
+package com.complainhub.repository;
+
+import com.complainhub.config.FirebaseConfig;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+@Repository
+@ConditionalOnProperty(name = "complainhub.storage", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreComplaintRepository implements ComplaintRepository {
+    private static final String COMPLAINTS_COLLECTION = "complaints";
+    // Firestore's limit on the writes in one batch
+    private static final int MAX_BATCH_WRITES = 500;
+
+    @Autowired
+    private FirebaseConfig firebase;
+
+    @Value("${complainhub.history.keep-arrays:true}")
+    private boolean keepArrays;
+
+    private CollectionReference collection() {
+        return firebase.firestore().collection(COMPLAINTS_COLLECTION);
+    }
+
+    @Override
+    public String create(Map<String, Object> data) throws Exception {
+        return collection().add(ComplaintHistory.newDocument(data, keepArrays)).get().getId();
+    }
+
+    @Override
+    public List<String> createAll(List<Map<String, Object>> documents) throws Exception {
+        CollectionReference collection = collection();
+        WriteBatch batch = firebase.firestore().batch();
+        List<String> ids = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            DocumentReference ref = collection.document();
+            batch.create(ref, ComplaintHistory.newDocument(data, keepArrays));
+            ids.add(ref.getId());
+        }
+        batch.commit().get();
+        return ids;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findById(String id) throws Exception {
+        DocumentSnapshot doc = collection().document(id).get().get();
+        return doc.exists() ? Optional.of(withId(doc)) : Optional.empty();
+    }
+
+    @Override
+    public List<Map<String, Object>> findByIds(Collection<String> ids) throws Exception {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        CollectionReference collection = collection();
+        DocumentReference[] refs = new DocumentReference[ids.size()];
+        int i = 0;
+        for (String id : ids) {
+            refs[i++] = collection.document(id);
+        }
+        List<Map<String, Object>> result = new ArrayList<>(refs.length);
+        for (DocumentSnapshot doc : firebase.firestore().getAll(refs).get()) {
+            if (doc.exists()) {
+                result.add(withId(doc));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAll(ComplaintQuery query) throws Exception {
+        return toList(buildQuery(query).get().get().getDocuments());
+    }
+
+    @Override
+    public ComplaintPage findPage(ComplaintQuery query, int pageSize, PageCursor startAfter) throws Exception {
+        Query page = buildQuery(query)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (startAfter != null) {
+            page = page.startAfter(startAfter.createdAt(), startAfter.id());
+        }
+        List<Map<String, Object>> items = toList(page.get().get().getDocuments());
+        return new ComplaintPage(items, items.size() == pageSize ? PageCursor.after(items.get(items.size() - 1)) : null);
+    }
+
+    @Override
+    public List<Map<String, Object>> findUpdatedSince(Timestamp since, List<String> fields) throws Exception {
+        Query query = collection().whereGreaterThanOrEqualTo("updatedAt", since);
+        if (fields != null) {
+            query = query.select(fields.toArray(new String[0]));
+        }
+        return toList(query.get().get().getDocuments());
+    }
+
+    @Override
+    public List<Map<String, Object>> findByUser(String uid) throws Exception {
+        return toList(collection().whereEqualTo("uid", uid).get().get().getDocuments());
+    }
+
+    @Override
+    public void update(String id, Map<String, Object> fields) throws Exception {
+        collection().document(id).update(fields).get();
+    }
+
+    // Blind: the complaint update and its history entries go in one batch, a single round trip with no read
+    @Override
+    public void apply(ComplaintUpdate update) throws Exception {
+        Firestore firestore = firebase.firestore();
+        WriteBatch batch = firestore.batch();
+        addWrites(firestore, batch, update);
+        batch.commit().get();
+    }
+
+    // Updates are packed into batches of up to MAX_BATCH_WRITES writes, all committed at once. A batch is
+    // atomic, so when one fails its updates are committed again one batch each, to find which of them failed.
+    @Override
+    public List<Exception> applyAll(List<ComplaintUpdate> updates) throws Exception {
+        Firestore firestore = firebase.firestore();
+        List<List<ComplaintUpdate>> chunks = new ArrayList<>();
+        List<ApiFuture<List<WriteResult>>> commits = new ArrayList<>();
+        List<ComplaintUpdate> chunk = new ArrayList<>();
+        WriteBatch batch = firestore.batch();
+        int writes = 0;
+        for (ComplaintUpdate update : updates) {
+            int size = 1 + update.appends().size();
+            if (writes + size > MAX_BATCH_WRITES) {
+                chunks.add(chunk);
+                commits.add(batch.commit());
+                chunk = new ArrayList<>();
+                batch = firestore.batch();
+                writes = 0;
+            }
+            addWrites(firestore, batch, update);
+            chunk.add(update);
+            writes += size;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+            commits.add(batch.commit());
+        }
+        Map<ComplaintUpdate, ApiFuture<List<WriteResult>>> retries = new IdentityHashMap<>();
+        for (int i = 0; i < commits.size(); i++) {
+            try {
+                commits.get(i).get();
+            } catch (ExecutionException e) {
+                for (ComplaintUpdate update : chunks.get(i)) {
+                    WriteBatch single = firestore.batch();
+                    addWrites(firestore, single, update);
+                    retries.put(update, single.commit());
+                }
+            }
+        }
+        List<Exception> results = new ArrayList<>(updates.size());
+        for (ComplaintUpdate update : updates) {
+            ApiFuture<List<WriteResult>> retry = retries.get(update);
+            try {
+                if (retry != null) {
+                    retry.get();
+                }
+                results.add(null);
+            } catch (ExecutionException e) {
+                results.add(e.getCause() instanceof Exception cause ? cause : e);
+            }
+        }
+        return results;
+    }
+
+    // update() rather than set(), so the batch fails when the complaint does not exist
+    private void addWrites(Firestore firestore, WriteBatch batch, ComplaintUpdate update) {
+        DocumentReference ref = firestore.collection(COMPLAINTS_COLLECTION).document(update.id());
+        ComplaintHistory.Plan plan = ComplaintHistory.append(update.appends(), () -> ref.collection(ComplaintHistory.COMMENTS).document().getId(), keepArrays);
+        Map<String, Object> changes = new HashMap<>(update.fields());
+        for (Map.Entry<String, Long> increment : plan.increments().entrySet()) {
+            changes.put(increment.getKey(), FieldValue.increment(increment.getValue()));
+        }
+        for (Map.Entry<String, Map<String, Object>> element : plan.arrayAppends().entrySet()) {
+            changes.put(element.getKey(), FieldValue.arrayUnion(element.getValue()));
+        }
+        batch.update(ref, changes);
+        for (ComplaintHistory.Entry entry : plan.entries()) {
+            batch.set(ref.collection(entry.kind()).document(entry.id()), entry.data());
+        }
+    }
+
+    @Override
+    public Optional<HistoryPage> findHistory(String id, String kind, int pageSize, PageCursor startAfter) throws Exception {
+        DocumentReference ref = collection().document(id);
+        Query query = ref.collection(kind)
+                .orderBy(ComplaintHistory.timeField(kind), Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .limit(pageSize + 1);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter.createdAt(), startAfter.id());
+        }
+        // Complaint and page are read in parallel; the page is unused when the complaint's array is its history
+        ApiFuture<DocumentSnapshot> parent = ref.get();
+        ApiFuture<QuerySnapshot> entries = query.get();
+        DocumentSnapshot doc = parent.get();
+        if (!doc.exists()) {
+            return Optional.empty();
+        }
+        if (ComplaintHistory.hasCompleteArray(doc.getData(), kind)) {
+            return Optional.of(ComplaintHistory.page(ComplaintHistory.legacyEntries(doc.getData(), kind), kind, pageSize, startAfter));
+        }
+        if (ComplaintHistory.hasArray(doc.getData(), kind)) {
+            List<Map<String, Object>> stored = toList(ref.collection(kind).get().get().getDocuments());
+            return Optional.of(ComplaintHistory.page(ComplaintHistory.merged(ComplaintHistory.legacyEntries(doc.getData(), kind), stored, kind),
+                    kind, pageSize, startAfter));
+        }
+        List<Map<String, Object>> items = toList(entries.get().getDocuments());
+        if (items.size() <= pageSize) {
+            return Optional.of(new HistoryPage(items, null));
+        }
+        items = new ArrayList<>(items.subList(0, pageSize));
+        return Optional.of(new HistoryPage(items, ComplaintHistory.cursorAfter(items.get(pageSize - 1), kind)));
+    }
+
+    @Override
+    public void forEachHistoryEntry(String kind, BiConsumer<String, Map<String, Object>> consumer) throws Exception {
+        for (QueryDocumentSnapshot doc : firebase.firestore().collectionGroup(kind).get().get().getDocuments()) {
+            DocumentReference complaint = doc.getReference().getParent().getParent();
+            if (complaint != null && COMPLAINTS_COLLECTION.equals(complaint.getParent().getId())) {
+                consumer.accept(complaint.getId(), withId(doc));
+            }
+        }
+    }
+
+    @Override
+    public boolean migrateHistory(String id) throws Exception {
+        DocumentReference ref = collection().document(id);
+        return firebase.firestore().runTransaction(transaction -> {
+            DocumentSnapshot doc = transaction.get(ref).get();
+            if (!doc.exists() || (ComplaintHistory.isMigrated(doc.getData()) && !ComplaintHistory.hasArrays(doc.getData()))) {
+                return false;
+            }
+            Map<String, List<Map<String, Object>>> stored = new HashMap<>();
+            for (String kind : ComplaintHistory.KINDS) {
+                stored.put(kind, toList(transaction.get(ref.collection(kind)).get().getDocuments()));
+            }
+            ComplaintHistory.Plan plan = ComplaintHistory.migrate(doc.getData(), stored);
+            for (ComplaintHistory.Entry entry : plan.entries()) {
+                transaction.set(ref.collection(entry.kind()).document(entry.id()), entry.data());
+            }
+            Map<String, Object> changes = new HashMap<>(plan.fields());
+            for (String field : plan.removed()) {
+                changes.put(field, FieldValue.delete());
+            }
+            transaction.update(ref, changes);
+            return true;
+        }).get();
+    }
+
+    // Not transactional: a refresh racing another one can leave an older preview, until the next append refreshes it
+    @Override
+    public void refreshHistoryPreview(String id) throws Exception {
+        DocumentReference ref = collection().document(id);
+        Map<String, ApiFuture<QuerySnapshot>> queries = new HashMap<>();
+        for (String kind : ComplaintHistory.KINDS) {
+            queries.put(kind, ref.collection(kind)
+                    .orderBy(ComplaintHistory.timeField(kind), Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                    .limit(ComplaintHistory.PREVIEW_SIZE)
+                    .get());
+        }
+        Map<String, List<Map<String, Object>>> newest = new HashMap<>();
+        for (Map.Entry<String, ApiFuture<QuerySnapshot>> query : queries.entrySet()) {
+            newest.put(query.getKey(), toList(query.getValue().get().getDocuments()));
+        }
+        ref.update(ComplaintHistory.previewFields(newest)).get();
+    }
+
+    @Override
+    public boolean restoreHistoryArrays(String id) throws Exception {
+        DocumentReference ref = collection().document(id);
+        return firebase.firestore().runTransaction(transaction -> {
+            DocumentSnapshot doc = transaction.get(ref).get();
+            if (!doc.exists() || !ComplaintHistory.isMigrated(doc.getData())) {
+                return false;
+            }
+            Map<String, List<Map<String, Object>>> stored = new HashMap<>();
+            for (String kind : ComplaintHistory.KINDS) {
+                stored.put(kind, toList(transaction.get(ref.collection(kind)).get().getDocuments()));
+            }
+            ComplaintHistory.Plan plan = ComplaintHistory.restoreArrays(doc.getData(), stored);
+            if (plan.fields().isEmpty()) {
+                return false;
+            }
+            transaction.update(ref, plan.fields());
+            return true;
+        }).get();
+    }
+
+    @Override
+    public Subscription watch(ComplaintChangeListener listener) {
+        AtomicBoolean first = new AtomicBoolean(true);
+        ListenerRegistration registration = collection().addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                listener.onError(error);
+                return;
+            }
+            List<DocumentChange> documentChanges = snapshot.getDocumentChanges();
+            List<ComplaintChangeListener.Change> changes = new ArrayList<>(documentChanges.size());
+            for (DocumentChange change : documentChanges) {
+                QueryDocumentSnapshot doc = change.getDocument();
+                changes.add(new ComplaintChangeListener.Change(doc.getId(),
+                        change.getType() == DocumentChange.Type.REMOVED ? null : doc.getData()));
+            }
+            listener.onChanges(first.getAndSet(false), changes);
+        });
+        return registration::remove;
+    }
+
+    private Query buildQuery(ComplaintQuery query) {
+        Query firestoreQuery = collection();
+        for (String field : ComplaintQuery.FILTER_FIELDS) {
+            if (query.hasFilter(field)) {
+                firestoreQuery = firestoreQuery.whereEqualTo(field, query.filters().get(field));
+            }
+        }
+        return query.fields() == null ? firestoreQuery : firestoreQuery.select(query.fields().toArray(new String[0]));
+    }
+
+    private static List<Map<String, Object>> toList(List<QueryDocumentSnapshot> documents) {
+        List<Map<String, Object>> result = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot doc : documents) {
+            result.add(withId(doc));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> withId(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        data.put("id", doc.getId());
+        return data;
+    }
+}
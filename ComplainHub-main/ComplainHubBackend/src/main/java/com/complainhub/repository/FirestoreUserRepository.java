@@ -0,0 +1,76 @@
+package com.complainhub.repository;
+
+import com.complainhub.config.FirebaseConfig;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@ConditionalOnProperty(name = "complainhub.storage", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreUserRepository implements UserRepository {
+    private static final String USERS_COLLECTION = "users";
+
+    @Autowired
+    private FirebaseConfig firebase;
+
+    private CollectionReference collection() {
+        return firebase.firestore().collection(USERS_COLLECTION);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findById(String uid) throws Exception {
+        DocumentSnapshot doc = collection().document(uid).get().get();
+        return doc.exists() ? Optional.of(doc.getData()) : Optional.empty();
+    }
+
+    @Override
+    public List<Map<String, Object>> findAll() throws Exception {
+        List<QueryDocumentSnapshot> documents = collection().get().get().getDocuments();
+        List<Map<String, Object>> users = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot doc : documents) {
+            users.add(doc.getData());
+        }
+        return users;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> findByIds(Collection<String> uids) throws Exception {
+        Map<String, Map<String, Object>> users = new HashMap<>();
+        if (uids.isEmpty()) {
+            return users;
+        }
+        CollectionReference collection = collection();
+        DocumentReference[] refs = new DocumentReference[uids.size()];
+        int i = 0;
+        for (String uid : uids) {
+            refs[i++] = collection.document(uid);
+        }
+        for (DocumentSnapshot doc : firebase.firestore().getAll(refs).get()) {
+            if (doc.exists()) {
+                users.put(doc.getId(), doc.getData());
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public void save(String uid, Map<String, Object> data) throws Exception {
+        collection().document(uid).set(data).get();
+    }
+
+    @Override
+    public void update(String uid, Map<String, Object> fields) throws Exception {
+        collection().document(uid).update(fields).get();
+    }
+}
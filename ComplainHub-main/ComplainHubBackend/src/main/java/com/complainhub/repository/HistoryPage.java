@@ -0,0 +1,7 @@
+package com.complainhub.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/** A page of a complaint's comments or status updates, newest first, each with its id under "id"; {@code next} is null on the last page. */
+public record HistoryPage(List<Map<String, Object>> items, PageCursor next) {}
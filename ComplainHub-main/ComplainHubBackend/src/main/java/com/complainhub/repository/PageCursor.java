@@ -0,0 +1,27 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/** Position after a complaint in createdAt/id order, exchanged with clients as an opaque token. */
+public record PageCursor(Timestamp createdAt, String id) {
+    public static PageCursor after(Map<String, Object> complaint) {
+        return new PageCursor((Timestamp) complaint.get("createdAt"), (String) complaint.get("id"));
+    }
+
+    public static PageCursor decode(String token) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+        return new PageCursor(Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1])), parts[2]);
+    }
+
+    public String encode() {
+        String raw = createdAt.getSeconds() + ":" + createdAt.getNanos() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
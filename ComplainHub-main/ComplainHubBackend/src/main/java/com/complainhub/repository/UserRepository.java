@@ -0,0 +1,22 @@
+package com.complainhub.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Storage for the users collection, keyed by Firebase Auth uid. */
+public interface UserRepository {
+    Optional<Map<String, Object>> findById(String uid) throws Exception;
+
+    List<Map<String, Object>> findAll() throws Exception;
+
+    /** Profiles that exist among {@code uids}, keyed by uid, read in one batched lookup. */
+    Map<String, Map<String, Object>> findByIds(Collection<String> uids) throws Exception;
+
+    /** Creates or replaces the profile for {@code uid}. */
+    void save(String uid, Map<String, Object> data) throws Exception;
+
+    /** Merges {@code fields} into an existing profile; fails if it does not exist. */
+    void update(String uid, Map<String, Object> fields) throws Exception;
+}
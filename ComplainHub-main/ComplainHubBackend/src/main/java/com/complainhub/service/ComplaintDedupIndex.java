@@ -0,0 +1,451 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.PageCursor;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds near-duplicates of a new complaint among recent ones. Each complaint's title and description
+ * are reduced to a MinHash signature over character shingles; locality-sensitive hashing (bands of
+ * rows) finds candidates sharing a band, and the candidate whose signature agrees in the most
+ * positions wins if that estimated Jaccard similarity reaches the threshold. Only complaints from the
+ * last window-hours are kept, at most max-entries of them, oldest dropped first. On startup the
+ * window is loaded from the repository in the background; until then nothing is flagged. A new
+ * complaint holds its place from the check until it is stored (see {@link #reserve}).
+ */
+@Component
+public class ComplaintDedupIndex {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintDedupIndex.class);
+    static final int SHINGLE_LENGTH = 3;
+    static final int BANDS = 20;
+    static final int ROWS = 3;
+    static final int HASHES = BANDS * ROWS;
+    private static final long[] SEEDS = new long[HASHES];
+    private static final int MAX_BUCKET_SIZE = 32;
+    private static final int LOAD_PAGE_SIZE = 500;
+    // Articles, prepositions and the greetings/sign-offs students wrap around the same problem
+    private static final Set<String> FILLER_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "was", "were", "be", "been", "am", "in", "on", "at", "of", "for", "to",
+            "from", "with", "and", "or", "my", "our", "we", "i", "me", "it", "its", "this", "that", "there", "very",
+            "please", "kindly", "help", "urgent", "dear", "sir", "madam", "hello", "hi", "thanks", "thank", "you",
+            "regards", "look", "into", "fix", "asap");
+    private static final List<String> LOAD_FIELDS = List.of("title", "description", "createdAt", "clusterId");
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eed);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = random.nextLong() | 1;
+        }
+    }
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Value("${complainhub.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.dedup.window-hours:72}")
+    private long windowHours;
+
+    @Value("${complainhub.dedup.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${complainhub.dedup.threshold:0.65}")
+    private double threshold;
+
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ArrayDeque<Entry> byAge = new ArrayDeque<>();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder compared = new LongAdder();
+    private volatile boolean ready;
+    private int checkSequence;
+
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-dedup-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            background.execute(this::load);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    /** The new complaint's signature and, when one is similar enough, the recent stored complaint it duplicates. */
+    public Candidate check(String text) {
+        int[] signature = signature(text);
+        if (!enabled || !ready) {
+            return new Candidate(signature, null, null, 0);
+        }
+        checks.increment();
+        synchronized (this) {
+            return candidate(signature, closest(signature, false));
+        }
+    }
+
+    /**
+     * Checks a new complaint and, in the same step, adds it as pending, so a near-identical complaint
+     * created meanwhile joins it rather than starting a second cluster. A complaint whose closest match
+     * is itself still pending waits for that one to be stored or dropped, then checks again. Follow
+     * with {@link #confirm} once the complaint is stored, or {@link #release} if storing it failed.
+     */
+    public Reservation reserve(String text, long createdAtMillis) throws InterruptedException {
+        int[] signature = signature(text);
+        if (!enabled) {
+            return new Reservation(null, new Candidate(signature, null, null, 0));
+        }
+        if (ready) {
+            checks.increment();
+        }
+        while (true) {
+            Entry pending;
+            synchronized (this) {
+                Match match = ready ? closest(signature, true) : new Match(null, 0);
+                if (match.entry() == null || match.entry().id != null || !qualifies(match)) {
+                    Candidate candidate = candidate(signature, match);
+                    Entry entry = new Entry(null, candidate.clusterId(), signature, createdAtMillis);
+                    insert(entry);
+                    byAge.addLast(entry);
+                    evict(System.currentTimeMillis());
+                    return new Reservation(entry, candidate);
+                }
+                pending = match.entry();
+            }
+            try {
+                pending.settled.get();
+            } catch (ExecutionException ignored) {
+                // Never completed exceptionally
+            }
+        }
+    }
+
+    /** Records the id a reserved complaint was stored under; later complaints can now name it. */
+    public void confirm(Reservation reservation, String id) {
+        Entry entry = reservation.entry;
+        if (entry == null) {
+            return;
+        }
+        synchronized (this) {
+            entry.id = id;
+            if (entry.clusterId == null) {
+                entry.clusterId = id;
+            }
+            if (!entry.evicted) {
+                entries.putIfAbsent(id, entry);
+            }
+        }
+        entry.settled.complete(null);
+    }
+
+    /** Drops a reserved complaint that was not stored. */
+    public void release(Reservation reservation) {
+        Entry entry = reservation.entry;
+        if (entry == null) {
+            return;
+        }
+        synchronized (this) {
+            if (!entry.evicted) {
+                byAge.removeLastOccurrence(entry);
+                unlink(entry);
+            }
+        }
+        entry.settled.complete(null);
+    }
+
+    // Entries sharing several bands are compared once: each remembers the last check that saw it
+    private Match closest(int[] signature, boolean includePending) {
+        int check = ++checkSequence;
+        int seen = 0;
+        Entry best = null;
+        int bestAgreement = 0;
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry entry : bucket) {
+                if (entry.lastCheck != check && (includePending || entry.id != null)) {
+                    entry.lastCheck = check;
+                    seen++;
+                    int agreement = agreement(signature, entry.signature);
+                    if (agreement > bestAgreement) {
+                        best = entry;
+                        bestAgreement = agreement;
+                    }
+                }
+            }
+        }
+        compared.add(seen);
+        return new Match(best, bestAgreement);
+    }
+
+    private boolean qualifies(Match match) {
+        return (double) match.agreement() / HASHES >= threshold;
+    }
+
+    private Candidate candidate(int[] signature, Match match) {
+        double similarity = (double) match.agreement() / HASHES;
+        if (match.entry() == null || !qualifies(match)) {
+            return new Candidate(signature, null, null, similarity);
+        }
+        duplicates.increment();
+        return new Candidate(signature, match.entry().id, match.entry().clusterId, similarity);
+    }
+
+    // Newest first from the repository, so each older complaint goes to the front of the age order
+    private void load() {
+        long started = System.currentTimeMillis();
+        try {
+            long cutoff = started - TimeUnit.HOURS.toMillis(windowHours);
+            ComplaintQuery query = new ComplaintQuery(Collections.emptyMap(), LOAD_FIELDS);
+            PageCursor cursor = null;
+            int loaded = 0;
+            load:
+            do {
+                ComplaintPage page = complaintRepository.findPage(query, LOAD_PAGE_SIZE, cursor);
+                for (Map<String, Object> document : page.items()) {
+                    long createdAt = document.get("createdAt") instanceof Timestamp timestamp ? timestamp.toDate().getTime() : 0;
+                    if (createdAt < cutoff || loaded >= maxEntries) {
+                        break load;
+                    }
+                    String id = (String) document.get("id");
+                    Object clusterId = document.get("clusterId");
+                    Entry entry = new Entry(id, clusterId != null ? clusterId.toString() : id,
+                            signature(text(document.get("title"), document.get("description"))), createdAt);
+                    entry.stamped = clusterId != null;
+                    synchronized (this) {
+                        if (!entries.containsKey(id)) {
+                            insert(entry);
+                            byAge.addFirst(entry);
+                        }
+                    }
+                    loaded++;
+                }
+                cursor = page.next();
+            } while (cursor != null);
+            ready = true;
+            log.info("Ready with {} recent complaints in {} ms", loaded, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Could not load recent complaints, retrying: {}", e.getMessage());
+            background.execute(() -> {
+                try {
+                    Thread.sleep(30_000);
+                    load();
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    // A full bucket already holds plenty of look-alikes; skipping it keeps a burst of duplicates from slowing every check
+    private void insert(Entry entry) {
+        if (entry.id != null) {
+            entries.put(entry.id, entry);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> bucket = buckets.computeIfAbsent(bandKey(entry.signature, band), k -> new ArrayList<>(2));
+            if (bucket.size() < MAX_BUCKET_SIZE) {
+                bucket.add(entry);
+            }
+        }
+    }
+
+    private void evict(long now) {
+        long cutoff = now - TimeUnit.HOURS.toMillis(windowHours);
+        while (!byAge.isEmpty() && (byAge.size() > maxEntries || byAge.peekFirst().createdAtMillis < cutoff)) {
+            unlink(byAge.pollFirst());
+        }
+    }
+
+    private void unlink(Entry entry) {
+        entry.evicted = true;
+        if (entry.id != null) {
+            entries.remove(entry.id);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(entry.signature, band);
+            List<Entry> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * True exactly once per cluster, when its first complaint gains a duplicate and so should be
+     * stamped with its own id as clusterId (complaints loaded with a clusterId already count as stamped).
+     */
+    public synchronized boolean claimClusterLeader(String clusterId) {
+        Entry leader = entries.get(clusterId);
+        if (leader == null || leader.stamped) {
+            return false;
+        }
+        leader.stamped = true;
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        long checkCount = checks.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        synchronized (this) {
+            stats.put("complaints", entries.size());
+            stats.put("buckets", buckets.size());
+        }
+        stats.put("checks", checkCount);
+        stats.put("duplicates", duplicates.sum());
+        stats.put("avgCandidates", checkCount == 0 ? 0.0 : (double) compared.sum() / checkCount);
+        stats.put("windowHours", windowHours);
+        stats.put("maxEntries", maxEntries);
+        stats.put("threshold", threshold);
+        return stats;
+    }
+
+    static String text(Object title, Object description) {
+        return (title == null ? "" : title.toString()) + " " + (description == null ? "" : description.toString());
+    }
+
+    /**
+     * MinHash of the character shingles of each word (padded with spaces, so short words still count),
+     * lower-cased, skipping {@link #FILLER_WORDS}. Shingling words rather than the whole text keeps
+     * typos and reordered words from moving the signature much.
+     */
+    static int[] signature(String text) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        char[] word = new char[text.length() + 2];
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int length = 0;
+            word[length++] = ' ';
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                word[length++] = Character.toLowerCase(text.charAt(i++));
+            }
+            word[length++] = ' ';
+            if (length == 2 || FILLER_WORDS.contains(new String(word, 1, length - 2))) {
+                continue;
+            }
+            for (int start = 0; start + SHINGLE_LENGTH <= Math.max(length, SHINGLE_LENGTH); start++) {
+                long shingle = 0;
+                for (int c = start; c < Math.min(start + SHINGLE_LENGTH, length); c++) {
+                    shingle = shingle * 31 + word[c];
+                }
+                long hash = mix(shingle);
+                for (int h = 0; h < HASHES; h++) {
+                    // Multiply-shift: one odd multiplier per hash function over the shingle's 64-bit hash
+                    int value = (int) ((hash * SEEDS[h]) >>> 33);
+                    if (value < signature[h]) {
+                        signature[h] = value;
+                    }
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static int agreement(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return mix(key);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Result of {@link #check}: {@code duplicateOf} is the most similar recent complaint and
+     * {@code clusterId} the cluster it belongs to (its first complaint), both null when none qualifies.
+     */
+    public record Candidate(int[] signature, String duplicateOf, String clusterId, double similarity) {
+        public boolean isDuplicate() {
+            return duplicateOf != null;
+        }
+    }
+
+    /** A new complaint's place in the index, from {@link #reserve} until {@link #confirm} or {@link #release}. */
+    public static final class Reservation {
+        private final Entry entry;
+        private final Candidate candidate;
+
+        private Reservation(Entry entry, Candidate candidate) {
+            this.entry = entry;
+            this.candidate = candidate;
+        }
+
+        public Candidate candidate() {
+            return candidate;
+        }
+    }
+
+    private record Match(Entry entry, int agreement) {}
+
+    // id (and, for a cluster's first complaint, clusterId) is null while the complaint is reserved but not yet stored
+    private static final class Entry {
+        String id;
+        String clusterId;
+        final int[] signature;
+        final long createdAtMillis;
+        final CompletableFuture<Void> settled = new CompletableFuture<>();
+        boolean stamped;
+        boolean evicted;
+        int lastCheck;
+
+        Entry(String id, String clusterId, int[] signature, long createdAtMillis) {
+            this.id = id;
+            this.clusterId = clusterId;
+            this.signature = signature;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.complainhub.service;
+
+import java.util.Map;
+
+/**
+ * Published by {@link ComplaintService} after a complaint write has been stored. {@code fields} holds
+ * the whole new complaint for CREATED and the changed fields for STATUS_UPDATED; {@code entry} is the
+ * element appended to "updates" (STATUS_UPDATED) or "comments" (COMMENTED).
+ */
+public record ComplaintEvent(Type type, String id, Map<String, Object> fields, Map<String, Object> entry) {
+    public enum Type {
+        CREATED, STATUS_UPDATED, COMMENTED
+    }
+}
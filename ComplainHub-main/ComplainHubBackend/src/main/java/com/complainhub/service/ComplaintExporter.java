@@ -0,0 +1,253 @@
+package com.complainhub.service;
+
+import com.complainhub.model.Complaint;
+import com.complainhub.model.ComplaintJsonSerializer;
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.PageCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes complaints for GET /api/complaint/export, reading one repository page at a time. A page is
+ * fully written and flushed before the next one is requested, so a slow client slows the reads down
+ * instead of letting them pile up, and memory stays at one page plus the output buffers whatever the
+ * export size. The training format produces exactly the complaints_priority_dataset.csv columns
+ * (complaint,priority) so live complaints can be fed to train_complaint_priority_model.py.
+ */
+@Component
+public class ComplaintExporter {
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson"),
+        TRAINING("text/csv", "csv");
+
+        final String contentType;
+        final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final List<String> CSV_COLUMNS = List.of("id", "createdAt", "updatedAt", "status", "category", "priority",
+            "department", "title", "description", "studentId", "studentName", "assignedTo", "resolvedAt", "rejectionReason",
+            "commentCount", "updateCount", "duplicateOf", "clusterId");
+    // The exported rows need none of the history previews
+    private static final List<String> EXPORT_FIELDS = List.of("title", "description", "category", "status", "priority",
+            "studentId", "studentName", "department", "createdAt", "updatedAt", "assignedTo", "resolvedAt", "rejectionReason",
+            "imageUrl", "commentCount", "updateCount", "duplicateOf", "clusterId");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Sorts after any generated document id
+    private static final String LAST_ID = "\uf8ff";
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${complainhub.export.page-size:500}")
+    private int pageSize;
+
+    @Value("${complainhub.export.timeout-ms:3600000}")
+    private long timeoutMillis;
+
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public static String contentType(Format format, boolean gzip) {
+        return gzip ? "application/gzip" : format.contentType + ";charset=UTF-8";
+    }
+
+    public static String fileName(Format format, boolean gzip) {
+        return (format == Format.TRAINING ? "complaints_priority_dataset" : "complaints") + "." + format.extension + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Start (inclusive) or end (exclusive) of the export window: an ISO instant, or a date taken as
+     * UTC, where an end date includes that whole day. Null or empty means unbounded.
+     */
+    public static Timestamp bound(String value, boolean end) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            Instant instant;
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                instant = (end ? date.plusDays(1) : date).atStartOfDay(ZoneOffset.UTC).toInstant();
+            } else {
+                instant = Instant.parse(value);
+            }
+            return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date '" + value + "'; use yyyy-MM-dd or an ISO-8601 instant");
+        }
+    }
+
+    /** Writes every complaint matching {@code filters} created in [from, to), newest first. */
+    public void write(OutputStream out, Format format, Map<String, String> filters, Timestamp from, Timestamp to, boolean gzip) throws IOException {
+        ComplaintQuery query = new ComplaintQuery(filters, EXPORT_FIELDS);
+        // Pages run newest first: start after the last possible id one nanosecond before "to", stop at the first complaint before "from"
+        PageCursor cursor = to == null ? null : new PageCursor(justBefore(to), LAST_ID);
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        OutputStream target = compressed != null ? compressed : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonGenerator generator = null;
+        if (format == Format.NDJSON) {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        } else {
+            writer.write(format == Format.TRAINING ? "complaint,priority\n" : String.join(",", CSV_COLUMNS) + "\n");
+        }
+        long rows = 0;
+        try {
+            boolean done = false;
+            do {
+                ComplaintPage page = complaintRepository.findPage(query, pageSize, cursor);
+                for (Map<String, Object> data : page.items()) {
+                    Complaint complaint = Complaint.fromDocument((String) data.get("id"), data, false);
+                    if (from != null && complaint.createdAt().compareTo(from) < 0) {
+                        done = true;
+                        break;
+                    }
+                    if (format == Format.NDJSON) {
+                        ComplaintJsonSerializer.write(complaint, generator);
+                        generator.writeRaw('\n');
+                        rows++;
+                    } else if (format == Format.CSV) {
+                        writeCsvRow(writer, complaint);
+                        rows++;
+                    } else if (writeTrainingRow(writer, complaint, data.get("priority"))) {
+                        rows++;
+                    }
+                }
+                if (generator != null) {
+                    generator.flush();
+                }
+                writer.flush();
+                cursor = page.next();
+            } while (cursor != null && !done);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error exporting complaints: " + e.getMessage(), e);
+        } finally {
+            Counter.builder("complainhub.export.rows").tag("format", format.name().toLowerCase(Locale.ROOT)).register(meterRegistry).increment(rows);
+        }
+        if (generator != null) {
+            generator.close();
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, Complaint complaint) throws IOException {
+        writeCell(writer, complaint.id(), false);
+        writeCell(writer, iso(complaint.createdAt()), true);
+        writeCell(writer, iso(complaint.updatedAt()), true);
+        writeCell(writer, complaint.status(), true);
+        writeCell(writer, complaint.category(), true);
+        writeCell(writer, complaint.priority(), true);
+        writeCell(writer, complaint.department(), true);
+        writeCell(writer, complaint.title(), true);
+        writeCell(writer, complaint.description(), true);
+        writeCell(writer, complaint.studentId(), true);
+        writeCell(writer, complaint.studentName(), true);
+        writeCell(writer, complaint.assignedTo(), true);
+        writeCell(writer, iso(complaint.resolvedAt()), true);
+        writeCell(writer, complaint.rejectionReason(), true);
+        writeCell(writer, Long.toString(complaint.commentCount()), true);
+        writeCell(writer, Long.toString(complaint.updateCount()), true);
+        writeCell(writer, complaint.duplicateOf(), true);
+        writeCell(writer, complaint.clusterId(), true);
+        writer.write('\n');
+    }
+
+    // One line per complaint as in the dataset: description (else title) on a single line, priority as High/Medium/Low.
+    // Complaints without a stored priority, or flagged as duplicates (so repeats do not outweigh the rest), are left out.
+    private static boolean writeTrainingRow(Writer writer, Complaint complaint, Object storedPriority) throws IOException {
+        String priority = storedPriority instanceof String value ? trainingLabel(value) : null;
+        String text = complaint.description().isBlank() ? complaint.title() : complaint.description();
+        text = text.replaceAll("\\s+", " ").trim();
+        if (priority == null || text.isEmpty() || complaint.duplicateOf() != null) {
+            return false;
+        }
+        writeCell(writer, text, false);
+        writer.write(',');
+        writer.write(priority);
+        writer.write('\n');
+        return true;
+    }
+
+    private static String trainingLabel(String priority) {
+        switch (priority.toLowerCase(Locale.ROOT)) {
+            case "high": return "High";
+            case "medium": return "Medium";
+            case "low": return "Low";
+            default: return null;
+        }
+    }
+
+    // RFC 4180: quoted only when the value holds a comma, quote or line break
+    private static void writeCell(Writer writer, String value, boolean separator) throws IOException {
+        if (separator) {
+            writer.write(',');
+        }
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static Timestamp justBefore(Timestamp timestamp) {
+        Instant instant = Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()).minusNanos(1);
+        return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+    }
+
+    private static String iso(Timestamp timestamp) {
+        return timestamp == null ? null : Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()).toString();
+    }
+}
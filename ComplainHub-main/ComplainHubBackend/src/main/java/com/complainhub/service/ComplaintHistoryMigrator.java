@@ -0,0 +1,218 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintHistory;
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.PageCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves the "comments"/"updates" arrays of complaints into their subcollections, a page at a time in
+ * the background. The page cursor is checkpointed to disk after every page, so a restart resumes where
+ * it stopped; each complaint is migrated in its own transaction and already-migrated ones are skipped,
+ * so re-running a page is harmless. Complaints without createdAt are not paged and are migrated on
+ * their next comment or status change instead.
+ *
+ * <p>While the arrays are kept (complainhub.history.keep-arrays) nothing may be moved out, so the same
+ * pass runs the other way: complaints an earlier migration emptied get their arrays rebuilt from the
+ * subcollections, for the clients that still read them. Off by default; enable it once, for either.
+ *
+ * <p>Appends do not touch a complaint's "recentComments" / "recentUpdates" (see {@link ComplaintHistory}),
+ * so without the arrays kept every comment or status change also queues a rebuild of that complaint's
+ * preview here, off the request path. With the arrays kept the preview is only read for complaints
+ * whose arrays are not complete, which the restore pass rebuilds together with their previews.
+ */
+@Component
+public class ComplaintHistoryMigrator {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintHistoryMigrator.class);
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${complainhub.history.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${complainhub.history.keep-arrays:true}")
+    private boolean keepArrays;
+
+    @Value("${complainhub.history.migration.batch-size:100}")
+    private int batchSize;
+
+    @Value("${complainhub.history.migration.pause-ms:500}")
+    private long pauseMillis;
+
+    @Value("${complainhub.history.migration.checkpoint-file:./data/history-migration.json}")
+    private String checkpointFile;
+
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder previewsRefreshed = new LongAdder();
+    // Complaints with a preview rebuild queued; a change arriving while one is queued rides along with it
+    private final Set<String> stalePreviews = ConcurrentHashMap.newKeySet();
+    private volatile String cursor;
+    private volatile boolean done;
+    private volatile String lastError;
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-history-migrator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        background.execute(() -> {
+            restore();
+            if (done) {
+                return;
+            }
+            log.info("{} complaint history {}", cursor == null ? "Starting" : "Resuming", keepArrays ? "array restore" : "migration");
+            background.execute(this::step);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    @EventListener
+    public void onComplaintEvent(ComplaintEvent event) {
+        if (keepArrays || event.type() == ComplaintEvent.Type.CREATED || !stalePreviews.add(event.id())) {
+            return;
+        }
+        try {
+            background.execute(() -> refreshPreview(event.id()));
+        } catch (RejectedExecutionException e) {
+            stalePreviews.remove(event.id());
+        }
+    }
+
+    // Unmarked before reading, so a change stored during the rebuild queues another one
+    private void refreshPreview(String id) {
+        stalePreviews.remove(id);
+        try {
+            complaintRepository.refreshHistoryPreview(id);
+            previewsRefreshed.increment();
+        } catch (Exception e) {
+            log.warn("Could not rebuild the history preview of {}: {}", id, e.getMessage());
+        }
+    }
+
+    // One page per run, so shutdown and pauses happen between pages
+    private void step() {
+        try {
+            PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+            // Migrating needs to see which complaints still hold arrays; restoring reads each migrated one itself
+            List<String> fields = keepArrays ? List.of(ComplaintHistory.SCHEMA_FIELD, "createdAt")
+                    : List.of(ComplaintHistory.SCHEMA_FIELD, "createdAt", ComplaintHistory.COMMENTS, ComplaintHistory.UPDATES);
+            ComplaintPage page = complaintRepository.findPage(new ComplaintQuery(Collections.emptyMap(), fields), batchSize, after);
+            for (Map<String, Object> complaint : page.items()) {
+                scanned.increment();
+                String id = (String) complaint.get("id");
+                if (keepArrays) {
+                    if (ComplaintHistory.isMigrated(complaint) && complaintRepository.restoreHistoryArrays(id)) {
+                        restored.increment();
+                    }
+                } else if ((!ComplaintHistory.isMigrated(complaint) || ComplaintHistory.hasArrays(complaint))
+                        && complaintRepository.migrateHistory(id)) {
+                    migrated.increment();
+                }
+            }
+            cursor = page.next() == null ? null : page.next().encode();
+            done = page.next() == null;
+            checkpoint();
+            lastError = null;
+            if (done) {
+                log.info("Done: scanned {} complaints, {}", scanned.sum(),
+                        keepArrays ? "restored " + restored.sum() : "migrated " + migrated.sum());
+                return;
+            }
+            background.schedule(this::step, pauseMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            failures.increment();
+            lastError = e.getMessage();
+            log.warn("Page failed, retrying from the last checkpoint: {}", e.getMessage());
+            background.schedule(this::step, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("mode", mode());
+        stats.put("done", done);
+        stats.put("scanned", scanned.sum());
+        stats.put("migrated", migrated.sum());
+        stats.put("restored", restored.sum());
+        stats.put("previewsRefreshed", previewsRefreshed.sum());
+        stats.put("failedPages", failures.sum());
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void checkpoint() throws Exception {
+        Map<String, Object> checkpoint = new LinkedHashMap<>();
+        checkpoint.put("version", 1);
+        checkpoint.put("mode", mode());
+        checkpoint.put("cursor", cursor);
+        checkpoint.put("done", done);
+        Path path = Path.of(checkpointFile).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), checkpoint);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String mode() {
+        return keepArrays ? "restore" : "migrate";
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restore() {
+        Path path = Path.of(checkpointFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            Map<String, Object> checkpoint = objectMapper.readValue(path.toFile(), Map.class);
+            // A checkpoint of the other direction (or from before restores existed, "migrate") does not apply
+            if (!mode().equals(checkpoint.getOrDefault("mode", "migrate"))) {
+                return;
+            }
+            cursor = (String) checkpoint.get("cursor");
+            done = Boolean.TRUE.equals(checkpoint.get("done"));
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable checkpoint {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,801 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintHistory;
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.HistoryPage;
+import com.complainhub.repository.PageCursor;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process BM25 index over complaint title (weighted x2), description and comment content, with
+ * category/status/department kept per document for filtering. Postings are parallel int arrays of
+ * document number and term frequency sorted by document. The index is kept current from
+ * {@link ComplaintEvent}s and checkpointed to disk; on startup the checkpoint is loaded and only
+ * complaints created after it are read back from the repository. Complaints updated since the last pass
+ * (by other instances, clients writing Firestore directly, or while this one was down) are re-read by
+ * updatedAt at startup and periodically: their facets are set again and new comments indexed. Title and
+ * description are indexed once; nothing in the backend edits them after creation.
+ */
+@Component
+public class ComplaintSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintSearchIndex.class);
+    private static final int MAGIC = 0x43485349;
+    private static final int VERSION = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int CATCH_UP_PAGE_SIZE = 500;
+    private static final String[] FACETS = {"category", "status", "department"};
+    // Re-read window before the updatedAt watermark, for clock skew between writers
+    private static final long RECONCILE_OVERLAP_SECONDS = 300;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Value("${complainhub.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.search.index-file:./data/search-index.bin}")
+    private String indexFile;
+
+    @Value("${complainhub.search.checkpoint-interval-seconds:60}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${complainhub.search.reconcile-interval-seconds:300}")
+    private long reconcileIntervalSeconds;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docNumbers = new HashMap<>();
+    private String[] docIds = new String[1024];
+    private int[] docLengths = new int[1024];
+    // Comments indexed per document, oldest first, so catching up indexes only the ones added since
+    private int[] docComments = new int[1024];
+    private final Facet[] facets = new Facet[FACETS.length];
+    private int docCount;
+    private long totalLength;
+    private Timestamp watermark;
+    private Timestamp updatedWatermark;
+
+    // Events that arrive while the index is being loaded or built; replayed once it is ready
+    private List<ComplaintEvent> pending = new ArrayList<>();
+    private volatile boolean ready;
+    private volatile boolean dirty;
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ComplaintSearchIndex() {
+        for (int f = 0; f < FACETS.length; f++) {
+            facets[f] = new Facet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        background.execute(this::load);
+        background.scheduleWithFixedDelay(this::checkpointIfDirty, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+        if (reconcileIntervalSeconds > 0) {
+            background.scheduleWithFixedDelay(this::reconcileIfReady, reconcileIntervalSeconds, reconcileIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+        checkpointIfDirty();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener
+    public void onComplaintEvent(ComplaintEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pending.add(event);
+                return;
+            }
+            apply(event);
+            dirty = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not index {} for {}", event.type(), event.id(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        try {
+            Path path = Path.of(indexFile);
+            boolean restored = false;
+            if (Files.exists(path)) {
+                try {
+                    restored = read(path);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Ignoring unreadable index {}: {}", path, e.getMessage());
+                    clear();
+                }
+            }
+            int added = restored ? catchUp() + reconcile() : rebuild();
+            lock.writeLock().lock();
+            try {
+                for (ComplaintEvent event : pending) {
+                    apply(event);
+                }
+                pending = null;
+                ready = true;
+                dirty = dirty || added > 0 || !restored;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Ready with {} complaints and {} terms ({}) in {} ms", docCount, terms.size(),
+                    restored ? "restored, " + added + " new or changed" : "rebuilt", System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Could not build the search index, retrying: {}", e.getMessage());
+            clear();
+            background.schedule(this::load, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private int rebuild() throws Exception {
+        List<Map<String, Object>> documents = complaintRepository.findAll(new ComplaintQuery(Collections.emptyMap(), null));
+        // Comments moved out of the complaints are read in one pass over all of them; a complaint whose
+        // comments array (kept for older clients) is complete is indexed from that alone, and stored
+        // comments already in a partial array are skipped, since addDocument indexes the array
+        Map<String, Set<Object>> inArrays = new HashMap<>();
+        for (Map<String, Object> document : documents) {
+            if (ComplaintHistory.hasCompleteArray(document, ComplaintHistory.COMMENTS)) {
+                inArrays.put((String) document.get("id"), null);
+            } else if (ComplaintHistory.hasArray(document, ComplaintHistory.COMMENTS)) {
+                Set<Object> ids = new HashSet<>();
+                for (Object element : (List<?>) document.get(ComplaintHistory.COMMENTS)) {
+                    if (element instanceof Map<?, ?> map) {
+                        ids.add(map.get("id"));
+                    }
+                }
+                inArrays.put((String) document.get("id"), ids);
+            }
+        }
+        List<Map.Entry<String, Object>> comments = new ArrayList<>();
+        complaintRepository.forEachHistoryEntry(ComplaintHistory.COMMENTS, (id, comment) -> {
+            if (!inArrays.containsKey(id) || (inArrays.get(id) != null && !inArrays.get(id).contains(comment.get("id")))) {
+                comments.add(new AbstractMap.SimpleImmutableEntry<>(id, comment.get("content")));
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            for (Map<String, Object> document : documents) {
+                addDocument((String) document.get("id"), document);
+                advanceUpdatedWatermark(document);
+            }
+            for (Map.Entry<String, Object> comment : comments) {
+                Integer doc = docNumbers.get(comment.getKey());
+                if (doc != null) {
+                    indexText(doc, comment.getValue(), 1);
+                    docComments[doc]++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return documents.size();
+    }
+
+    // Newest first until we reach what the checkpoint already holds
+    private int catchUp() throws Exception {
+        int added = 0;
+        PageCursor cursor = null;
+        ComplaintQuery all = new ComplaintQuery(Collections.emptyMap(), null);
+        List<Map<String, Object>> commented = new ArrayList<>();
+        boolean caughtUp = false;
+        do {
+            ComplaintPage page = complaintRepository.findPage(all, CATCH_UP_PAGE_SIZE, cursor);
+            lock.writeLock().lock();
+            try {
+                for (Map<String, Object> document : page.items()) {
+                    Timestamp createdAt = toTimestamp(document.get("createdAt"));
+                    if (watermark != null && createdAt != null && createdAt.compareTo(watermark) < 0) {
+                        caughtUp = true;
+                        break;
+                    }
+                    if (addDocument((String) document.get("id"), document)) {
+                        added++;
+                        if (commentCount(document) > docComments[docNumbers.get((String) document.get("id"))]) {
+                            commented.add(document);
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            cursor = page.next();
+        } while (cursor != null && !caughtUp);
+        for (Map<String, Object> document : commented) {
+            indexNewComments(document);
+        }
+        return added;
+    }
+
+    /**
+     * Re-reads the complaints updated since the last pass, minus an overlap for clock skew: unknown ones
+     * are added, facets (status above all) set again and comments added since indexing are indexed.
+     * Returns how many complaints changed; repeating a pass changes nothing.
+     */
+    private int reconcile() throws Exception {
+        Timestamp since;
+        lock.readLock().lock();
+        try {
+            since = updatedWatermark == null ? Timestamp.ofTimeSecondsAndNanos(0, 0)
+                    : Timestamp.ofTimeSecondsAndNanos(Math.max(0, updatedWatermark.getSeconds() - RECONCILE_OVERLAP_SECONDS), 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        int changed = 0;
+        for (Map<String, Object> document : complaintRepository.findUpdatedSince(since, null)) {
+            String id = (String) document.get("id");
+            boolean updated;
+            boolean commentsMissing;
+            lock.writeLock().lock();
+            try {
+                updated = addDocument(id, document) || setFacets(id, document);
+                Integer doc = docNumbers.get(id);
+                commentsMissing = doc != null && commentCount(document) > docComments[doc];
+                advanceUpdatedWatermark(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (commentsMissing) {
+                updated |= indexNewComments(document);
+            }
+            if (updated) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private void reconcileIfReady() {
+        if (!ready) {
+            return;
+        }
+        try {
+            if (reconcile() > 0) {
+                dirty = true;
+            }
+        } catch (Exception e) {
+            log.warn("Reconcile failed, retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    // Indexes the complaint's comments past the ones already indexed. A comment event racing this for
+    // the same complaint can index one comment twice; it only weighs that comment's terms more.
+    private boolean indexNewComments(Map<String, Object> document) throws Exception {
+        String id = (String) document.get("id");
+        List<?> comments = ComplaintHistory.hasCompleteArray(document, ComplaintHistory.COMMENTS)
+                ? (List<?>) document.get(ComplaintHistory.COMMENTS) : storedComments(id);
+        lock.writeLock().lock();
+        try {
+            Integer doc = docNumbers.get(id);
+            if (doc == null || comments.size() <= docComments[doc]) {
+                return false;
+            }
+            for (Object comment : comments.subList(docComments[doc], comments.size())) {
+                if (comment instanceof Map<?, ?> map) {
+                    indexText(doc, map.get("content"), 1);
+                }
+            }
+            docComments[doc] = comments.size();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every stored comment of the complaint, oldest first
+    private List<Map<String, Object>> storedComments(String id) throws Exception {
+        List<Map<String, Object>> comments = new ArrayList<>();
+        PageCursor cursor = null;
+        do {
+            Optional<HistoryPage> page = complaintRepository.findHistory(id, ComplaintHistory.COMMENTS, CATCH_UP_PAGE_SIZE, cursor);
+            if (page.isEmpty()) {
+                break;
+            }
+            comments.addAll(page.get().items());
+            cursor = page.get().next();
+        } while (cursor != null);
+        Collections.reverse(comments);
+        return comments;
+    }
+
+    // At least the complete array's length: clients appending to it directly do not move the count
+    private static long commentCount(Map<String, Object> document) {
+        if (ComplaintHistory.hasCompleteArray(document, ComplaintHistory.COMMENTS)) {
+            return ((List<?>) document.get(ComplaintHistory.COMMENTS)).size();
+        }
+        return ComplaintHistory.count(document, ComplaintHistory.COMMENTS);
+    }
+
+    private boolean setFacets(String id, Map<String, Object> data) {
+        Integer doc = docNumbers.get(id);
+        if (doc == null) {
+            return false;
+        }
+        boolean changed = false;
+        for (int f = 0; f < FACETS.length; f++) {
+            Object value = data.get(FACETS[f]);
+            changed |= facets[f].set(doc, value == null ? null : value.toString());
+        }
+        return changed;
+    }
+
+    private void advanceUpdatedWatermark(Map<String, Object> document) {
+        Timestamp updatedAt = toTimestamp(document.get("updatedAt"));
+        if (updatedAt != null && (updatedWatermark == null || updatedAt.compareTo(updatedWatermark) > 0)) {
+            updatedWatermark = updatedAt;
+        }
+    }
+
+    private void apply(ComplaintEvent event) {
+        switch (event.type()) {
+            case CREATED -> addDocument(event.id(), event.fields());
+            case STATUS_UPDATED -> {
+                Integer doc = docNumbers.get(event.id());
+                if (doc != null && event.fields().get("status") != null) {
+                    facets[1].set(doc, event.fields().get("status").toString());
+                }
+            }
+            case COMMENTED -> {
+                Integer doc = docNumbers.get(event.id());
+                if (doc != null) {
+                    indexText(doc, event.entry().get("content"), 1);
+                    docComments[doc]++;
+                }
+            }
+        }
+    }
+
+    private boolean addDocument(String id, Map<String, Object> data) {
+        if (id == null || docNumbers.containsKey(id)) {
+            return false;
+        }
+        int doc = docCount++;
+        if (doc == docIds.length) {
+            docIds = Arrays.copyOf(docIds, doc * 2);
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+            docComments = Arrays.copyOf(docComments, doc * 2);
+        }
+        docIds[doc] = id;
+        docNumbers.put(id, doc);
+        for (int f = 0; f < FACETS.length; f++) {
+            Object value = data.get(FACETS[f]);
+            facets[f].set(doc, value == null ? null : value.toString());
+        }
+        indexText(doc, data.get("title"), TITLE_WEIGHT);
+        indexText(doc, data.get("description"), 1);
+        if (data.get("comments") instanceof List<?> comments) {
+            for (Object comment : comments) {
+                if (comment instanceof Map<?, ?> map) {
+                    indexText(doc, map.get("content"), 1);
+                }
+            }
+            docComments[doc] = comments.size();
+        }
+        Timestamp createdAt = toTimestamp(data.get("createdAt"));
+        if (createdAt != null && (watermark == null || createdAt.compareTo(watermark) > 0)) {
+            watermark = createdAt;
+        }
+        return true;
+    }
+
+    private void indexText(int doc, Object text, int weight) {
+        if (text == null) {
+            return;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        int tokens = 0;
+        for (String token : tokenize(text.toString())) {
+            counts.merge(token, weight, Integer::sum);
+            tokens += weight;
+        }
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            terms.computeIfAbsent(count.getKey(), t -> new Postings()).add(doc, count.getValue());
+        }
+        docLengths[doc] += tokens;
+        totalLength += tokens;
+    }
+
+    /**
+     * Ranks complaints against {@code query}; with {@code prefix} the last query term also matches
+     * every indexed term it is a prefix of. Empty while the index is still loading.
+     */
+    public Optional<Hits> search(String query, Map<String, String> filters, boolean prefix, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query == null ? "" : query)));
+        lock.readLock().lock();
+        try {
+            int[] required = new int[FACETS.length];
+            for (int f = 0; f < FACETS.length; f++) {
+                String value = filters.get(FACETS[f]);
+                if (value != null && !value.isEmpty()) {
+                    Integer code = facets[f].codes.get(value);
+                    if (code == null) {
+                        return Optional.of(new Hits(0, List.of()));
+                    }
+                    required[f] = code;
+                }
+            }
+            if (tokens.isEmpty() || docCount == 0) {
+                return Optional.of(new Hits(0, List.of()));
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / docCount);
+            float[] scores = new float[docCount];
+            int matched = 0;
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                Collection<Postings> lists;
+                if (prefix && t == tokens.size() - 1) {
+                    lists = new ArrayList<>();
+                    for (Postings postings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                        lists.add(postings);
+                        if (lists.size() == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                } else {
+                    Postings postings = terms.get(token);
+                    lists = postings == null ? List.of() : List.of(postings);
+                }
+                for (Postings postings : lists) {
+                    double idf = Math.log(1 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        if (!passes(doc, required)) {
+                            continue;
+                        }
+                        double tf = postings.freqs[i];
+                        double norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+                        if (scores[doc] == 0) {
+                            matched++;
+                        }
+                        scores[doc] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    }
+                }
+            }
+            return Optional.of(new Hits(matched, top(scores, limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean passes(int doc, int[] required) {
+        for (int f = 0; f < required.length; f++) {
+            if (required[f] != 0 && facets[f].docCodes[doc] != required[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Hit> top(float[] scores, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] > 0 && (best.size() < limit || scores[doc] > scores[best.peek()])) {
+                best.add(doc);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int doc = best.poll();
+            hits[i] = new Hit(docIds[doc], scores[doc]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            stats.put("complaints", docCount);
+            stats.put("terms", terms.size());
+            long postings = 0;
+            for (Postings list : terms.values()) {
+                postings += list.size;
+            }
+            stats.put("postings", postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    private void checkpointIfDirty() {
+        if (!ready || !dirty) {
+            return;
+        }
+        try {
+            lock.readLock().lock();
+            try {
+                dirty = false;
+                write(Path.of(indexFile));
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    private void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "search-index", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark == null ? Long.MIN_VALUE : watermark.getSeconds());
+            out.writeInt(watermark == null ? 0 : watermark.getNanos());
+            out.writeLong(updatedWatermark == null ? Long.MIN_VALUE : updatedWatermark.getSeconds());
+            out.writeInt(updatedWatermark == null ? 0 : updatedWatermark.getNanos());
+            out.writeInt(docCount);
+            for (int doc = 0; doc < docCount; doc++) {
+                out.writeUTF(docIds[doc]);
+                writeVarInt(out, docLengths[doc]);
+                writeVarInt(out, docComments[doc]);
+            }
+            for (Facet facet : facets) {
+                out.writeInt(facet.values.size());
+                for (String value : facet.values) {
+                    out.writeUTF(value);
+                }
+                for (int doc = 0; doc < docCount; doc++) {
+                    writeVarInt(out, facet.docCodes[doc]);
+                }
+            }
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                Postings postings = term.getValue();
+                out.writeUTF(term.getKey());
+                writeVarInt(out, postings.size);
+                int previous = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    writeVarInt(out, postings.docs[i] - previous);
+                    writeVarInt(out, postings.freqs[i]);
+                    previous = postings.docs[i];
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("{} has an unknown format; rebuilding", path);
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                long seconds = in.readLong();
+                int nanos = in.readInt();
+                watermark = seconds == Long.MIN_VALUE ? null : Timestamp.ofTimeSecondsAndNanos(seconds, nanos);
+                seconds = in.readLong();
+                nanos = in.readInt();
+                updatedWatermark = seconds == Long.MIN_VALUE ? null : Timestamp.ofTimeSecondsAndNanos(seconds, nanos);
+                docCount = in.readInt();
+                docIds = new String[Math.max(1024, docCount * 2)];
+                docLengths = new int[docIds.length];
+                docComments = new int[docIds.length];
+                for (int doc = 0; doc < docCount; doc++) {
+                    docIds[doc] = in.readUTF();
+                    docLengths[doc] = readVarInt(in);
+                    docComments[doc] = readVarInt(in);
+                    docNumbers.put(docIds[doc], doc);
+                    totalLength += docLengths[doc];
+                }
+                for (Facet facet : facets) {
+                    int values = in.readInt();
+                    for (int v = 0; v < values; v++) {
+                        facet.code(in.readUTF());
+                    }
+                    facet.docCodes = new int[docIds.length];
+                    for (int doc = 0; doc < docCount; doc++) {
+                        facet.docCodes[doc] = readVarInt(in);
+                    }
+                }
+                int termCount = in.readInt();
+                for (int t = 0; t < termCount; t++) {
+                    String term = in.readUTF();
+                    Postings postings = new Postings(readVarInt(in));
+                    int doc = 0;
+                    for (int i = 0; i < postings.docs.length; i++) {
+                        doc += readVarInt(in);
+                        postings.docs[i] = doc;
+                        postings.freqs[i] = readVarInt(in);
+                    }
+                    postings.size = postings.docs.length;
+                    terms.put(term, postings);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return true;
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docNumbers.clear();
+            docIds = new String[1024];
+            docLengths = new int[1024];
+            docComments = new int[1024];
+            for (int f = 0; f < FACETS.length; f++) {
+                facets[f] = new Facet();
+            }
+            docCount = 0;
+            totalLength = 0;
+            watermark = null;
+            updatedWatermark = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Lower-cased runs of letters and digits, two characters or longer. */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i - start >= 2) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return tokens;
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp;
+        }
+        if (value instanceof Date date) {
+            return Timestamp.of(date);
+        }
+        return null;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    public record Hit(String id, double score) {}
+
+    public record Hits(int total, List<Hit> hits) {}
+
+    /** Document numbers and term frequencies, sorted by document number. */
+    private static final class Postings {
+        int[] docs;
+        int[] freqs;
+        int size;
+
+        Postings() {
+            this(2);
+        }
+
+        Postings(int capacity) {
+            docs = new int[capacity];
+            freqs = new int[capacity];
+        }
+
+        void add(int doc, int freq) {
+            // New documents always have the highest number, so the common case is a plain append
+            int position = size == 0 || docs[size - 1] < doc ? -(size + 1) : Arrays.binarySearch(docs, 0, size, doc);
+            if (position >= 0) {
+                freqs[position] += freq;
+                return;
+            }
+            int insert = -position - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, Math.max(4, size * 2));
+                freqs = Arrays.copyOf(freqs, docs.length);
+            }
+            System.arraycopy(docs, insert, docs, insert + 1, size - insert);
+            System.arraycopy(freqs, insert, freqs, insert + 1, size - insert);
+            docs[insert] = doc;
+            freqs[insert] = freq;
+            size++;
+        }
+    }
+
+    /** Dictionary-encoded field value per document; code 0 means the field is missing. */
+    private final class Facet {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        int[] docCodes = new int[1024];
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                values.add(value);
+                code = values.size();
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        boolean set(int doc, String value) {
+            if (doc >= docCodes.length) {
+                docCodes = Arrays.copyOf(docCodes, docIds.length);
+            }
+            int code = value == null ? 0 : code(value);
+            boolean changed = docCodes[doc] != code;
+            docCodes[doc] = code;
+            return changed;
+        }
+    }
+}
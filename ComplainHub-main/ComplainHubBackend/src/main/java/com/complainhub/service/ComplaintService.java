@@ -1,175 +1,788 @@
 package com.complainhub.service;
 
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
+import com.complainhub.model.CommentEntry;
+import com.complainhub.model.Complaint;
+import com.complainhub.model.ComplaintJsonSerializer;
+import com.complainhub.model.ScoredComplaint;
+import com.complainhub.model.StatusUpdate;
+import com.complainhub.repository.ComplaintHistory;
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.ComplaintUpdate;
+import com.complainhub.repository.HistoryPage;
+import com.complainhub.repository.PageCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ComplaintService {
-    private final String COMPLAINTS_COLLECTION = "complaints";
+    private static final Logger log = LoggerFactory.getLogger(ComplaintService.class);
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final List<String> SUMMARY_FIELDS = List.of(
+            "title", "description", "category", "status", "priority", "studentId", "studentName", "department",
+            "createdAt", "updatedAt", "assignedTo", "resolvedAt", "rejectionReason", "imageUrl", "commentCount", "updateCount",
+            "duplicateOf", "clusterId");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int MAX_CLASSIFY_BATCH = 1000;
+    private static final long CLASSIFY_TIMEOUT_SECONDS = 10;
+    private static final int MAX_BULK_UPDATES = 500;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_QUEUE_PAGE_SIZE = 100;
+    private static final int MAX_QUEUE_CLAIM = 20;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ComplaintView complaintView;
+
+    @Autowired
+    private PriorityClassifier priorityClassifier;
+
+    @Autowired
+    private PriorityBatcher priorityBatcher;
+
+    @Autowired
+    private ComplaintSearchIndex searchIndex;
+
+    @Autowired
+    private ComplaintStats complaintStats;
+
+    @Autowired
+    private ComplaintStreamHub streamHub;
 
-    public ResponseEntity<?> createComplaint(Map<String, Object> payload) {
+    @Autowired
+    private ComplaintHistoryMigrator historyMigrator;
+
+    @Autowired
+    private ComplaintDedupIndex dedupIndex;
+
+    @Autowired
+    private RequestRateLimiter rateLimiter;
+
+    @Autowired
+    private ComplaintWriteCoalescer writeCoalescer;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ComplaintExporter complaintExporter;
+
+    @Autowired
+    private ComplaintWorkQueue workQueue;
+
+    @Value("${complainhub.logging.create-sample-rate:0.01}")
+    private double createLogSampleRate;
+
+    @Value("${complainhub.create-batch.timeout-ms:10000}")
+    private long createTimeoutMillis;
+
+    // authorization is the request's Authorization header, if any; see rateLimitKey
+    public ResponseEntity<?> createComplaint(Map<String, Object> payload, String authorization, String clientAddress) {
+        long retryAfter = rateLimiter.acquire(RequestRateLimiter.CREATE_COMPLAINT, rateLimitKey(authorization, clientAddress));
+        if (retryAfter > 0) {
+            return ResponseEntity.status(429).header("Retry-After", Long.toString(retryAfter))
+                    .body("Too many complaints, try again in " + retryAfter + " s");
+        }
         try {
-            // Ensure studentId is always set
-            if (!payload.containsKey("studentId") && payload.containsKey("uid")) {
-                payload.put("studentId", payload.get("uid"));
+            // Sampled, and only the shape of the payload: descriptions can carry personal details
+            if (createLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < createLogSampleRate) {
+                log.info("event=complaint.create uid={} category={} department={} fields={} titleChars={} descriptionChars={}",
+                        payload.get("uid"), payload.get("category"), payload.get("department"), payload.size(),
+                        length(payload.get("title")), length(payload.get("description")));
             }
-            
-            // Log the incoming payload for debugging
-            System.out.println("Creating complaint with payload: " + payload);
-            
-            // Ensure required fields are present
-            if (!payload.containsKey("title") || !payload.containsKey("description")) {
+
+            if (!normalizeNewComplaint(payload)) {
                 return ResponseEntity.badRequest().body("Missing required fields: title or description");
             }
-            
-            // Set default values if missing
-            if (!payload.containsKey("status")) {
-                payload.put("status", "pending");
-            }
-            if (!payload.containsKey("category")) {
-                payload.put("category", "general");
-            }
-            
-            Firestore db = FirestoreClient.getFirestore();
-            
-            // Always set both createdAt and timestamp fields
-            payload.put("createdAt", new Date());
-            payload.put("timestamp", new Date());
-            ApiFuture<DocumentReference> future = db.collection(COMPLAINTS_COLLECTION).add(payload);
+            // Near-duplicates of a recent complaint join its cluster, so admins can act on them together. The
+            // reservation makes a near-identical create arriving during this write join this complaint's cluster.
+            payload.remove("duplicateOf");
+            payload.remove("clusterId");
+            ComplaintDedupIndex.Reservation reservation = dedupIndex.reserve(
+                    ComplaintDedupIndex.text(payload.get("title"), payload.get("description")), ((Date) payload.get("createdAt")).getTime());
+            ComplaintDedupIndex.Candidate duplicate = reservation.candidate();
+            if (duplicate.isDuplicate()) {
+                payload.put("duplicateOf", duplicate.duplicateOf());
+                payload.put("clusterId", duplicate.clusterId());
+            }
+            // Shares one batched commit with the other creates arriving within a few milliseconds
+            String id = null;
+            try {
+                id = writeCoalescer.submit(payload).get(createTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    return ResponseEntity.status(503).header("Retry-After", "1").body("Server is busy, try again shortly");
+                }
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (TimeoutException e) {
+                // The batch may still commit; the caller is told it is unknown rather than left waiting
+                return ResponseEntity.status(503).header("Retry-After", "1")
+                        .body("Timed out saving the complaint; check your complaints before submitting again");
+            } finally {
+                if (id == null) {
+                    dedupIndex.release(reservation);
+                }
+            }
+            dedupIndex.confirm(reservation, id);
+            if (duplicate.isDuplicate() && dedupIndex.claimClusterLeader(duplicate.clusterId())) {
+                stampClusterLeader(duplicate.clusterId());
+            }
+            eventPublisher.publishEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, id, payload, null));
             Map<String, Object> response = new HashMap<>();
-            response.put("id", future.get().getId());
+            response.put("id", id);
             response.put("message", "Complaint created successfully");
+            if (duplicate.isDuplicate()) {
+                response.put("duplicateOf", duplicate.duplicateOf());
+                response.put("clusterId", duplicate.clusterId());
+            }
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error creating complaint: " + e.getMessage());
         }
     }
 
+    // The uid of a verified "Bearer" ID token, else the client address: a uid in the body is not proof of who is calling
+    private String rateLimitKey(String authorization, String clientAddress) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                return "uid:" + verifiedTokenCache.verify(authorization.substring("Bearer ".length())).getUid();
+            } catch (Exception e) {
+                // An invalid or expired token counts against the address like no token at all
+            }
+        }
+        return "ip:" + clientAddress;
+    }
+
+    // The complaint is already stored; failing to tag its cluster's first complaint only hides that one from the cluster
+    private void stampClusterLeader(String clusterId) {
+        try {
+            complaintRepository.update(clusterId, Map.of("clusterId", clusterId));
+        } catch (Exception e) {
+            log.warn("Could not tag cluster leader {}: {}", clusterId, e.getMessage());
+        }
+    }
+
+    private static int length(Object value) {
+        return value == null ? 0 : value.toString().length();
+    }
+
+    // Fills studentId, status, category and the timestamps; false when title or description is missing
+    static boolean normalizeNewComplaint(Map<String, Object> payload) {
+        // Ensure studentId is always set
+        if (!payload.containsKey("studentId") && payload.containsKey("uid")) {
+            payload.put("studentId", payload.get("uid"));
+        }
+
+        // Ensure required fields are present
+        if (!payload.containsKey("title") || !payload.containsKey("description")) {
+            return false;
+        }
+
+        // Set default values if missing
+        if (!payload.containsKey("status")) {
+            payload.put("status", "pending");
+        }
+        if (!payload.containsKey("category")) {
+            payload.put("category", "general");
+        }
+
+        // Always set both createdAt and timestamp fields
+        Date now = new Date();
+        payload.put("createdAt", now);
+        payload.put("timestamp", now);
+        return true;
+    }
+
     public ResponseEntity<?> getAllComplaints() {
+        return getAllComplaints(Collections.emptyMap(), true);
+    }
+
+    public ResponseEntity<?> getAllComplaints(Map<String, String> filters, boolean includeHistory) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            ApiFuture<QuerySnapshot> future = db.collection(COMPLAINTS_COLLECTION).get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            List<Map<String, Object>> complaints = new ArrayList<>();
-            for (QueryDocumentSnapshot doc : documents) {
-                Map<String, Object> complaint = new HashMap<>();
-                complaint.put("id", doc.getId());
-                Map<String, Object> data = doc.getData();
-                // Fill all required fields with defaults if missing
-                complaint.put("title", data.getOrDefault("title", ""));
-                complaint.put("description", data.getOrDefault("description", ""));
-                complaint.put("category", data.getOrDefault("category", "others"));
-                complaint.put("status", data.getOrDefault("status", "pending"));
-                complaint.put("priority", data.getOrDefault("priority", "low"));
-                complaint.put("studentId", data.getOrDefault("studentId", ""));
-                complaint.put("studentName", data.getOrDefault("studentName", ""));
-                complaint.put("department", data.getOrDefault("department", ""));
-                complaint.put("createdAt", data.getOrDefault("createdAt", new Date()));
-                complaint.put("updatedAt", data.getOrDefault("updatedAt", new Date()));
-                complaint.put("comments", data.getOrDefault("comments", new ArrayList<>()));
-                complaint.put("updates", data.getOrDefault("updates", new ArrayList<>()));
-                complaint.put("assignedTo", data.getOrDefault("assignedTo", ""));
-                complaint.put("resolvedAt", data.getOrDefault("resolvedAt", null));
-                complaint.put("rejectionReason", data.getOrDefault("rejectionReason", ""));
-                complaint.put("imageUrl", data.getOrDefault("imageUrl", ""));
-                complaints.add(complaint);
-            }
-            return ResponseEntity.ok(complaints);
+            Optional<List<Complaint>> cached = complaintView.findAll(filters, includeHistory);
+            if (cached.isPresent()) {
+                return ResponseEntity.ok(cached.get());
+            }
+            return ResponseEntity.ok(toComplaints(complaintRepository.findAll(listQuery(filters, includeHistory)), includeHistory));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error fetching complaints: " + e.getMessage());
         }
     }
 
-    public ResponseEntity<?> getComplaintsByUser(String uid) {
+    // Cursor-paginated listing, newest first: {"items": [...], "nextPageToken": "..." | null}
+    public ResponseEntity<?> getComplaintPage(Map<String, String> filters, boolean includeHistory, int pageSize, String startAfter) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            ApiFuture<QuerySnapshot> future = db.collection(COMPLAINTS_COLLECTION).whereEqualTo("uid", uid).get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            List<Map<String, Object>> complaints = new ArrayList<>();
-            for (QueryDocumentSnapshot doc : documents) {
-                Map<String, Object> complaint = doc.getData();
-                complaint.put("id", doc.getId());
-                complaints.add(complaint);
+            PageCursor cursor = startAfter == null || startAfter.isEmpty() ? null : PageCursor.decode(startAfter);
+            Optional<List<Complaint>> cached = complaintView.findAll(filters, includeHistory);
+            if (cached.isPresent()) {
+                return ResponseEntity.ok(pageFromView(cached.get(), pageSize, cursor));
             }
-            return ResponseEntity.ok(complaints);
+            ComplaintPage page = complaintRepository.findPage(listQuery(filters, includeHistory), pageSize, cursor);
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", toComplaints(page.items(), includeHistory));
+            response.put("nextPageToken", page.next() == null ? null : page.next().encode());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid startAfter token");
         } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error fetching user's complaints: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error fetching complaints: " + e.getMessage());
         }
     }
 
-    // ADMIN: Update complaint status
-    public ResponseEntity<?> updateComplaintStatus(String id, Map<String, Object> payload) {
+    // Writes one JSON document per line as each page arrives, never holding more than one page
+    public ResponseEntity<StreamingResponseBody> streamComplaints(Map<String, String> filters, boolean includeHistory) {
+        ComplaintQuery query = listQuery(filters, includeHistory);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try {
+                PageCursor cursor = null;
+                do {
+                    ComplaintPage page = complaintRepository.findPage(query, STREAM_PAGE_SIZE, cursor);
+                    for (Map<String, Object> data : page.items()) {
+                        ComplaintJsonSerializer.write(Complaint.fromDocument((String) data.get("id"), data, includeHistory), generator);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    cursor = page.next();
+                } while (cursor != null);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error fetching complaints: " + e.getMessage(), e);
+            } finally {
+                generator.close();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Attachment download of every matching complaint in [from, to); format is csv, ndjson or training
+    public ResponseEntity<StreamingResponseBody> exportComplaints(Map<String, String> filters, String from, String to,
+                                                                  String format, boolean gzip, HttpServletRequest request) {
+        ComplaintExporter.Format exportFormat;
+        Timestamp start;
+        Timestamp end;
+        try {
+            exportFormat = ComplaintExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            start = ComplaintExporter.bound(from, false);
+            end = ComplaintExporter.bound(to, true);
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage().startsWith("Invalid date") ? e.getMessage() : "format must be csv, ndjson or training";
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+        }
+        // Exports run far longer than the default async timeout allows
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(complaintExporter.timeoutMillis());
+        StreamingResponseBody body = out -> complaintExporter.write(out, exportFormat, filters, start, end, gzip);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ComplaintExporter.contentType(exportFormat, gzip)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(ComplaintExporter.fileName(exportFormat, gzip)).build().toString())
+                .body(body);
+    }
+
+    // Same ordering and cursor semantics as ComplaintRepository.findPage: createdAt desc, then id desc
+    private static Map<String, Object> pageFromView(List<Complaint> rows, int pageSize, PageCursor cursor) {
+        Comparator<Complaint> newestFirst = Comparator.comparing(Complaint::createdAt)
+                .thenComparing(Complaint::id)
+                .reversed();
+        List<Complaint> sorted = new ArrayList<>(rows.size());
+        for (Complaint row : rows) {
+            if (row.createdAt() != null) {
+                sorted.add(row);
+            }
+        }
+        sorted.sort(newestFirst);
+        int from = 0;
+        if (cursor != null) {
+            Complaint probe = Complaint.fromDocument(cursor.id(), Map.of("createdAt", cursor.createdAt()), false);
+            int position = Collections.binarySearch(sorted, probe, newestFirst);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(sorted.size(), from + pageSize);
+        List<Complaint> items = new ArrayList<>(sorted.subList(from, to));
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextPageToken", items.size() == pageSize
+                ? new PageCursor(sorted.get(to - 1).createdAt(), sorted.get(to - 1).id()).encode()
+                : null);
+        return page;
+    }
+
+    public ResponseEntity<?> getViewStats() {
+        return ResponseEntity.ok(complaintView.stats());
+    }
+
+    private static ComplaintQuery listQuery(Map<String, String> filters, boolean includeHistory) {
+        // Summary views skip the comment/update previews (and, on legacy documents, the full arrays)
+        return new ComplaintQuery(filters, includeHistory ? null : SUMMARY_FIELDS);
+    }
+
+    // Repository documents carry their id under "id"
+    static List<Complaint> toComplaints(List<Map<String, Object>> documents, boolean includeHistory) {
+        List<Complaint> complaints = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            complaints.add(Complaint.fromDocument((String) data.get("id"), data, includeHistory));
+        }
+        return complaints;
+    }
+
+    // Ranked full-text search; hits come back as summaries (no comments/updates) with their score
+    public ResponseEntity<?> searchComplaints(String query, Map<String, String> filters, boolean prefix, int limit) {
+        if (query == null || query.isBlank()) {
+            return ResponseEntity.badRequest().body("Missing required parameter: q");
+        }
+        try {
+            Optional<ComplaintSearchIndex.Hits> found = searchIndex.search(query, filters,
+                    prefix, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+            if (found.isEmpty()) {
+                return ResponseEntity.status(503).body("Search index is still loading, retry shortly");
+            }
+            List<ComplaintSearchIndex.Hit> hits = found.get().hits();
+            List<String> ids = new ArrayList<>(hits.size());
+            for (ComplaintSearchIndex.Hit hit : hits) {
+                ids.add(hit.id());
+            }
+            Map<String, Map<String, Object>> documents = new HashMap<>();
+            for (Map<String, Object> document : complaintRepository.findByIds(ids)) {
+                documents.put((String) document.get("id"), document);
+            }
+            List<ScoredComplaint> results = new ArrayList<>(hits.size());
+            for (ComplaintSearchIndex.Hit hit : hits) {
+                Map<String, Object> document = documents.get(hit.id());
+                if (document != null) {
+                    results.add(new ScoredComplaint(Complaint.fromDocument(hit.id(), document, false), hit.score()));
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("total", found.get().total());
+            response.put("results", results);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error searching complaints: " + e.getMessage());
+        }
+    }
+
+    // Dashboard counts, resolution times and daily/weekly rollups without reading the collection
+    public ResponseEntity<?> getComplaintStats(int days, int weeks) {
+        Optional<Map<String, Object>> stats = complaintStats.snapshot(Math.max(1, Math.min(days, 366)), Math.max(1, Math.min(weeks, 104)));
+        if (stats.isEmpty()) {
+            return ResponseEntity.status(503).body("Statistics are still loading, retry shortly");
+        }
+        return ResponseEntity.ok(stats.get());
+    }
+
+    // Server-Sent Events of complaint deltas, optionally only for one student's complaints
+    public ResponseEntity<SseEmitter> streamChanges(String uid, String lastEventId) {
+        Optional<SseEmitter> emitter = streamHub.subscribe(uid == null || uid.isEmpty() ? null : uid, lastEventId);
+        if (emitter.isEmpty()) {
+            return ResponseEntity.status(503).header("Retry-After", "30").build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter.get());
+    }
+
+    public ResponseEntity<?> getStreamStats() {
+        return ResponseEntity.ok(streamHub.stats());
+    }
+
+    // ADMIN: One status change (and optional comment) for every complaint in a duplicate cluster
+    public ResponseEntity<?> updateClusterStatus(String clusterId, Map<String, Object> payload) {
+        if (!payload.containsKey("status") && !(payload.get("comment") instanceof Map)) {
+            return ResponseEntity.badRequest().body("Nothing to apply: expected status and/or comment");
+        }
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            DocumentReference docRef = db.collection(COMPLAINTS_COLLECTION).document(id);
-            Map<String, Object> updateMap = new HashMap<>();
-            if (payload.containsKey("status")) {
-                updateMap.put("status", payload.get("status"));
+            List<Map<String, Object>> members = complaintRepository.findAll(
+                    new ComplaintQuery(Map.of("clusterId", clusterId), List.of("clusterId")));
+            if (members.isEmpty()) {
+                return ResponseEntity.status(404).body("Cluster not found");
+            }
+            Date now = new Date();
+            int succeeded = 0;
+            List<Map<String, Object>> failures = new ArrayList<>();
+            for (int from = 0; from < members.size(); from += MAX_BULK_UPDATES) {
+                List<ComplaintUpdate> updates = new ArrayList<>();
+                for (Map<String, Object> member : members.subList(from, Math.min(members.size(), from + MAX_BULK_UPDATES))) {
+                    updates.add(bulkUpdate((String) member.get("id"), payload, now));
+                }
+                List<Exception> errors = complaintRepository.applyAll(updates);
+                for (int i = 0; i < updates.size(); i++) {
+                    if (errors.get(i) == null) {
+                        publish(updates.get(i));
+                        succeeded++;
+                    } else {
+                        Map<String, Object> failure = new LinkedHashMap<>();
+                        failure.put("id", updates.get(i).id());
+                        failure.put("error", errors.get(i).getMessage());
+                        failures.add(failure);
+                    }
+                }
             }
-            if (payload.containsKey("updatedBy")) {
-                updateMap.put("updatedBy", payload.get("updatedBy"));
+            Map<String, Object> response = new HashMap<>();
+            response.put("clusterId", clusterId);
+            response.put("succeeded", succeeded);
+            response.put("failed", failures.size());
+            response.put("failures", failures);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error updating cluster status: " + e.getMessage());
+        }
+    }
+
+    public ResponseEntity<?> getDedupStats() {
+        return ResponseEntity.ok(dedupIndex.stats());
+    }
+
+    public ResponseEntity<?> getWriteBatchStats() {
+        return ResponseEntity.ok(writeCoalescer.stats());
+    }
+
+    public ResponseEntity<?> getHistoryMigrationStats() {
+        return ResponseEntity.ok(historyMigrator.stats());
+    }
+
+    public ResponseEntity<?> getSearchStats() {
+        return ResponseEntity.ok(searchIndex.stats());
+    }
+
+    // ADMIN: Open unclaimed complaints in work order (escalation level, priority, SLA deadline) with their complaint
+    public ResponseEntity<?> getWorkQueue(int limit, String department) {
+        if (!workQueue.isReady()) {
+            return ResponseEntity.status(503).body("Work queue is still loading, retry shortly");
+        }
+        try {
+            List<ComplaintWorkQueue.Slot> slots = workQueue.top(Math.max(1, Math.min(limit, MAX_QUEUE_PAGE_SIZE)), department);
+            Map<String, Object> response = new HashMap<>(workQueue.stats());
+            response.put("items", queueItems(slots));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error fetching work queue: " + e.getMessage());
+        }
+    }
+
+    // ADMIN: Lease the next complaints in the queue, e.g. {"admin": "uid", "count": 1, "leaseSeconds": 900, "department": "hostel"}
+    public ResponseEntity<?> claimFromQueue(Map<String, Object> payload) {
+        Object admin = payload.get("admin");
+        if (!(admin instanceof String) || ((String) admin).isEmpty()) {
+            return ResponseEntity.badRequest().body("Missing required field: admin");
+        }
+        if (!workQueue.isReady()) {
+            return ResponseEntity.status(503).body("Work queue is still loading, retry shortly");
+        }
+        try {
+            int count = payload.get("count") instanceof Number number ? number.intValue() : 1;
+            long leaseSeconds = payload.get("leaseSeconds") instanceof Number number ? number.longValue() : 0;
+            String department = payload.get("department") instanceof String value ? value : null;
+            List<ComplaintWorkQueue.Slot> claimed = workQueue.claim((String) admin, Math.max(1, Math.min(count, MAX_QUEUE_CLAIM)),
+                    leaseSeconds, department, System.currentTimeMillis());
+            if (claimed.isEmpty()) {
+                return ResponseEntity.status(204).build();
             }
-            updateMap.put("updatedAt", new Date());
-            // Update status fields
-            ApiFuture<WriteResult> future = docRef.update(updateMap);
-            future.get();
+            return ResponseEntity.ok(Map.of("items", queueItems(claimed)));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error claiming from work queue: " + e.getMessage());
+        }
+    }
+
+    // ADMIN: Extend (renew) or hand back (release) a claim; only its holder may, anyone else gets 409
+    public ResponseEntity<?> updateQueueClaim(String id, Map<String, Object> payload, boolean renew) {
+        Object admin = payload.get("admin");
+        if (!(admin instanceof String) || ((String) admin).isEmpty()) {
+            return ResponseEntity.badRequest().body("Missing required field: admin");
+        }
+        if (!workQueue.isReady()) {
+            return ResponseEntity.status(503).body("Work queue is still loading, retry shortly");
+        }
+        try {
+            long leaseSeconds = payload.get("leaseSeconds") instanceof Number number ? number.longValue() : 0;
+            ComplaintWorkQueue.Slot slot = renew ? workQueue.renew(id, (String) admin, leaseSeconds, System.currentTimeMillis())
+                    : workQueue.release(id, (String) admin);
+            return ResponseEntity.ok(slot);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error updating work queue claim: " + e.getMessage());
+        }
+    }
+
+    public ResponseEntity<?> getWorkQueueStats() {
+        return ResponseEntity.ok(workQueue.stats());
+    }
 
-            // Append to 'updates' array in Firestore
-            Map<String, Object> updateEntry = new HashMap<>();
-            updateEntry.put("by", payload.getOrDefault("updatedBy", "admin"));
-            updateEntry.put("date", new Date());
-            updateEntry.put("status", payload.get("status"));
-            if (payload.containsKey("description")) {
-                updateEntry.put("description", payload.get("description"));
+    // Queue slots joined with their complaint summaries in one read, queue order kept
+    private List<Map<String, Object>> queueItems(List<ComplaintWorkQueue.Slot> slots) throws Exception {
+        List<String> ids = new ArrayList<>(slots.size());
+        for (ComplaintWorkQueue.Slot slot : slots) {
+            ids.add(slot.id());
+        }
+        Map<String, Map<String, Object>> documents = new HashMap<>();
+        for (Map<String, Object> document : complaintRepository.findByIds(ids)) {
+            documents.put((String) document.get("id"), document);
+        }
+        List<Map<String, Object>> items = new ArrayList<>(slots.size());
+        for (ComplaintWorkQueue.Slot slot : slots) {
+            Map<String, Object> document = documents.get(slot.id());
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("queue", slot);
+            item.put("complaint", document == null ? null : Complaint.fromDocument(slot.id(), document, false));
+            items.add(item);
+        }
+        return items;
+    }
+
+    public ResponseEntity<?> getComplaintsByUser(String uid) {
+        try {
+            Optional<List<Complaint>> cached = complaintView.findByUser(uid);
+            if (cached.isPresent()) {
+                return ResponseEntity.ok(cached.get());
             }
-            ApiFuture<WriteResult> updatesFuture = docRef.update("updates", FieldValue.arrayUnion(updateEntry));
-            updatesFuture.get();
+            return ResponseEntity.ok(toComplaints(complaintRepository.findByUser(uid), true));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error fetching user's complaints: " + e.getMessage());
+        }
+    }
 
+    // ADMIN: Update complaint status
+    public ResponseEntity<?> updateComplaintStatus(String id, Map<String, Object> payload) {
+        try {
+            // Status fields and the 'updates' entry go out as one write
+            ComplaintUpdate update = statusUpdate(id, payload, new Date());
+            complaintRepository.apply(update);
+            publish(update);
             return ResponseEntity.ok("Complaint status updated successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error updating complaint status: " + e.getMessage());
         }
     }
 
+    // ADMIN: Apply many status changes and/or comments, each item written atomically on its own
+    public ResponseEntity<?> updateComplaintStatusBulk(List<Map<String, Object>> items) {
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.badRequest().body("Missing required field: items");
+        }
+        if (items.size() > MAX_BULK_UPDATES) {
+            return ResponseEntity.badRequest().body("At most " + MAX_BULK_UPDATES + " items per request");
+        }
+        try {
+            Date now = new Date();
+            List<Map<String, Object>> results = new ArrayList<>(items.size());
+            List<ComplaintUpdate> updates = new ArrayList<>(items.size());
+            List<Integer> positions = new ArrayList<>(items.size());
+            int failed = 0;
+            for (Map<String, Object> item : items) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                Object id = item == null ? null : item.get("id");
+                result.put("id", id);
+                results.add(result);
+                String error = id instanceof String s && !s.isEmpty() ? null : "Missing required field: id";
+                if (error == null && !item.containsKey("status") && !(item.get("comment") instanceof Map)) {
+                    error = "Nothing to apply: expected status and/or comment";
+                }
+                if (error != null) {
+                    result.put("success", false);
+                    result.put("error", error);
+                    failed++;
+                    continue;
+                }
+                updates.add(bulkUpdate((String) id, item, now));
+                positions.add(results.size() - 1);
+            }
+            List<Exception> errors = updates.isEmpty() ? List.of() : complaintRepository.applyAll(updates);
+            for (int i = 0; i < positions.size(); i++) {
+                Map<String, Object> result = results.get(positions.get(i));
+                Exception error = errors.get(i);
+                result.put("success", error == null);
+                if (error != null) {
+                    result.put("error", error.getMessage());
+                    failed++;
+                } else {
+                    publish(updates.get(i));
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", results);
+            response.put("succeeded", results.size() - failed);
+            response.put("failed", failed);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error updating complaint statuses: " + e.getMessage());
+        }
+    }
+
+    private void publish(ComplaintUpdate update) {
+        Map<String, Object> statusEntry = update.appends().get("updates");
+        if (statusEntry != null) {
+            eventPublisher.publishEvent(new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, update.id(), update.fields(), statusEntry));
+        }
+        Map<String, Object> comment = update.appends().get("comments");
+        if (comment != null) {
+            eventPublisher.publishEvent(new ComplaintEvent(ComplaintEvent.Type.COMMENTED, update.id(), null, comment));
+        }
+    }
+
+    private static ComplaintUpdate statusUpdate(String id, Map<String, Object> payload, Date now) {
+        Map<String, Object> updateMap = new HashMap<>();
+        if (payload.containsKey("status")) {
+            updateMap.put("status", payload.get("status"));
+        }
+        if (payload.containsKey("updatedBy")) {
+            updateMap.put("updatedBy", payload.get("updatedBy"));
+        }
+        updateMap.put("updatedAt", now);
+
+        Map<String, Object> updateEntry = new HashMap<>();
+        updateEntry.put("by", payload.getOrDefault("updatedBy", "admin"));
+        updateEntry.put("date", now);
+        updateEntry.put("status", payload.get("status"));
+        if (payload.containsKey("description")) {
+            updateEntry.put("description", payload.get("description"));
+        }
+        Map<String, Map<String, Object>> appends = new HashMap<>();
+        appends.put("updates", updateEntry);
+        return new ComplaintUpdate(id, updateMap, appends);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ComplaintUpdate bulkUpdate(String id, Map<String, Object> item, Date now) {
+        ComplaintUpdate update = item.containsKey("status")
+                ? statusUpdate(id, item, now)
+                : new ComplaintUpdate(id, new HashMap<>(Map.of("updatedAt", now)), new HashMap<>());
+        if (item.get("comment") instanceof Map<?, ?> comment) {
+            update.appends().put("comments", commentEntry((Map<String, Object>) comment, now));
+        }
+        return update;
+    }
+
+    private static Map<String, Object> commentEntry(Map<String, Object> payload, Date now) {
+        Map<String, Object> comment = new HashMap<>();
+        comment.put("userId", payload.getOrDefault("userId", "admin"));
+        comment.put("userName", payload.getOrDefault("userName", "Admin"));
+        comment.put("content", payload.get("content"));
+        comment.put("createdAt", now);
+        return comment;
+    }
+
     // ADMIN: Add comment to complaint
     public ResponseEntity<?> addAdminComment(String id, Map<String, Object> payload) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            DocumentReference docRef = db.collection(COMPLAINTS_COLLECTION).document(id);
-            Map<String, Object> comment = new HashMap<>();
-            comment.put("userId", payload.getOrDefault("userId", "admin"));
-            comment.put("userName", payload.getOrDefault("userName", "Admin"));
-            comment.put("content", payload.get("content"));
-            comment.put("createdAt", new Date());
-            ApiFuture<WriteResult> arrayUnionFuture = docRef.update("comments", FieldValue.arrayUnion(comment));
-            arrayUnionFuture.get();
+            Date now = new Date();
+            Map<String, Object> comment = commentEntry(payload, now);
+            // updatedAt moves with comments too, as in the frontend, so catch-up by updatedAt sees them
+            complaintRepository.apply(new ComplaintUpdate(id, Map.of("updatedAt", now), Map.of(ComplaintHistory.COMMENTS, comment)));
+            eventPublisher.publishEvent(new ComplaintEvent(ComplaintEvent.Type.COMMENTED, id, null, comment));
             return ResponseEntity.ok("Comment added successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error adding comment: " + e.getMessage());
         }
     }
 
-    // ADMIN: Classify complaint priority using ML API
+    // One page of a complaint's comments or status updates, newest first, with the total count
+    public ResponseEntity<?> getComplaintHistory(String id, String kind, int pageSize, String startAfter) {
+        if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("pageSize must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        try {
+            PageCursor cursor = startAfter == null || startAfter.isEmpty() ? null : PageCursor.decode(startAfter);
+            Optional<HistoryPage> page = complaintRepository.findHistory(id, kind, pageSize, cursor);
+            if (page.isEmpty()) {
+                return ResponseEntity.status(404).body("Complaint not found");
+            }
+            List<Object> items = new ArrayList<>(page.get().items().size());
+            for (Map<String, Object> entry : page.get().items()) {
+                items.add(ComplaintHistory.COMMENTS.equals(kind) ? CommentEntry.fromDocument(entry) : StatusUpdate.fromDocument(entry));
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", items);
+            response.put("nextPageToken", page.get().next() == null ? null : page.get().next().encode());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid startAfter token");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error fetching complaint history: " + e.getMessage());
+        }
+    }
+
+    // ADMIN: Classify complaint priority (in-process model, or the ML API in remote mode)
     public ResponseEntity<?> classifyComplaintPriority(String complaintText) {
         try {
-            String apiUrl = "http://localhost:8000/predict_priority";
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            String payload = String.format("{\"complaint\": \"%s\"}", complaintText.replace("\"", "\\\""));
-            HttpEntity<String> request = new HttpEntity<>(payload, headers);
-            org.springframework.http.ResponseEntity<Map> response = restTemplate.postForEntity(apiUrl, request, Map.class);
-            return ResponseEntity.ok(response.getBody());
+            // Includes the wait in the micro-batch queue, unlike the classifier's own timer
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Map<String, Object> result = priorityBatcher.submit(complaintText).get(CLASSIFY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            sample.stop(Timer.builder("complainhub.classifier.request").publishPercentileHistogram().register(meterRegistry));
+            return ResponseEntity.ok(result);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return ResponseEntity.status(503).body("Classifier is busy, retry shortly");
+            }
+            return ResponseEntity.status(500).body("Error classifying complaint priority: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error classifying complaint priority: " + e.getMessage());
+        }
+    }
+
+    // ADMIN: Classify many complaints in one call, results in request order
+    public ResponseEntity<?> classifyComplaintPriorityBatch(List<String> complaintTexts) {
+        if (complaintTexts == null || complaintTexts.isEmpty()) {
+            return ResponseEntity.badRequest().body("Missing required field: complaints");
+        }
+        if (complaintTexts.size() > MAX_CLASSIFY_BATCH) {
+            return ResponseEntity.badRequest().body("At most " + MAX_CLASSIFY_BATCH + " complaints per batch");
+        }
+        try {
+            List<String> texts = new ArrayList<>(complaintTexts.size());
+            for (String text : complaintTexts) {
+                texts.add(text == null ? "" : text);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", priorityClassifier.classifyAll(texts));
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error classifying complaint priority: " + e.getMessage());
         }
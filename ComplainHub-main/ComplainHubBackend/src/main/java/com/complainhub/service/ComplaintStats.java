@@ -0,0 +1,568 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.PageCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard statistics kept up to date from {@link ComplaintEvent}s instead of a full collection read:
+ * counts by status/category/department/priority, a log-scale histogram of time to resolution and daily
+ * created/resolved rollups (weekly ones are summed from the days). Everything is checkpointed to a JSON
+ * file; on startup the checkpoint is loaded and only complaints created or updated after it are read.
+ * Changes this instance never sees as events (other instances, clients writing Firestore directly) are
+ * picked up by a periodic pass over the complaints updated since the last one.
+ */
+@Component
+public class ComplaintStats {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintStats.class);
+    private static final String[] DIMENSIONS = {"status", "category", "department", "priority"};
+    private static final String[] DEFAULTS = {"pending", "others", "", "low"};
+    private static final String RESOLVED = "resolved";
+    private static final int CHECKPOINT_VERSION = 2;
+    // Upper bounds of the resolution-time buckets, doubling from one hour; the last bucket is open-ended
+    private static final int RESOLUTION_BUCKETS = 14;
+    private static final int CATCH_UP_PAGE_SIZE = 500;
+    // Re-read window before the updatedAt watermark, for clock skew between writers
+    private static final long RECONCILE_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final List<String> TRACKED_FIELDS = List.of(
+            "status", "category", "department", "priority", "createdAt", "updatedAt", "resolvedAt");
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${complainhub.stats.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.stats.checkpoint-file:./data/complaint-stats.json}")
+    private String checkpointFile;
+
+    @Value("${complainhub.stats.checkpoint-interval-seconds:30}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${complainhub.stats.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${complainhub.stats.reconcile-interval-seconds:300}")
+    private long reconcileIntervalSeconds;
+
+    @Value("${complainhub.stats.max-checkpoint-age-hours:24}")
+    private long maxCheckpointAgeHours;
+
+    // Per complaint: current status, creation time and the resolution it counts, to move counts and undo resolutions
+    private final Map<String, Tracked> complaints = new ConcurrentHashMap<>();
+    private final List<Map<String, LongAdder>> counts = new ArrayList<>();
+    private final LongAdder[] resolutionBuckets = new LongAdder[RESOLUTION_BUCKETS];
+    private final LongAdder resolvedCount = new LongAdder();
+    private final LongAdder resolutionMillis = new LongAdder();
+    private final ConcurrentSkipListMap<Long, Rollup> daily = new ConcurrentSkipListMap<>();
+
+    private List<ComplaintEvent> pending = new ArrayList<>();
+    private volatile boolean ready;
+    private volatile boolean dirty;
+    private volatile long checkpointedAtMillis;
+    private final AtomicLong watermarkMillis = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong updatedWatermarkMillis = new AtomicLong(Long.MIN_VALUE);
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ComplaintStats() {
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            counts.add(new ConcurrentHashMap<>());
+        }
+        for (int b = 0; b < RESOLUTION_BUCKETS; b++) {
+            resolutionBuckets[b] = new LongAdder();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        background.execute(this::load);
+        background.scheduleWithFixedDelay(this::checkpointIfDirty, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+        if (reconcileIntervalSeconds > 0) {
+            background.scheduleWithFixedDelay(this::reconcileIfReady, reconcileIntervalSeconds, reconcileIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+        checkpointIfDirty();
+    }
+
+    @EventListener
+    public void onComplaintEvent(ComplaintEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (!ready) {
+                pending.add(event);
+                return;
+            }
+        }
+        try {
+            apply(event);
+            dirty = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not count {} for {}", event.type(), event.id(), e);
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        try {
+            Path path = Path.of(checkpointFile);
+            boolean restored = Files.exists(path) && restore(path);
+            if (restored && started - checkpointedAtMillis > TimeUnit.HOURS.toMillis(maxCheckpointAgeHours)) {
+                // Too much may have changed without an updatedAt to find it by; start over
+                log.info("Checkpoint is older than {} h, rebuilding", maxCheckpointAgeHours);
+                clear();
+                restored = false;
+            }
+            int added = restored ? catchUp() + reconcile() : rebuild();
+            synchronized (this) {
+                for (ComplaintEvent event : pending) {
+                    apply(event);
+                }
+                pending = null;
+                ready = true;
+            }
+            dirty = dirty || added > 0 || !restored;
+            log.info("Ready with {} complaints ({}) in {} ms", complaints.size(),
+                    restored ? "restored, " + added + " new or changed" : "rebuilt", System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Could not load statistics, retrying: {}", e.getMessage());
+            clear();
+            background.schedule(this::load, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private int rebuild() throws Exception {
+        List<Map<String, Object>> documents = complaintRepository.findAll(new ComplaintQuery(Collections.emptyMap(), TRACKED_FIELDS));
+        for (Map<String, Object> document : documents) {
+            add((String) document.get("id"), document);
+            updatedWatermarkMillis.accumulateAndGet(millis(document.get("updatedAt")), Math::max);
+        }
+        return documents.size();
+    }
+
+    private int catchUp() throws Exception {
+        int added = 0;
+        PageCursor cursor = null;
+        ComplaintQuery query = new ComplaintQuery(Collections.emptyMap(), TRACKED_FIELDS);
+        do {
+            ComplaintPage page = complaintRepository.findPage(query, CATCH_UP_PAGE_SIZE, cursor);
+            for (Map<String, Object> document : page.items()) {
+                if (millis(document.get("createdAt")) < watermarkMillis.get()) {
+                    return added;
+                }
+                if (add((String) document.get("id"), document)) {
+                    added++;
+                }
+            }
+            cursor = page.next();
+        } while (cursor != null);
+        return added;
+    }
+
+    /**
+     * Brings complaints updated since the last pass in line with the store: unknown ones are added and
+     * a status that differs from the counted one is changed. Reapplying what is already counted changes
+     * nothing, so the overlap window is harmless.
+     */
+    private int reconcile() throws Exception {
+        long watermark = updatedWatermarkMillis.get();
+        long since = watermark == Long.MIN_VALUE ? 0 : Math.max(0, watermark - RECONCILE_OVERLAP_MILLIS);
+        int changed = 0;
+        for (Map<String, Object> document : complaintRepository.findUpdatedSince(Timestamp.ofTimeMicroseconds(since * 1000), TRACKED_FIELDS)) {
+            String id = (String) document.get("id");
+            Tracked tracked = id == null ? null : complaints.get(id);
+            String status = valueOf(document, 0);
+            if (tracked == null) {
+                if (add(id, document)) {
+                    changed++;
+                }
+            } else if (!tracked.status.equals(status)) {
+                changeStatus(id, status, resolutionTime(document));
+                changed++;
+            }
+            updatedWatermarkMillis.accumulateAndGet(millis(document.get("updatedAt")), Math::max);
+        }
+        return changed;
+    }
+
+    private void reconcileIfReady() {
+        if (!ready) {
+            return;
+        }
+        try {
+            if (reconcile() > 0) {
+                dirty = true;
+            }
+        } catch (Exception e) {
+            log.warn("Reconcile failed, retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    private void apply(ComplaintEvent event) {
+        switch (event.type()) {
+            case CREATED -> add(event.id(), event.fields());
+            case STATUS_UPDATED -> {
+                Object status = event.fields().get("status");
+                if (status != null) {
+                    long at = millis(event.fields().get("updatedAt"));
+                    changeStatus(event.id(), status.toString(), at == Long.MIN_VALUE ? System.currentTimeMillis() : at);
+                }
+            }
+            case COMMENTED -> {
+            }
+        }
+    }
+
+    private boolean add(String id, Map<String, Object> data) {
+        long createdAt = millis(data.get("createdAt"));
+        String status = valueOf(data, 0);
+        long resolvedAt = RESOLVED.equals(status) ? resolutionTime(data) : Long.MIN_VALUE;
+        if (id == null || complaints.putIfAbsent(id, new Tracked(status, createdAt, resolvedAt)) != null) {
+            return false;
+        }
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            counter(d, valueOf(data, d)).increment();
+        }
+        if (createdAt != Long.MIN_VALUE) {
+            rollup(createdAt).created.increment();
+            watermarkMillis.accumulateAndGet(createdAt, Math::max);
+        }
+        recordResolution(createdAt, resolvedAt);
+        return true;
+    }
+
+    // A complaint counts at most one resolution, its latest: reopening it takes that one back out
+    private void changeStatus(String id, String status, long at) {
+        Tracked[] previous = new Tracked[1];
+        Tracked current = complaints.computeIfPresent(id, (key, tracked) -> {
+            previous[0] = tracked;
+            return tracked.status.equals(status) ? tracked
+                    : new Tracked(status, tracked.createdAtMillis, RESOLVED.equals(status) ? at : Long.MIN_VALUE);
+        });
+        if (current == null || previous[0].status.equals(status)) {
+            return;
+        }
+        counter(0, previous[0].status).decrement();
+        counter(0, status).increment();
+        undoResolution(previous[0].createdAtMillis, previous[0].resolvedAtMillis);
+        recordResolution(current.createdAtMillis, current.resolvedAtMillis);
+    }
+
+    private void recordResolution(long createdAt, long resolvedAt) {
+        if (resolvedAt == Long.MIN_VALUE) {
+            return;
+        }
+        rollup(resolvedAt).resolved.increment();
+        if (createdAt == Long.MIN_VALUE || resolvedAt < createdAt) {
+            return;
+        }
+        long elapsed = resolvedAt - createdAt;
+        resolvedCount.increment();
+        resolutionMillis.add(elapsed);
+        resolutionBuckets[bucket(elapsed)].increment();
+    }
+
+    private void undoResolution(long createdAt, long resolvedAt) {
+        if (resolvedAt == Long.MIN_VALUE) {
+            return;
+        }
+        // The day may already have aged out of the retained rollups
+        Rollup rollup = daily.get(day(resolvedAt));
+        if (rollup != null) {
+            rollup.resolved.decrement();
+        }
+        if (createdAt == Long.MIN_VALUE || resolvedAt < createdAt) {
+            return;
+        }
+        long elapsed = resolvedAt - createdAt;
+        resolvedCount.decrement();
+        resolutionMillis.add(-elapsed);
+        resolutionBuckets[bucket(elapsed)].decrement();
+    }
+
+    private LongAdder counter(int dimension, String value) {
+        return counts.get(dimension).computeIfAbsent(value, v -> new LongAdder());
+    }
+
+    private Rollup rollup(long epochMillis) {
+        Rollup rollup = daily.computeIfAbsent(day(epochMillis), d -> new Rollup());
+        if (daily.size() > retentionDays) {
+            daily.headMap(daily.lastKey() - retentionDays).clear();
+        }
+        return rollup;
+    }
+
+    private static long day(long epochMillis) {
+        return Math.floorDiv(epochMillis, TimeUnit.DAYS.toMillis(1));
+    }
+
+    private static int bucket(long elapsedMillis) {
+        long hours = elapsedMillis / TimeUnit.HOURS.toMillis(1);
+        int bucket = 0;
+        while (bucket < RESOLUTION_BUCKETS - 1 && hours >= (1L << bucket)) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /** Snapshot for GET /api/complaint/stats; empty while the statistics are still loading. */
+    public Optional<Map<String, Object>> snapshot(int days, int weeks) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", complaints.size());
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            Map<String, Long> values = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> count : counts.get(d).entrySet()) {
+                long value = count.getValue().sum();
+                if (value != 0) {
+                    values.put(count.getKey(), value);
+                }
+            }
+            stats.put("by" + Character.toUpperCase(DIMENSIONS[d].charAt(0)) + DIMENSIONS[d].substring(1), values);
+        }
+        stats.put("resolution", resolution());
+
+        long today = Math.floorDiv(System.currentTimeMillis(), TimeUnit.DAYS.toMillis(1));
+        List<Map<String, Object>> dailyRows = new ArrayList<>();
+        for (long day = today - days + 1; day <= today; day++) {
+            dailyRows.add(row("date", LocalDate.ofEpochDay(day), daily.get(day)));
+        }
+        stats.put("daily", dailyRows);
+        LocalDate thisWeek = LocalDate.ofEpochDay(today).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        List<Map<String, Object>> weeklyRows = new ArrayList<>();
+        for (int w = weeks - 1; w >= 0; w--) {
+            LocalDate weekStart = thisWeek.minusWeeks(w);
+            Rollup week = new Rollup();
+            for (Rollup day : daily.subMap(weekStart.toEpochDay(), weekStart.toEpochDay() + 7).values()) {
+                week.created.add(day.created.sum());
+                week.resolved.add(day.resolved.sum());
+            }
+            weeklyRows.add(row("weekStart", weekStart, week));
+        }
+        stats.put("weekly", weeklyRows);
+        stats.put("checkpointedAt", checkpointedAtMillis == 0 ? null : new Date(checkpointedAtMillis));
+        return Optional.of(stats);
+    }
+
+    private Map<String, Object> resolution() {
+        long count = resolvedCount.sum();
+        long[] buckets = new long[RESOLUTION_BUCKETS];
+        for (int b = 0; b < RESOLUTION_BUCKETS; b++) {
+            buckets[b] = resolutionBuckets[b].sum();
+        }
+        Map<String, Object> resolution = new LinkedHashMap<>();
+        resolution.put("count", count);
+        resolution.put("averageHours", count == 0 ? null : resolutionMillis.sum() / (double) count / TimeUnit.HOURS.toMillis(1));
+        resolution.put("p50Hours", percentileHours(buckets, count, 0.5));
+        resolution.put("p90Hours", percentileHours(buckets, count, 0.9));
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int b = 0; b < RESOLUTION_BUCKETS; b++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("upToHours", b == RESOLUTION_BUCKETS - 1 ? null : 1L << b);
+            bucket.put("count", buckets[b]);
+            histogram.add(bucket);
+        }
+        resolution.put("histogram", histogram);
+        return resolution;
+    }
+
+    // Upper bound of the bucket holding the percentile, i.e. within a factor of two
+    private static Long percentileHours(long[] buckets, long count, double percentile) {
+        if (count == 0) {
+            return null;
+        }
+        long seen = 0;
+        for (int b = 0; b < buckets.length - 1; b++) {
+            seen += buckets[b];
+            if (seen >= Math.ceil(count * percentile)) {
+                return 1L << b;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> row(String key, LocalDate date, Rollup rollup) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(key, date.toString());
+        row.put("created", rollup == null ? 0 : rollup.created.sum());
+        row.put("resolved", rollup == null ? 0 : rollup.resolved.sum());
+        return row;
+    }
+
+    private void checkpointIfDirty() {
+        if (!ready || !dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            Map<String, Object> checkpoint = new LinkedHashMap<>();
+            checkpoint.put("version", CHECKPOINT_VERSION);
+            checkpoint.put("watermarkMillis", watermarkMillis.get());
+            checkpoint.put("updatedWatermarkMillis", updatedWatermarkMillis.get());
+            Map<String, Object[]> tracked = new HashMap<>(complaints.size() * 2);
+            for (Map.Entry<String, Tracked> entry : complaints.entrySet()) {
+                Tracked value = entry.getValue();
+                tracked.put(entry.getKey(), new Object[]{value.status, value.createdAtMillis, value.resolvedAtMillis});
+            }
+            checkpoint.put("complaints", tracked);
+            List<Map<String, Long>> countValues = new ArrayList<>();
+            for (Map<String, LongAdder> dimension : counts) {
+                countValues.add(sums(dimension));
+            }
+            checkpoint.put("counts", countValues);
+            long[] buckets = new long[RESOLUTION_BUCKETS];
+            for (int b = 0; b < RESOLUTION_BUCKETS; b++) {
+                buckets[b] = resolutionBuckets[b].sum();
+            }
+            checkpoint.put("resolutionBuckets", buckets);
+            checkpoint.put("resolvedCount", resolvedCount.sum());
+            checkpoint.put("resolutionMillis", resolutionMillis.sum());
+            Map<Long, long[]> days = new TreeMap<>();
+            for (Map.Entry<Long, Rollup> day : daily.entrySet()) {
+                days.put(day.getKey(), new long[]{day.getValue().created.sum(), day.getValue().resolved.sum()});
+            }
+            checkpoint.put("daily", days);
+
+            Path path = Path.of(checkpointFile).toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), "complaint-stats", ".tmp");
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointedAtMillis = System.currentTimeMillis();
+        } catch (Exception e) {
+            dirty = true;
+            log.warn("Checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean restore(Path path) {
+        try {
+            Map<String, Object> checkpoint = objectMapper.readValue(path.toFile(), Map.class);
+            // Version 1 did not record which resolution each complaint counts, so it is rebuilt
+            if (!Integer.valueOf(CHECKPOINT_VERSION).equals(checkpoint.get("version"))) {
+                return false;
+            }
+            watermarkMillis.set(((Number) checkpoint.get("watermarkMillis")).longValue());
+            updatedWatermarkMillis.set(((Number) checkpoint.get("updatedWatermarkMillis")).longValue());
+            for (Map.Entry<String, List<Object>> entry : ((Map<String, List<Object>>) checkpoint.get("complaints")).entrySet()) {
+                List<Object> value = entry.getValue();
+                complaints.put(entry.getKey(), new Tracked((String) value.get(0), ((Number) value.get(1)).longValue(), ((Number) value.get(2)).longValue()));
+            }
+            List<Map<String, Number>> countValues = (List<Map<String, Number>>) checkpoint.get("counts");
+            for (int d = 0; d < DIMENSIONS.length; d++) {
+                for (Map.Entry<String, Number> count : countValues.get(d).entrySet()) {
+                    counter(d, count.getKey()).add(count.getValue().longValue());
+                }
+            }
+            List<Number> buckets = (List<Number>) checkpoint.get("resolutionBuckets");
+            for (int b = 0; b < RESOLUTION_BUCKETS; b++) {
+                resolutionBuckets[b].add(buckets.get(b).longValue());
+            }
+            resolvedCount.add(((Number) checkpoint.get("resolvedCount")).longValue());
+            resolutionMillis.add(((Number) checkpoint.get("resolutionMillis")).longValue());
+            for (Map.Entry<String, List<Number>> day : ((Map<String, List<Number>>) checkpoint.get("daily")).entrySet()) {
+                Rollup rollup = daily.computeIfAbsent(Long.parseLong(day.getKey()), d -> new Rollup());
+                rollup.created.add(day.getValue().get(0).longValue());
+                rollup.resolved.add(day.getValue().get(1).longValue());
+            }
+            checkpointedAtMillis = Files.getLastModifiedTime(path).toMillis();
+            return true;
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable checkpoint {}: {}", path, e.getMessage());
+            clear();
+            return false;
+        }
+    }
+
+    private void clear() {
+        complaints.clear();
+        for (Map<String, LongAdder> dimension : counts) {
+            dimension.clear();
+        }
+        for (LongAdder bucket : resolutionBuckets) {
+            bucket.reset();
+        }
+        resolvedCount.reset();
+        resolutionMillis.reset();
+        daily.clear();
+        watermarkMillis.set(Long.MIN_VALUE);
+        updatedWatermarkMillis.set(Long.MIN_VALUE);
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> dimension) {
+        Map<String, Long> values = new HashMap<>();
+        for (Map.Entry<String, LongAdder> count : dimension.entrySet()) {
+            values.put(count.getKey(), count.getValue().sum());
+        }
+        return values;
+    }
+
+    // Same defaults the list endpoints fill in, so the dashboard numbers line up with what it shows
+    private static String valueOf(Map<String, Object> data, int dimension) {
+        Object value = data.get(DIMENSIONS[dimension]);
+        return value == null ? DEFAULTS[dimension] : value.toString();
+    }
+
+    private static long resolutionTime(Map<String, Object> data) {
+        long resolvedAt = millis(data.get("resolvedAt"));
+        return resolvedAt != Long.MIN_VALUE ? resolvedAt : millis(data.get("updatedAt"));
+    }
+
+    private static long millis(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toDate().getTime();
+        }
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private record Tracked(String status, long createdAtMillis, long resolvedAtMillis) {}
+
+    private static final class Rollup {
+        final LongAdder created = new LongAdder();
+        final LongAdder resolved = new LongAdder();
+    }
+}
@@ -0,0 +1,341 @@
+package com.complainhub.service;
+
+import com.complainhub.model.Complaint;
+import com.complainhub.repository.ComplaintRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans {@link ComplaintEvent} deltas out to Server-Sent Events clients. Each event is serialized once
+ * and kept in a replay ring so reconnecting clients can resume from Last-Event-ID. Idle clients hold
+ * no thread; a small pool drains each client's bounded queue, and a client whose queue overflows is
+ * disconnected rather than allowed to slow everyone else down.
+ */
+@Component
+public class ComplaintStreamHub {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintStreamHub.class);
+    private static final String RESET_EVENT = "reset";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ComplaintView complaintView;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Value("${complainhub.stream.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${complainhub.stream.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${complainhub.stream.replay-size:4096}")
+    private int replaySize;
+
+    @Value("${complainhub.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${complainhub.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${complainhub.stream.sender-threads:4}")
+    private int senderThreads;
+
+    // Event ids are "<boot>-<sequence>" so ids from before a restart are recognised as unresumable
+    private final String boot = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private Frame[] replay;
+
+    private final Set<Client> broadcastClients = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Client>> clientsByUid = new ConcurrentHashMap<>();
+    private final AtomicLong clientCount = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void start() {
+        replay = new Frame[replaySize];
+        senders = Executors.newFixedThreadPool(senderThreads, daemon("complaint-stream-sender"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("complaint-stream-heartbeat"));
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        for (Client client : clients()) {
+            client.close();
+        }
+    }
+
+    /**
+     * Opens a stream of every complaint change, or only those on complaints owned by {@code uid}.
+     * Returns empty when the hub is at capacity.
+     */
+    public Optional<SseEmitter> subscribe(String uid, String lastEventId) {
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Client client = new Client(emitter, uid, clientBuffer);
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(client::close);
+        emitter.onError(error -> client.close());
+
+        // Publishing holds the same lock, so every event lands exactly once: in the replay or live
+        synchronized (this) {
+            if (uid == null) {
+                broadcastClients.add(client);
+            } else {
+                clientsByUid.computeIfAbsent(uid, k -> ConcurrentHashMap.newKeySet()).add(client);
+            }
+            List<Frame> missed = lastEventId == null ? List.of() : missedSince(lastEventId);
+            if (missed == null || missed.size() > clientBuffer) {
+                client.offer(new Frame(null, RESET_EVENT, "{}", null));
+            } else {
+                for (Frame frame : missed) {
+                    if (uid == null || uid.equals(frame.uid)) {
+                        client.offer(frame);
+                    }
+                }
+            }
+        }
+        schedule(client);
+        return Optional.of(emitter);
+    }
+
+    @EventListener
+    public void onComplaintEvent(ComplaintEvent event) {
+        try {
+            String uid = ownerOf(event);
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("id", event.id());
+            delta.put("uid", uid);
+            switch (event.type()) {
+                case CREATED -> delta.put("complaint", Complaint.fromDocument(event.id(), event.fields(), false));
+                case STATUS_UPDATED -> {
+                    delta.put("status", event.fields().get("status"));
+                    delta.put("updatedAt", event.fields().get("updatedAt"));
+                    delta.put("update", event.entry());
+                }
+                case COMMENTED -> delta.put("comment", event.entry());
+            }
+            String data = objectMapper.writeValueAsString(delta);
+            String name = event.type().name().toLowerCase(Locale.ROOT);
+            // Fan-out only enqueues; sockets are written by the sender pool
+            synchronized (this) {
+                long seq = sequence.incrementAndGet();
+                Frame frame = new Frame(boot + "-" + seq, name, data, uid);
+                replay[(int) (seq % replay.length)] = frame;
+                for (Client client : broadcastClients) {
+                    deliver(client, frame);
+                }
+                Set<Client> owners = uid == null ? null : clientsByUid.get(uid);
+                if (owners != null) {
+                    for (Client client : owners) {
+                        deliver(client, frame);
+                    }
+                }
+            }
+            published.increment();
+        } catch (Exception e) {
+            log.warn("Could not publish {} for {}: {}", event.type(), event.id(), e.getMessage());
+        }
+    }
+
+    private String ownerOf(ComplaintEvent event) throws Exception {
+        if (event.type() == ComplaintEvent.Type.CREATED) {
+            Object uid = event.fields().get("uid");
+            return uid == null ? null : uid.toString();
+        }
+        Optional<String> known = complaintView.ownerOf(event.id());
+        if (known.isPresent() || clientsByUid.isEmpty()) {
+            return known.orElse(null);
+        }
+        Object uid = complaintRepository.findById(event.id()).map(data -> data.get("uid")).orElse(null);
+        return uid == null ? null : uid.toString();
+    }
+
+    // Frames after lastEventId still in the ring; null when the id is from another boot or already overwritten
+    private List<Frame> missedSince(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !boot.equals(lastEventId.substring(0, dash))) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long current = sequence.get();
+        if (last > current) {
+            return null;
+        }
+        if (current - last > replay.length) {
+            return null;
+        }
+        List<Frame> missed = new ArrayList<>((int) (current - last));
+        for (long seq = last + 1; seq <= current; seq++) {
+            missed.add(replay[(int) (seq % replay.length)]);
+        }
+        return missed;
+    }
+
+    private void deliver(Client client, Frame frame) {
+        if (client.offer(frame)) {
+            schedule(client);
+        } else {
+            dropped.increment();
+            log.warn("Dropping slow client{}", client.uid == null ? "" : " for " + client.uid);
+            client.close();
+        }
+    }
+
+    private void schedule(Client client) {
+        if (client.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                client.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Frame frame;
+            while ((frame = client.queue.poll()) != null) {
+                SseEmitter.SseEventBuilder event = SseEmitter.event();
+                if (frame.comment != null) {
+                    event.comment(frame.comment);
+                } else {
+                    if (frame.id != null) {
+                        event.id(frame.id);
+                    }
+                    event.name(frame.name).data(frame.data, MediaType.APPLICATION_JSON);
+                }
+                client.emitter.send(event);
+                delivered.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            client.close();
+        } finally {
+            client.scheduled.set(false);
+        }
+        if (!client.queue.isEmpty() && client.open.get()) {
+            schedule(client);
+        }
+    }
+
+    private void sendHeartbeats() {
+        Frame ping = new Frame(null, null, null, null, "keepalive");
+        for (Client client : clients()) {
+            deliver(client, ping);
+        }
+    }
+
+    private List<Client> clients() {
+        List<Client> clients = new ArrayList<>(broadcastClients);
+        for (Set<Client> owners : clientsByUid.values()) {
+            clients.addAll(owners);
+        }
+        return clients;
+    }
+
+    private void remove(Client client) {
+        client.open.set(false);
+        boolean removed;
+        if (client.uid == null) {
+            removed = broadcastClients.remove(client);
+        } else {
+            Set<Client> owners = clientsByUid.get(client.uid);
+            removed = owners != null && owners.remove(client);
+            if (owners != null && owners.isEmpty()) {
+                clientsByUid.remove(client.uid, owners);
+            }
+        }
+        if (removed) {
+            clientCount.decrementAndGet();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("clients", clientCount.get());
+        stats.put("userClients", clientsByUid.size());
+        stats.put("maxClients", maxClients);
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("droppedClients", dropped.sum());
+        stats.put("lastEventId", boot + "-" + sequence.get());
+        return stats;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Frame(String id, String name, String data, String uid, String comment) {
+        Frame(String id, String name, String data, String uid) {
+            this(id, name, data, uid, null);
+        }
+    }
+
+    private final class Client {
+        final SseEmitter emitter;
+        final String uid;
+        final BlockingQueue<Frame> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean open = new AtomicBoolean(true);
+
+        Client(SseEmitter emitter, String uid, int capacity) {
+            this.emitter = emitter;
+            this.uid = uid;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        boolean offer(Frame frame) {
+            return open.get() && queue.offer(frame);
+        }
+
+        void close() {
+            if (open.compareAndSet(true, false)) {
+                remove(this);
+                queue.clear();
+                try {
+                    emitter.complete();
+                } catch (RuntimeException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.complainhub.service;
+
+import com.complainhub.model.Complaint;
+import com.complainhub.repository.ComplaintChangeListener;
+import com.complainhub.repository.ComplaintRepository;
+import com.google.cloud.Timestamp;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process read model of the complaints collection, bootstrapped and kept current through
+ * {@link ComplaintRepository#watch} (a snapshot listener on Firestore). Resolved complaints past the
+ * retention window, or beyond max-cached-bodies, keep only their index keys; their bodies are fetched
+ * again on demand. Every complaint keeps at least its keys, so the view answers queries completely; past
+ * max-complaints it turns itself off instead. Reads return empty while the change feed is disconnected
+ * or the view is off, so callers fall back to the repository.
+ */
+@Component
+public class ComplaintView implements ComplaintChangeListener {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintView.class);
+    private static final Set<String> RESOLVED_STATUSES = Set.of("resolved", "rejected", "closed");
+    private static final long EVICTION_INTERVAL_MILLIS = 60_000;
+    private static final long RECONNECT_DELAY_SECONDS = 5;
+    private static final Comparator<Entry> SETTLED_ORDER =
+            Comparator.comparingLong((Entry e) -> e.settledAtMillis).thenComparing(e -> e.id);
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Value("${complainhub.view.enabled:true}")
+    private boolean enabled;
+
+    // Target for cached bodies only; open complaints and index keys are never dropped (max-entries is the old name)
+    @Value("${complainhub.view.max-cached-bodies:${complainhub.view.max-entries:50000}}")
+    private int maxCachedBodies;
+
+    // Hard bound on the whole view; over it the view stops and clears until the next restart
+    @Value("${complainhub.view.max-complaints:500000}")
+    private int maxComplaints;
+
+    @Value("${complainhub.view.resolved-retention-hours:720}")
+    private long resolvedRetentionHours;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byUid = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byDepartment = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byPriority = new ConcurrentHashMap<>();
+    // Settled complaints whose bodies are cached, oldest first; only touched under the view's lock
+    private final NavigableSet<Entry> settledBodies = new TreeSet<>(SETTLED_ORDER);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictedLoads = new LongAdder();
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-view-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ComplaintRepository.Subscription subscription;
+    private volatile boolean connected;
+    private volatile boolean overflowed;
+    private volatile long lastEventMillis;
+    private volatile long lastEvictionMillis;
+    private int bodies;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            listen();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconnector.shutdownNow();
+        ComplaintRepository.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void listen() {
+        if (overflowed) {
+            return;
+        }
+        try {
+            subscription = complaintRepository.watch(this);
+            if (overflowed) {
+                // The initial delivery was already over the bound
+                cancelSubscription();
+            }
+        } catch (Exception e) {
+            log.warn("Could not watch complaints, retrying in {} s: {}", RECONNECT_DELAY_SECONDS, e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (!reconnector.isShutdown()) {
+            reconnector.schedule(this::listen, RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void cancelSubscription() {
+        ComplaintRepository.Subscription current = subscription;
+        subscription = null;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    @Override
+    public synchronized void onChanges(boolean reset, List<Change> changes) {
+        if (overflowed) {
+            return;
+        }
+        if (reset) {
+            // A (re)connect delivers the whole collection; drop anything deleted while we were away
+            clear();
+        }
+        for (Change change : changes) {
+            if (change.removed()) {
+                remove(change.id());
+            } else {
+                put(change.id(), change.data());
+            }
+        }
+        lastEventMillis = System.currentTimeMillis();
+        if (entries.size() > maxComplaints) {
+            overflow();
+            return;
+        }
+        connected = true;
+        evictIfNeeded();
+    }
+
+    private void overflow() {
+        log.warn("{} complaints is over complainhub.view.max-complaints ({}); the view is off until restart and reads go to the repository",
+                entries.size(), maxComplaints);
+        overflowed = true;
+        connected = false;
+        clear();
+        cancelSubscription();
+    }
+
+    @Override
+    public synchronized void onError(Exception error) {
+        connected = false;
+        log.warn("Change feed failed, serving from the repository: {}", error.getMessage());
+        // Null when the feed fails before watch() has returned; the dead subscription then needs no cancel
+        cancelSubscription();
+        scheduleReconnect();
+    }
+
+    private void put(String id, Map<String, Object> data) {
+        remove(id);
+        Map<String, Object> body = new HashMap<>(data);
+        body.remove("id");
+        Entry entry = new Entry(id, Collections.unmodifiableMap(body), asString(data.get("uid")),
+                asString(data.get("status")), asString(data.get("category")), asString(data.get("department")),
+                asString(data.get("priority")), settledAtMillis(data));
+        entries.put(id, entry);
+        bodies++;
+        if (entry.isSettled()) {
+            settledBodies.add(entry);
+        }
+        index(byUid, entry.uid, id);
+        index(byStatus, entry.status, id);
+        index(byDepartment, entry.department, id);
+        index(byPriority, entry.priority, id);
+    }
+
+    private void remove(String id) {
+        Entry old = entries.remove(id);
+        if (old == null) {
+            return;
+        }
+        if (old.data != null) {
+            bodies--;
+            settledBodies.remove(old);
+        }
+        unindex(byUid, old.uid, id);
+        unindex(byStatus, old.status, id);
+        unindex(byDepartment, old.department, id);
+        unindex(byPriority, old.priority, id);
+    }
+
+    private void clear() {
+        entries.clear();
+        byUid.clear();
+        byStatus.clear();
+        byDepartment.clear();
+        byPriority.clear();
+        settledBodies.clear();
+        bodies = 0;
+    }
+
+    // Drops the bodies of settled complaints, oldest first, once they pass retention or the view is over its body target
+    private void evictIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (bodies <= maxCachedBodies && now - lastEvictionMillis < EVICTION_INTERVAL_MILLIS) {
+            return;
+        }
+        lastEvictionMillis = now;
+        long cutoff = now - TimeUnit.HOURS.toMillis(resolvedRetentionHours);
+        // Stops at the first body to keep, so a view over its target with few settled complaints costs one look
+        while (!settledBodies.isEmpty()) {
+            Entry oldest = settledBodies.first();
+            if (oldest.settledAtMillis >= cutoff && bodies <= maxCachedBodies) {
+                break;
+            }
+            settledBodies.pollFirst();
+            entries.put(oldest.id, oldest.withoutData());
+            bodies--;
+        }
+    }
+
+    public boolean isServing() {
+        return enabled && connected && !overflowed;
+    }
+
+    /** Complaints matching every non-empty filter (status, category, department, priority). */
+    public Optional<List<Complaint>> findAll(Map<String, String> filters, boolean includeHistory) {
+        if (!isServing()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        Collection<String> candidates = entries.keySet();
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            Map<String, Set<String>> index = indexFor(filter.getKey());
+            if (index != null && filter.getValue() != null && !filter.getValue().isEmpty()) {
+                Set<String> ids = index.getOrDefault(filter.getValue(), Collections.emptySet());
+                if (ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+        }
+        List<Complaint> result = load(candidates, filters, includeHistory);
+        hits.increment();
+        return Optional.of(result);
+    }
+
+    /** Same rows as {@code whereEqualTo("uid", uid)}, with their comments and updates. */
+    public Optional<List<Complaint>> findByUser(String uid) {
+        if (!isServing()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        List<Complaint> result = load(byUid.getOrDefault(uid, Collections.emptySet()), Collections.emptyMap(), true);
+        hits.increment();
+        return Optional.of(result);
+    }
+
+    /** The complaint's "uid", when the view is serving and holds it (evicted entries keep their keys). */
+    public Optional<String> ownerOf(String id) {
+        Entry entry = isServing() ? entries.get(id) : null;
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.uid);
+    }
+
+    // Maps cached bodies directly without copying them; evicted bodies whose keys match the filters are fetched in one batched read
+    private List<Complaint> load(Collection<String> ids, Map<String, String> filters, boolean includeHistory) {
+        List<Complaint> result = new ArrayList<>(ids.size());
+        List<String> evicted = new ArrayList<>();
+        for (String id : ids) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.data == null) {
+                if (entry.matches(filters)) {
+                    evicted.add(id);
+                }
+                continue;
+            }
+            if (matches(entry.data, filters)) {
+                result.add(Complaint.fromDocument(entry.id, entry.data, includeHistory));
+            }
+        }
+        if (!evicted.isEmpty()) {
+            evictedLoads.add(evicted.size());
+            try {
+                for (Map<String, Object> data : complaintRepository.findByIds(evicted)) {
+                    if (matches(data, filters)) {
+                        result.add(Complaint.fromDocument((String) data.get("id"), data, includeHistory));
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Error loading evicted complaints: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("connected", connected);
+        stats.put("complaints", entries.size());
+        stats.put("cachedBodies", bodies);
+        stats.put("overflowed", overflowed);
+        stats.put("evictedBodyLoads", evictedLoads.sum());
+        stats.put("millisSinceLastEvent", lastEventMillis == 0 ? null : System.currentTimeMillis() - lastEventMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private Map<String, Set<String>> indexFor(String field) {
+        switch (field) {
+            case "status": return byStatus;
+            case "department": return byDepartment;
+            case "priority": return byPriority;
+            default: return null;
+        }
+    }
+
+    private static boolean matches(Map<String, Object> data, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            String expected = filter.getValue();
+            if (expected != null && !expected.isEmpty() && !expected.equals(data.get(filter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void index(Map<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            Set<String> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static long settledAtMillis(Map<String, Object> data) {
+        Object value = data.containsKey("resolvedAt") && data.get("resolvedAt") != null ? data.get("resolvedAt") : data.get("updatedAt");
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toDate().getTime();
+        }
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        return 0;
+    }
+
+    private record Entry(String id, Map<String, Object> data, String uid, String status, String category,
+                         String department, String priority, long settledAtMillis) {
+        Entry withoutData() {
+            return new Entry(id, null, uid, status, category, department, priority, settledAtMillis);
+        }
+
+        boolean isSettled() {
+            return RESOLVED_STATUSES.contains(status);
+        }
+
+        // Checked on the kept keys, so an evicted body is only fetched when it can be returned; other fields are left to the body
+        boolean matches(Map<String, String> filters) {
+            for (Map.Entry<String, String> filter : filters.entrySet()) {
+                String expected = filter.getValue();
+                if (expected == null || expected.isEmpty()) {
+                    continue;
+                }
+                switch (filter.getKey()) {
+                    case "status": if (!expected.equals(status)) return false; break;
+                    case "category": if (!expected.equals(category)) return false; break;
+                    case "department": if (!expected.equals(department)) return false; break;
+                    case "priority": if (!expected.equals(priority)) return false; break;
+                    default: break;
+                }
+            }
+            return true;
+        }
+    }
+}
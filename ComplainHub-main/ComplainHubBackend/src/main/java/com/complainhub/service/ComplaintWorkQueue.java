@@ -0,0 +1,628 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open complaints in the order admins should work on them, kept in memory and updated from
+ * {@link ComplaintEvent}s. Order is escalation level, then priority, then SLA deadline (createdAt plus
+ * the priority's SLA, capped by the department's), earliest first. Complaints stored without a priority
+ * are ranked by the {@link PriorityClassifier}, off the event thread, and re-sorted once it answers. A complaint that
+ * passes its deadline is escalated one level, and again every escalation step, up to the max level.
+ *
+ * <p>Entries live in three indexed binary heaps at once: unclaimed entries in work order, entries by
+ * their next escalation time and claimed entries by lease expiry. Each entry knows its position in
+ * every heap, so a claim, release, status change or escalation costs O(log n), and the escalation
+ * task only pops heap tops that are due instead of rescanning the collection. Claims are leases: an
+ * admin holds a complaint until releasing it or the lease runs out, when it goes back to the queue.
+ *
+ * <p>The queue is single-instance only. Claims and leases exist only in this instance's memory: they
+ * are not stored with the complaint, another instance cannot see them, and a restart drops them. With
+ * more than one backend instance, enable the queue on one of them and send /api/complaint/queue there.
+ */
+@Component
+public class ComplaintWorkQueue {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintWorkQueue.class);
+    private static final Set<String> CLOSED_STATUSES = Set.of("resolved", "rejected", "closed");
+    private static final List<String> TRACKED_FIELDS = List.of("status", "priority", "department", "createdAt", "title", "description");
+    private static final int CLASSIFY_BATCH = 1000;
+    private static final int AVAILABLE = 0;
+    private static final int ESCALATION = 1;
+    private static final int LEASE = 2;
+    private static final Comparator<Entry> WORK_ORDER = Comparator.<Entry>comparingInt(e -> -e.level)
+            .thenComparingInt(e -> -e.priorityRank)
+            .thenComparingLong(e -> e.dueAt)
+            .thenComparing(e -> e.id);
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private PriorityClassifier priorityClassifier;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${complainhub.queue.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.queue.sla.high-hours:24}")
+    private long highSlaHours;
+
+    @Value("${complainhub.queue.sla.medium-hours:72}")
+    private long mediumSlaHours;
+
+    @Value("${complainhub.queue.sla.low-hours:168}")
+    private long lowSlaHours;
+
+    // department:hours pairs, e.g. "hostel:24,academic:48"
+    @Value("${complainhub.queue.sla.department-hours:}")
+    private String departmentSlaHours;
+
+    @Value("${complainhub.queue.escalation-step-hours:24}")
+    private long escalationStepHours;
+
+    @Value("${complainhub.queue.max-escalation-level:3}")
+    private int maxLevel;
+
+    @Value("${complainhub.queue.lease-seconds:900}")
+    private long defaultLeaseSeconds;
+
+    @Value("${complainhub.queue.max-lease-seconds:3600}")
+    private long maxLeaseSeconds;
+
+    @Value("${complainhub.queue.tick-seconds:5}")
+    private long tickSeconds;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final IndexedHeap available = new IndexedHeap(AVAILABLE, WORK_ORDER);
+    private final IndexedHeap escalations = new IndexedHeap(ESCALATION, Comparator.comparingLong(e -> e.nextEscalationAt));
+    private final IndexedHeap leases = new IndexedHeap(LEASE, Comparator.comparingLong(e -> e.leaseExpiresAt));
+    private final Map<String, Long> departmentSlaMillis = new HashMap<>();
+    private long[] prioritySlaMillis;
+    private long escalationStepMillis;
+    private int[] levelCounts;
+
+    private List<ComplaintEvent> pending = new ArrayList<>();
+    private volatile boolean ready;
+    private Counter escalated;
+    private Counter expiredLeases;
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "complaint-work-queue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        prioritySlaMillis = new long[] {TimeUnit.HOURS.toMillis(lowSlaHours), TimeUnit.HOURS.toMillis(mediumSlaHours), TimeUnit.HOURS.toMillis(highSlaHours)};
+        escalationStepMillis = Math.max(1, TimeUnit.HOURS.toMillis(escalationStepHours));
+        levelCounts = new int[maxLevel + 1];
+        for (String pair : departmentSlaHours.split(",")) {
+            int colon = pair.indexOf(':');
+            if (colon > 0) {
+                departmentSlaMillis.put(pair.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        TimeUnit.HOURS.toMillis(Long.parseLong(pair.substring(colon + 1).trim())));
+            }
+        }
+        escalated = Counter.builder("complainhub.queue.escalations").register(meterRegistry);
+        expiredLeases = Counter.builder("complainhub.queue.expired-leases").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        background.execute(this::load);
+        background.scheduleWithFixedDelay(() -> tick(System.currentTimeMillis()), tickSeconds, tickSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener
+    public void onComplaintEvent(ComplaintEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (!ready) {
+                pending.add(event);
+                return;
+            }
+            apply(event, System.currentTimeMillis());
+        }
+    }
+
+    /** Up to {@code limit} unclaimed complaints in work order, optionally only one department's. */
+    public synchronized List<Slot> top(int limit, String department) {
+        List<Slot> result = new ArrayList<>();
+        for (Entry entry : best(limit, department)) {
+            result.add(entry.slot());
+        }
+        return result;
+    }
+
+    /** Leases up to {@code count} of the first unclaimed complaints to {@code admin}; {@code leaseSeconds <= 0} takes the default. */
+    public synchronized List<Slot> claim(String admin, int count, long leaseSeconds, String department, long now) {
+        long leaseMillis = leaseMillis(leaseSeconds);
+        List<Slot> claimed = new ArrayList<>();
+        for (Entry entry : best(count, department)) {
+            available.remove(entry);
+            entry.claimedBy = admin;
+            entry.leaseExpiresAt = now + leaseMillis;
+            leases.add(entry);
+            claimed.add(entry.slot());
+        }
+        return claimed;
+    }
+
+    /** Extends {@code admin}'s lease on a complaint from now. */
+    public synchronized Slot renew(String id, String admin, long leaseSeconds, long now) {
+        Entry entry = claimedBy(id, admin);
+        entry.leaseExpiresAt = now + leaseMillis(leaseSeconds);
+        leases.changed(entry);
+        return entry.slot();
+    }
+
+    /** Hands a claimed complaint back to the queue. */
+    public synchronized Slot release(String id, String admin) {
+        Entry entry = claimedBy(id, admin);
+        unclaim(entry);
+        return entry.slot();
+    }
+
+    /** Applies due escalations and lease expiries; runs every tick-seconds. */
+    synchronized void tick(long now) {
+        if (!ready) {
+            return;
+        }
+        int escalatedNow = escalate(now);
+        int expiredNow = expireLeases(now);
+        if (escalatedNow > 0) {
+            log.info("Escalated {} complaints past their SLA", escalatedNow);
+        }
+        if (expiredNow > 0) {
+            log.info("{} expired claims returned to the queue", expiredNow);
+        }
+    }
+
+    // Pops only the escalations that are due; each is a sift in the escalation heap and, if unclaimed, the work heap
+    synchronized int escalate(long now) {
+        int count = 0;
+        Entry next;
+        while ((next = escalations.peek()) != null && next.nextEscalationAt <= now) {
+            levelCounts[next.level]--;
+            next.level++;
+            levelCounts[next.level]++;
+            if (next.level >= maxLevel) {
+                escalations.remove(next);
+            } else {
+                next.nextEscalationAt += escalationStepMillis;
+                escalations.changed(next);
+            }
+            if (next.claimedBy == null) {
+                available.changed(next);
+            }
+            count++;
+        }
+        escalated.increment(count);
+        return count;
+    }
+
+    synchronized int expireLeases(long now) {
+        int count = 0;
+        Entry next;
+        while ((next = leases.peek()) != null && next.leaseExpiresAt <= now) {
+            unclaim(next);
+            count++;
+        }
+        expiredLeases.increment(count);
+        return count;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("open", entries.size());
+        stats.put("available", available.size());
+        stats.put("claimed", leases.size());
+        List<Integer> byLevel = new ArrayList<>();
+        for (int count : levelCounts) {
+            byLevel.add(count);
+        }
+        stats.put("byEscalationLevel", byLevel);
+        stats.put("escalations", (long) escalated.count());
+        stats.put("expiredLeases", (long) expiredLeases.count());
+        return stats;
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        try {
+            List<Map<String, Object>> documents = complaintRepository.findAll(new ComplaintQuery(Collections.emptyMap(), TRACKED_FIELDS));
+            Map<String, Integer> classified = classifyUnprioritized(documents);
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                for (Map<String, Object> document : documents) {
+                    String id = (String) document.get("id");
+                    track(id, document, classified.get(id), now);
+                }
+                for (ComplaintEvent event : pending) {
+                    apply(event, now);
+                }
+                pending = null;
+                ready = true;
+            }
+            log.info("Ready with {} open complaints in {} ms", entries.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Could not load open complaints, retrying: {}", e.getMessage());
+            background.schedule(this::load, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    // A status change back to open (a reopened complaint) needs its document, read off the event thread
+    private void reload(String id) {
+        try {
+            Optional<Map<String, Object>> document = complaintRepository.findById(id);
+            if (document.isPresent()) {
+                Integer classified = classifyUnprioritized(List.of(document.get())).get(id);
+                synchronized (this) {
+                    track(id, document.get(), classified, System.currentTimeMillis());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not reload complaint {}: {}", id, e.getMessage());
+        }
+    }
+
+    // Classifies the open complaints that have no stored priority, in batches; a failed batch leaves them at low
+    private Map<String, Integer> classifyUnprioritized(List<Map<String, Object>> documents) {
+        List<String> ids = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (Map<String, Object> document : documents) {
+            if (document.get("priority") == null && !isClosed(document.get("status"))) {
+                ids.add((String) document.get("id"));
+                texts.add(text(document));
+            }
+        }
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CLASSIFY_BATCH) {
+            int to = Math.min(ids.size(), from + CLASSIFY_BATCH);
+            try {
+                List<Map<String, Object>> results = priorityClassifier.classifyAll(texts.subList(from, to));
+                for (int i = from; i < to; i++) {
+                    ranks.put(ids.get(i), priorityRank(results.get(i - from).get("priority")));
+                }
+            } catch (Exception e) {
+                log.warn("Could not classify {} complaints: {}", to - from, e.getMessage());
+            }
+        }
+        return ranks;
+    }
+
+    // A new complaint without a priority joins the queue as low and moves once the classifier has ranked it
+    private void classifyLater(String id, String text) {
+        int rank;
+        try {
+            rank = priorityRank(priorityClassifier.classify(text).get("priority"));
+        } catch (Exception e) {
+            log.warn("Could not classify complaint {}: {}", id, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return;
+            }
+            levelCounts[entry.level]--;
+            available.remove(entry);
+            escalations.remove(entry);
+            entry.priorityRank = rank;
+            entry.prioritySource = "classifier";
+            schedule(entry, System.currentTimeMillis());
+            if (entry.claimedBy == null) {
+                available.add(entry);
+            }
+        }
+    }
+
+    private void apply(ComplaintEvent event, long now) {
+        switch (event.type()) {
+            case CREATED -> {
+                track(event.id(), event.fields(), null, now);
+                if (event.fields().get("priority") == null && entries.containsKey(event.id())) {
+                    String text = text(event.fields());
+                    background.execute(() -> classifyLater(event.id(), text));
+                }
+            }
+            case STATUS_UPDATED -> {
+                Object status = event.fields().get("status");
+                if (status == null) {
+                    return;
+                }
+                if (isClosed(status)) {
+                    remove(event.id());
+                } else if (!entries.containsKey(event.id())) {
+                    background.execute(() -> reload(event.id()));
+                }
+            }
+            case COMMENTED -> {
+            }
+        }
+    }
+
+    // classifiedRank ranks a complaint stored without a priority; null leaves it at low
+    private void track(String id, Map<String, Object> data, Integer classifiedRank, long now) {
+        if (id == null || entries.containsKey(id) || isClosed(data.get("status"))) {
+            return;
+        }
+        String department = data.get("department") instanceof String value ? value : "";
+        Entry entry = new Entry(id, department, millis(data.get("createdAt"), now));
+        if (data.get("priority") != null) {
+            entry.priorityRank = priorityRank(data.get("priority"));
+            entry.prioritySource = "stored";
+        } else if (classifiedRank != null) {
+            entry.priorityRank = classifiedRank;
+            entry.prioritySource = "classifier";
+        }
+        entries.put(id, entry);
+        schedule(entry, now);
+        available.add(entry);
+    }
+
+    // Sets the deadline and the levels already earned (while the service was down, or before the priority
+    // was known), counts the level and queues the next escalation
+    private void schedule(Entry entry, long now) {
+        long sla = prioritySlaMillis[entry.priorityRank];
+        Long departmentSla = departmentSlaMillis.get(entry.department.toLowerCase(Locale.ROOT));
+        if (departmentSla != null) {
+            sla = Math.min(sla, departmentSla);
+        }
+        entry.dueAt = entry.createdAt + sla;
+        entry.level = now < entry.dueAt ? 0 : (int) Math.min(maxLevel, 1 + (now - entry.dueAt) / escalationStepMillis);
+        entry.nextEscalationAt = entry.dueAt + entry.level * escalationStepMillis;
+        levelCounts[entry.level]++;
+        if (entry.level < maxLevel) {
+            escalations.add(entry);
+        }
+    }
+
+    private void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        levelCounts[entry.level]--;
+        available.remove(entry);
+        escalations.remove(entry);
+        leases.remove(entry);
+    }
+
+    private void unclaim(Entry entry) {
+        leases.remove(entry);
+        entry.claimedBy = null;
+        entry.leaseExpiresAt = 0;
+        available.add(entry);
+    }
+
+    private Entry claimedBy(String id, String admin) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            throw new NoSuchElementException("Complaint " + id + " is not in the work queue");
+        }
+        if (!admin.equals(entry.claimedBy)) {
+            throw new IllegalStateException(entry.claimedBy == null ? "Complaint " + id + " is not claimed"
+                    : "Complaint " + id + " is claimed by " + entry.claimedBy);
+        }
+        return entry;
+    }
+
+    // Best-first walk down the work-order heap: a parent always precedes its children, so only the
+    // nodes next in line are ever looked at; O(k log k) without a department filter
+    private List<Entry> best(int limit, String department) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, available.size()));
+        if (available.size() == 0 || limit <= 0) {
+            return result;
+        }
+        boolean filtered = department != null && !department.isEmpty();
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> WORK_ORDER.compare(available.at(a), available.at(b)));
+        frontier.add(0);
+        while (!frontier.isEmpty() && result.size() < limit) {
+            int index = frontier.poll();
+            Entry entry = available.at(index);
+            if (!filtered || department.equalsIgnoreCase(entry.department)) {
+                result.add(entry);
+            }
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < available.size(); child++) {
+                frontier.add(child);
+            }
+        }
+        return result;
+    }
+
+    private long leaseMillis(long leaseSeconds) {
+        return TimeUnit.SECONDS.toMillis(leaseSeconds <= 0 ? defaultLeaseSeconds : Math.min(leaseSeconds, maxLeaseSeconds));
+    }
+
+    private static boolean isClosed(Object status) {
+        return status != null && CLOSED_STATUSES.contains(status.toString());
+    }
+
+    // What the classifier reads: the description, else the title
+    private static String text(Map<String, Object> data) {
+        Object description = data.get("description");
+        return description instanceof String value && !value.isBlank() ? value : String.valueOf(data.getOrDefault("title", ""));
+    }
+
+    private static int priorityRank(Object priority) {
+        String value = priority == null ? "" : priority.toString().toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "high" -> 2;
+            case "medium" -> 1;
+            default -> 0;
+        };
+    }
+
+    private static long millis(Object value, long fallback) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toDate().getTime();
+        }
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        return fallback;
+    }
+
+    /** A complaint's place in the queue as of the call. */
+    public record Slot(String id, String department, String priority, String prioritySource, long createdAt, long dueAt,
+                       int escalationLevel, String claimedBy, Long leaseExpiresAt) {}
+
+    private static final class Entry {
+        final String id;
+        final String department;
+        final long createdAt;
+        int priorityRank;
+        // "stored", "classifier", or "default" (low) while unclassified
+        String prioritySource = "default";
+        long dueAt;
+        int level;
+        long nextEscalationAt;
+        String claimedBy;
+        long leaseExpiresAt;
+        // Position in each heap, -1 when not in it
+        final int[] positions = {-1, -1, -1};
+
+        Entry(String id, String department, long createdAt) {
+            this.id = id;
+            this.department = department;
+            this.createdAt = createdAt;
+        }
+
+        Slot slot() {
+            String priority = priorityRank == 2 ? "High" : priorityRank == 1 ? "Medium" : "Low";
+            return new Slot(id, department, priority, prioritySource, createdAt, dueAt, level, claimedBy, claimedBy == null ? null : leaseExpiresAt);
+        }
+    }
+
+    /** Binary min-heap whose entries record their own index, so any entry can be removed or re-sifted in O(log n). */
+    private static final class IndexedHeap {
+        private final int slot;
+        private final Comparator<Entry> order;
+        private Entry[] heap = new Entry[64];
+        private int size;
+
+        IndexedHeap(int slot, Comparator<Entry> order) {
+            this.slot = slot;
+            this.order = order;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Entry peek() {
+            return size == 0 ? null : heap[0];
+        }
+
+        Entry at(int index) {
+            return heap[index];
+        }
+
+        void add(Entry entry) {
+            if (entry.positions[slot] >= 0) {
+                return;
+            }
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            place(entry, size++);
+            siftUp(entry.positions[slot]);
+        }
+
+        void remove(Entry entry) {
+            int index = entry.positions[slot];
+            if (index < 0) {
+                return;
+            }
+            entry.positions[slot] = -1;
+            Entry last = heap[--size];
+            heap[size] = null;
+            if (index < size) {
+                place(last, index);
+                siftDown(siftUp(index));
+            }
+        }
+
+        // After the entry's key changed in either direction
+        void changed(Entry entry) {
+            int index = entry.positions[slot];
+            if (index >= 0) {
+                siftDown(siftUp(index));
+            }
+        }
+
+        private int siftUp(int index) {
+            Entry entry = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (order.compare(entry, heap[parent]) >= 0) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(entry, index);
+            return index;
+        }
+
+        private void siftDown(int index) {
+            Entry entry = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0) {
+                    child++;
+                }
+                if (order.compare(heap[child], entry) >= 0) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(entry, index);
+        }
+
+        private void place(Entry entry, int index) {
+            heap[index] = entry;
+            entry.positions[slot] = index;
+        }
+    }
+}
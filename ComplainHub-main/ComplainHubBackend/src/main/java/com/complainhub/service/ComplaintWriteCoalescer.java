@@ -0,0 +1,180 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups new complaints arriving within max-wait-ms of each other into one
+ * {@link ComplaintRepository#createAll} commit, completing each caller's future with its own id.
+ * If a batch fails, its complaints are written one by one so a single bad document only fails its
+ * own request. The queue is bounded; a full queue rejects instead of blocking the caller. On shutdown
+ * every complaint not yet committed fails with {@link RejectedExecutionException}, as do later submits.
+ */
+@Component
+public class ComplaintWriteCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(ComplaintWriteCoalescer.class);
+
+    // Firestore's limit on writes per batch
+    private static final int MAX_BATCH_WRITES = 500;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Value("${complainhub.create-batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.create-batch.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${complainhub.create-batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${complainhub.create-batch.max-wait-ms:3}")
+    private long maxWaitMillis;
+
+    private BlockingQueue<Pending> queue;
+    private Thread worker;
+    private volatile boolean running = true;
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        maxBatchSize = Math.min(maxBatchSize, MAX_BATCH_WRITES);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (enabled) {
+            worker = new Thread(this::drainLoop, "complaint-write-coalescer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /** Completes with the new complaint's id once the batch holding it is committed. */
+    public CompletableFuture<String> submit(Map<String, Object> document) {
+        Pending pending = new Pending(document, new CompletableFuture<>());
+        if (!enabled) {
+            try {
+                pending.id.complete(complaintRepository.create(document));
+            } catch (Exception e) {
+                pending.id.completeExceptionally(e);
+            }
+        } else if (!running) {
+            pending.id.completeExceptionally(shutDown());
+        } else if (!queue.offer(pending)) {
+            pending.id.completeExceptionally(new RejectedExecutionException("Complaint write queue is full"));
+        } else if (!running && queue.remove(pending)) {
+            // stop() ran between the check and the offer, and the worker may already have drained the queue
+            pending.id.completeExceptionally(shutDown());
+        }
+        return pending.id;
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Whatever is still queued was never written
+        queue.drainTo(batch);
+        fail(batch);
+    }
+
+    private static void fail(List<Pending> batch) {
+        for (Pending pending : batch) {
+            pending.id.completeExceptionally(shutDown());
+        }
+    }
+
+    private static RejectedExecutionException shutDown() {
+        return new RejectedExecutionException("Complaint write queue is shut down");
+    }
+
+    private void commit(List<Pending> batch) {
+        List<Map<String, Object>> documents = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            documents.add(pending.document);
+        }
+        try {
+            List<String> ids = complaintRepository.createAll(documents);
+            commits.increment();
+            written.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).id.complete(ids.get(i));
+            }
+            return;
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).id.completeExceptionally(e);
+                return;
+            }
+            log.warn("Batch of {} failed, writing one by one: {}", batch.size(), e.getMessage());
+        }
+        fallbacks.increment();
+        for (Pending pending : batch) {
+            try {
+                pending.id.complete(complaintRepository.create(pending.document));
+            } catch (Exception e) {
+                pending.id.completeExceptionally(e);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long commitCount = commits.sum();
+        return Map.of(
+                "enabled", enabled,
+                "queued", queue.size(),
+                "commits", commitCount,
+                "written", written.sum(),
+                "fallbacks", fallbacks.sum(),
+                "avgBatchSize", commitCount == 0 ? 0.0 : (double) written.sum() / commitCount,
+                "maxBatchSize", maxBatchSize,
+                "maxWaitMs", maxWaitMillis);
+    }
+
+    private record Pending(Map<String, Object> document, CompletableFuture<String> id) {}
+}
@@ -0,0 +1,18 @@
+package com.complainhub.service;
+
+import com.complainhub.config.FirebaseConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "complainhub.auth.mode", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseIdTokenVerifier implements IdTokenVerifier {
+    @Autowired
+    private FirebaseConfig firebase;
+
+    @Override
+    public VerifiedToken verify(String idToken) throws Exception {
+        return new VerifiedToken(firebase.auth().verifyIdToken(idToken).getClaims());
+    }
+}
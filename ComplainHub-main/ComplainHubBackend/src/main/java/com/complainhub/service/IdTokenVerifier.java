@@ -0,0 +1,6 @@
+package com.complainhub.service;
+
+/** Verifies a Firebase ID token presented by the frontend and returns its claims. */
+public interface IdTokenVerifier {
+    VerifiedToken verify(String idToken) throws Exception;
+}
@@ -0,0 +1,75 @@
+package com.complainhub.service;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+
+/**
+ * Verifies RS256 ID tokens against a locally configured public key instead of Google's published
+ * certificates, with the same checks Firebase applies (signature, iss, aud, sub, iat, exp). For
+ * offline deployments, benchmarks and load tests; selected with complainhub.auth.mode=local.
+ */
+@Component
+@ConditionalOnProperty(name = "complainhub.auth.mode", havingValue = "local")
+public class LocalIdTokenVerifier implements IdTokenVerifier {
+    private static final long CLOCK_SKEW_SECONDS = 300;
+
+    @Value("${complainhub.auth.local.public-key}")
+    private String publicKeyLocation;
+
+    @Value("${complainhub.auth.local.issuer:https://securetoken.google.com/complainhub-local}")
+    private String issuer;
+
+    @Value("${complainhub.auth.local.audience:complainhub-local}")
+    private String audience;
+
+    private PublicKey publicKey;
+
+    @PostConstruct
+    public void init() throws Exception {
+        try (InputStream in = new DefaultResourceLoader().getResource(publicKeyLocation).getInputStream()) {
+            publicKey = parsePublicKey(new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Override
+    public VerifiedToken verify(String idToken) throws Exception {
+        JsonWebSignature jws = JsonWebSignature.parse(GsonFactory.getDefaultInstance(), idToken);
+        if (!"RS256".equals(jws.getHeader().getAlgorithm()) || !jws.verifySignature(publicKey)) {
+            throw new IllegalArgumentException("Invalid ID token signature");
+        }
+        JsonWebSignature.Payload payload = jws.getPayload();
+        long now = System.currentTimeMillis() / 1000;
+        if (!issuer.equals(payload.getIssuer()) || !payload.getAudienceAsList().contains(audience)) {
+            throw new IllegalArgumentException("ID token has the wrong issuer or audience");
+        }
+        if (payload.getSubject() == null || payload.getSubject().isEmpty()) {
+            throw new IllegalArgumentException("ID token has no subject");
+        }
+        if (payload.getExpirationTimeSeconds() == null || payload.getExpirationTimeSeconds() + CLOCK_SKEW_SECONDS < now
+                || payload.getIssuedAtTimeSeconds() == null || payload.getIssuedAtTimeSeconds() - CLOCK_SKEW_SECONDS > now) {
+            throw new IllegalArgumentException("ID token is expired or not yet valid");
+        }
+        return new VerifiedToken(new HashMap<>(payload));
+    }
+
+    /** Accepts a PEM "PUBLIC KEY" block or its bare base64 body. */
+    static PublicKey parsePublicKey(String pem) throws Exception {
+        String body = pem.replace("-----BEGIN PUBLIC KEY-----", "")
+                .replace("-----END PUBLIC KEY-----", "")
+                .replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(body)));
+    }
+}
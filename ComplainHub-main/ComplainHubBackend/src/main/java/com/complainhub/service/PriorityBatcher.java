@@ -0,0 +1,128 @@
+package com.complainhub.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent single classification requests into one {@link PriorityClassifier#classifyAll}
+ * call. Requests wait in a bounded queue; a full queue rejects instead of blocking the caller. On
+ * shutdown every request not yet classified fails with {@link RejectedExecutionException}, as do later submits.
+ */
+@Component
+public class PriorityBatcher {
+    @Autowired
+    private PriorityClassifier priorityClassifier;
+
+    @Value("${complainhub.classifier.batch.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${complainhub.classifier.batch.max-size:256}")
+    private int maxBatchSize;
+
+    @Value("${complainhub.classifier.batch.max-wait-ms:2}")
+    private long maxWaitMillis;
+
+    private BlockingQueue<Pending> queue;
+    private Thread worker;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        worker = new Thread(this::drainLoop, "priority-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    public CompletableFuture<Map<String, Object>> submit(String complaintText) {
+        Pending pending = new Pending(complaintText, new CompletableFuture<>());
+        if (!running) {
+            pending.result.completeExceptionally(shutDown());
+        } else if (!queue.offer(pending)) {
+            pending.result.completeExceptionally(new RejectedExecutionException("Classification queue is full"));
+        } else if (!running && queue.remove(pending)) {
+            // stop() ran between the check and the offer, and the worker may already have drained the queue
+            pending.result.completeExceptionally(shutDown());
+        }
+        return pending.result;
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                // The in-process model is cheaper than any wait; only hold the window open for the HTTP hop
+                if (!priorityClassifier.isLocal()) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                    while (batch.size() < maxBatchSize) {
+                        Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Whatever is still queued was never classified
+        queue.drainTo(batch);
+        fail(batch);
+    }
+
+    private static void fail(List<Pending> batch) {
+        for (Pending pending : batch) {
+            pending.result.completeExceptionally(shutDown());
+        }
+    }
+
+    private static RejectedExecutionException shutDown() {
+        return new RejectedExecutionException("Classification queue is shut down");
+    }
+
+    private void dispatch(List<Pending> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            texts.add(pending.text);
+        }
+        try {
+            List<Map<String, Object>> results = priorityClassifier.classifyAll(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private record Pending(String text, CompletableFuture<Map<String, Object>> result) {}
+}
@@ -0,0 +1,134 @@
+package com.complainhub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complaint priority classification. In "local" mode (the default) the exported model is scored
+ * in-process; "remote" mode keeps the old behaviour of posting to complaint_priority_api.py.
+ */
+@Service
+public class PriorityClassifier {
+    private static final Logger log = LoggerFactory.getLogger(PriorityClassifier.class);
+
+    @Value("${complainhub.classifier.mode:local}")
+    private String mode;
+
+    @Value("${complainhub.classifier.model:classpath:complaint_priority_model.json}")
+    private String modelLocation;
+
+    @Value("${complainhub.classifier.remote-url:http://localhost:8000/predict_priority}")
+    private String remoteUrl;
+
+    @Value("${complainhub.classifier.remote-batch-url:http://localhost:8000/predict_priority_batch}")
+    private String remoteBatchUrl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private PriorityModel model;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private Timer classifyTimer;
+    private Timer classifyAllTimer;
+    private DistributionSummary batchSizes;
+    private Counter errors;
+
+    @PostConstruct
+    public void init() throws Exception {
+        String tagMode = isLocal() ? "local" : "remote";
+        classifyTimer = Timer.builder("complainhub.classifier").tag("mode", tagMode).tag("operation", "classify")
+                .publishPercentileHistogram().register(meterRegistry);
+        classifyAllTimer = Timer.builder("complainhub.classifier").tag("mode", tagMode).tag("operation", "classifyAll")
+                .publishPercentileHistogram().register(meterRegistry);
+        batchSizes = DistributionSummary.builder("complainhub.classifier.batch.size").tag("mode", tagMode)
+                .register(meterRegistry);
+        errors = Counter.builder("complainhub.classifier.errors").tag("mode", tagMode).register(meterRegistry);
+        if (!isLocal()) {
+            log.info("Using remote priority API at {}", remoteUrl);
+            return;
+        }
+        Resource resource = new DefaultResourceLoader().getResource(modelLocation);
+        try (InputStream in = resource.getInputStream()) {
+            model = PriorityModel.load(in);
+        }
+        log.info("Loaded priority model from {} ({} terms)", modelLocation, model.vocabularySize());
+    }
+
+    public boolean isLocal() {
+        return "local".equalsIgnoreCase(mode);
+    }
+
+    /** Returns the same body as the Python API: {"priority": ..., "source": "rule" | "ml"}. */
+    public Map<String, Object> classify(String complaintText) {
+        try {
+            return classifyTimer.record(() -> classifyOne(complaintText));
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        }
+    }
+
+    /** Classifies many texts in one model invocation; results are in input order. */
+    public List<Map<String, Object>> classifyAll(List<String> complaintTexts) {
+        batchSizes.record(complaintTexts.size());
+        try {
+            return classifyAllTimer.record(() -> classifyBatch(complaintTexts));
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        }
+    }
+
+    private Map<String, Object> classifyOne(String complaintText) {
+        if (isLocal()) {
+            return toResult(model.predict(complaintText));
+        }
+        Map<String, String> request = Collections.singletonMap("complaint", complaintText);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = restTemplate.postForObject(remoteUrl, request, Map.class);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> classifyBatch(List<String> complaintTexts) {
+        if (isLocal()) {
+            List<Map<String, Object>> results = new ArrayList<>(complaintTexts.size());
+            for (String text : complaintTexts) {
+                results.add(toResult(model.predict(text)));
+            }
+            return results;
+        }
+        Map<String, Object> request = Collections.singletonMap("complaints", complaintTexts);
+        Map<String, Object> response = restTemplate.postForObject(remoteBatchUrl, request, Map.class);
+        List<Map<String, Object>> results = response == null ? null : (List<Map<String, Object>>) response.get("results");
+        if (results == null || results.size() != complaintTexts.size()) {
+            throw new IllegalStateException("Priority API returned an incomplete batch");
+        }
+        return results;
+    }
+
+    private static Map<String, Object> toResult(PriorityModel.Prediction prediction) {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("priority", prediction.priority());
+        result.put("source", prediction.source());
+        return result;
+    }
+}
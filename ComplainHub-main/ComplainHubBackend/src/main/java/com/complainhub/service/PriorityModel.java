@@ -0,0 +1,199 @@
+package com.complainhub.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * In-JVM copy of the priority pipeline trained by train_complaint_priority_model.py:
+ * the academic phrase rules, the ordered KEYWORD_PRIORITY table and the
+ * TfidfVectorizer + MultinomialNB model, read from the portable JSON export.
+ */
+public final class PriorityModel {
+    public static final String FORMAT = "complainhub-priority-model/1";
+
+    private final String[] phrases;
+    private final String[] keywords;
+    private final String[] keywordPriorities;
+    private final String[] classes;
+    private final double[] classLogPrior;
+    private final double[] idf;
+    // featureLogProb laid out term-major: [term * classes.length + class]
+    private final double[] featureLogProb;
+    private final String[] vocabulary;
+    private final int[] slots;
+    private final int mask;
+
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[64]);
+
+    private PriorityModel(JsonNode root) {
+        String format = root.path("format").asText();
+        if (!FORMAT.equals(format)) {
+            throw new IllegalArgumentException("Unsupported priority model format: " + format);
+        }
+        JsonNode phraseNodes = root.path("phrases");
+        phrases = new String[phraseNodes.size()];
+        for (int i = 0; i < phrases.length; i++) {
+            phrases[i] = phraseNodes.get(i).asText();
+        }
+        JsonNode keywordNodes = root.path("keywords");
+        keywords = new String[keywordNodes.size()];
+        keywordPriorities = new String[keywordNodes.size()];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = keywordNodes.get(i).get(0).asText();
+            keywordPriorities[i] = keywordNodes.get(i).get(1).asText();
+        }
+        JsonNode classNodes = root.path("classes");
+        classes = new String[classNodes.size()];
+        classLogPrior = new double[classes.length];
+        for (int c = 0; c < classes.length; c++) {
+            classes[c] = classNodes.get(c).asText();
+            classLogPrior[c] = root.path("classLogPrior").get(c).asDouble();
+        }
+        JsonNode vocabularyNodes = root.path("vocabulary");
+        int terms = vocabularyNodes.size();
+        vocabulary = new String[terms];
+        idf = new double[terms];
+        featureLogProb = new double[terms * classes.length];
+        for (int t = 0; t < terms; t++) {
+            vocabulary[t] = vocabularyNodes.get(t).asText();
+            idf[t] = root.path("idf").get(t).asDouble();
+        }
+        for (int c = 0; c < classes.length; c++) {
+            JsonNode row = root.path("featureLogProb").get(c);
+            for (int t = 0; t < terms; t++) {
+                featureLogProb[t * classes.length + c] = row.get(t).asDouble();
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(terms, 1) * 2 + 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int t = 0; t < terms; t++) {
+            int slot = vocabulary[t].hashCode() & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = t + 1;
+        }
+    }
+
+    public static PriorityModel load(InputStream in) throws IOException {
+        return new PriorityModel(new ObjectMapper().readTree(in));
+    }
+
+    public int vocabularySize() {
+        return vocabulary.length;
+    }
+
+    /** Same contract as POST /predict_priority: rules first, then the naive Bayes model. */
+    public Prediction predict(String complaint) {
+        String text = complaint == null ? "" : complaint.toLowerCase(Locale.ROOT);
+        String rule = rulePriority(text);
+        if (rule != null) {
+            return new Prediction(rule, "rule");
+        }
+        return new Prediction(classes[bestClass(text)], "ml");
+    }
+
+    /** The naive Bayes label alone, skipping the rules: model.predict([complaint])[0] in the script. */
+    String modelPriority(String complaint) {
+        return classes[bestClass(complaint == null ? "" : complaint.toLowerCase(Locale.ROOT))];
+    }
+
+    private String rulePriority(String text) {
+        for (String phrase : phrases) {
+            if (text.contains(phrase)) {
+                return "High";
+            }
+        }
+        for (int i = 0; i < keywords.length; i++) {
+            if (text.contains(keywords[i])) {
+                return keywordPriorities[i];
+            }
+        }
+        return null;
+    }
+
+    private int bestClass(String text) {
+        int[] termIds = scratch.get();
+        int found = 0;
+        int length = text.length();
+        int i = 0;
+        // Tokens are maximal runs of word characters of length >= 2, as in (?u)\b\w\w+\b
+        while (i < length) {
+            while (i < length && !isWordChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            int hash = 0;
+            while (i < length && isWordChar(text.charAt(i))) {
+                hash = 31 * hash + text.charAt(i);
+                i++;
+            }
+            if (i - start >= 2) {
+                int term = lookup(text, start, i - start, hash);
+                if (term >= 0) {
+                    if (found == termIds.length) {
+                        termIds = Arrays.copyOf(termIds, found * 2);
+                        scratch.set(termIds);
+                    }
+                    termIds[found++] = term;
+                }
+            }
+        }
+        double[] jll = new double[classes.length];
+        double norm = 0;
+        Arrays.sort(termIds, 0, found);
+        for (int k = 0; k < found; ) {
+            int term = termIds[k];
+            int count = 0;
+            while (k < found && termIds[k] == term) {
+                count++;
+                k++;
+            }
+            double weight = count * idf[term];
+            norm += weight * weight;
+            int base = term * classes.length;
+            for (int c = 0; c < classes.length; c++) {
+                jll[c] += weight * featureLogProb[base + c];
+            }
+        }
+        // Rows are l2-normalised, so the dot product is scaled once at the end
+        double scale = norm == 0 ? 0 : 1.0 / Math.sqrt(norm);
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < classes.length; c++) {
+            double score = classLogPrior[c] + jll[c] * scale;
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private int lookup(String text, int start, int length, int hash) {
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            String term = vocabulary[entry - 1];
+            if (term.length() == length && term.regionMatches(0, text, start, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    public record Prediction(String priority, String source) {}
+}
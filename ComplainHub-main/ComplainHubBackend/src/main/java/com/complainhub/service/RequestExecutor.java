@@ -0,0 +1,73 @@
+package com.complainhub.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Hands controller work to a bounded pool of its own. The work still blocks on Firestore or Firebase
+ * Auth, only on a pool thread instead of a Tomcat one: this caps how many requests wait on storage at
+ * once, answers 503 when the pool and its queue are full, and keeps the servlet threads free for the
+ * endpoints that do not use it. It does not make the reads themselves asynchronous.
+ * With complainhub.async.enabled=false work runs inline on the request thread as before.
+ */
+@Component
+public class RequestExecutor {
+    @Value("${complainhub.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.async.pool-size:200}")
+    private int poolSize;
+
+    @Value("${complainhub.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadFactory() {
+                    private int count;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "request-" + (++count));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<ResponseEntity<?>> submit(Supplier<ResponseEntity<?>> work) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).body("Server is busy, try again shortly"));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.complainhub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per (endpoint, caller): each caller may burst up to {@code burst} requests to an
+ * endpoint, then gets {@code per-minute} more spread evenly over each minute. Buckets live in
+ * lock-striped maps so callers on different stripes never contend. A stripe that reaches its share of
+ * max-keys drops buckets that have refilled completely, which is the same as never having seen them; if
+ * none have, it forgets its least recently used bucket, so max-keys is a hard bound.
+ */
+@Component
+public class RequestRateLimiter {
+    public static final String CREATE_COMPLAINT = "complaint.create";
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${complainhub.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${complainhub.rate-limit.create.burst:10}")
+    private int createBurst;
+
+    @Value("${complainhub.rate-limit.create.per-minute:30}")
+    private int createPerMinute;
+
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @PostConstruct
+    public void init() {
+        limits.put(CREATE_COMPLAINT, new Limit(createBurst, createPerMinute / (double) TimeUnit.MINUTES.toNanos(1)));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes one token for {@code caller} on {@code endpoint}. Returns 0 when the request may proceed,
+     * otherwise the whole seconds until a token will be available (for Retry-After).
+     */
+    public long acquire(String endpoint, String caller) {
+        Limit limit = limits.get(endpoint);
+        if (!enabled || limit == null) {
+            return 0;
+        }
+        String key = endpoint + '\u0000' + caller;
+        Stripe stripe = stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+        long now = System.nanoTime();
+        double missing;
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                int capacity = Math.max(1, maxKeys / STRIPES);
+                if (stripe.buckets.size() >= capacity) {
+                    stripe.dropIdle(now);
+                    if (stripe.buckets.size() >= capacity) {
+                        stripe.dropLeastRecentlyUsed();
+                    }
+                }
+                bucket = new Bucket(limit, now);
+                stripe.buckets.put(key, bucket);
+            }
+            bucket.refill(now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            missing = 1 - bucket.tokens;
+        }
+        Counter.builder("complainhub.rate-limit.rejected").tag("endpoint", endpoint).register(meterRegistry).increment();
+        return Math.max(1, (long) Math.ceil(missing / limit.tokensPerNano / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private record Limit(int burst, double tokensPerNano) {}
+
+    private static final class Bucket {
+        final Limit limit;
+        double tokens;
+        long refilledAt;
+
+        Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.burst;
+            this.refilledAt = now;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(limit.burst, tokens + (now - refilledAt) * limit.tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+    private static final class Stripe {
+        // Access order, so the first entry is the least recently used
+        final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+        void dropIdle(long now) {
+            Iterator<Bucket> it = buckets.values().iterator();
+            while (it.hasNext()) {
+                Bucket bucket = it.next();
+                bucket.refill(now);
+                if (bucket.tokens >= bucket.limit.burst) {
+                    it.remove();
+                }
+            }
+        }
+
+        void dropLeastRecentlyUsed() {
+            Iterator<Bucket> it = buckets.values().iterator();
+            it.next();
+            it.remove();
+        }
+    }
+}
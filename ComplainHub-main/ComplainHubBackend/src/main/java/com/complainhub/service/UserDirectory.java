@@ -0,0 +1,143 @@
+package com.complainhub.service;
+
+import com.complainhub.config.FirebaseConfig;
+import com.complainhub.repository.UserRepository;
+import com.google.firebase.auth.ExportedUserRecord;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.ListUsersPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pages through Firebase Auth users joined with their users/{uid} profiles. Each page's profiles are
+ * read in one batched lookup, and as soon as an Auth page arrives the next one is requested, so a
+ * client following nextPageToken usually finds it already fetched. Work per request depends only on
+ * the page size, not on how many users exist.
+ */
+@Component
+public class UserDirectory {
+    // Firebase Auth returns at most 1000 users per page
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final List<String> PROFILE_FIELDS = List.of("name", "role", "department", "studentId", "status", "blockReason");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FirebaseConfig firebase;
+
+    @Value("${complainhub.users.directory.prefetch-ttl-seconds:120}")
+    private long prefetchTtlSeconds;
+
+    @Value("${complainhub.users.directory.max-prefetched:256}")
+    private int maxPrefetched;
+
+    private final Map<String, Prefetch> prefetched = new ConcurrentHashMap<>();
+    private Counter prefetchHits;
+    private Counter prefetchMisses;
+
+    @PostConstruct
+    public void registerMeters() {
+        prefetchHits = Counter.builder("complainhub.users.directory.prefetch").tag("result", "hit").register(meterRegistry);
+        prefetchMisses = Counter.builder("complainhub.users.directory.prefetch").tag("result", "miss").register(meterRegistry);
+    }
+
+    /** One page of users, each Auth record merged with its profile; {@code pageToken} null for the first page. */
+    public Page page(int pageSize, String pageToken) throws Exception {
+        FirebaseAuth auth = firebase.auth();
+        ListUsersPage page = authPage(auth, pageSize, pageToken).get();
+        if (page.hasNextPage()) {
+            prefetch(auth, pageSize, page.getNextPageToken());
+        }
+
+        List<ExportedUserRecord> records = new ArrayList<>();
+        for (ExportedUserRecord record : page.getValues()) {
+            records.add(record);
+        }
+        List<String> uids = new ArrayList<>(records.size());
+        for (ExportedUserRecord record : records) {
+            uids.add(record.getUid());
+        }
+        Map<String, Map<String, Object>> profiles = userRepository.findByIds(uids);
+
+        List<Map<String, Object>> users = new ArrayList<>(records.size());
+        for (ExportedUserRecord record : records) {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("uid", record.getUid());
+            user.put("email", record.getEmail());
+            user.put("displayName", record.getDisplayName());
+            user.put("phoneNumber", record.getPhoneNumber());
+            user.put("photoUrl", record.getPhotoUrl());
+            user.put("emailVerified", record.isEmailVerified());
+            user.put("disabled", record.isDisabled());
+            Map<String, Object> profile = profiles.get(record.getUid());
+            user.put("hasProfile", profile != null);
+            for (String field : PROFILE_FIELDS) {
+                user.put(field, profile == null ? null : profile.get(field));
+            }
+            users.add(user);
+        }
+        return new Page(users, page.hasNextPage() ? page.getNextPageToken() : null);
+    }
+
+    private CompletableFuture<ListUsersPage> authPage(FirebaseAuth auth, int pageSize, String pageToken) {
+        if (pageToken != null) {
+            // An expired page is dropped unused: users may have changed since it was fetched
+            Prefetch ready = prefetched.remove(key(pageSize, pageToken));
+            if (ready != null && !expired(ready, System.nanoTime())) {
+                prefetchHits.increment();
+                return ready.page;
+            }
+            prefetchMisses.increment();
+        }
+        return ApiFutureAdapter.toCompletableFuture(auth.listUsersAsync(pageToken, pageSize));
+    }
+
+    // Failed prefetches are simply dropped; the follow-up request then fetches the page itself
+    private void prefetch(FirebaseAuth auth, int pageSize, String pageToken) {
+        long now = System.nanoTime();
+        if (prefetched.size() >= maxPrefetched) {
+            prefetched.values().removeIf(p -> expired(p, now));
+            if (prefetched.size() >= maxPrefetched) {
+                return;
+            }
+        }
+        String key = key(pageSize, pageToken);
+        if (prefetched.containsKey(key)) {
+            return;
+        }
+        CompletableFuture<ListUsersPage> page = ApiFutureAdapter.toCompletableFuture(auth.listUsersAsync(pageToken, pageSize));
+        Prefetch prefetch = new Prefetch(page, now);
+        if (prefetched.putIfAbsent(key, prefetch) == null) {
+            page.whenComplete((done, error) -> {
+                if (error != null) {
+                    prefetched.remove(key, prefetch);
+                }
+            });
+        }
+    }
+
+    private boolean expired(Prefetch prefetch, long now) {
+        return now - prefetch.startedAt > TimeUnit.SECONDS.toNanos(prefetchTtlSeconds);
+    }
+
+    private static String key(int pageSize, String pageToken) {
+        return pageSize + ":" + pageToken;
+    }
+
+    public record Page(List<Map<String, Object>> users, String nextPageToken) {}
+
+    private record Prefetch(CompletableFuture<ListUsersPage> page, long startedAt) {}
+}
@@ -1,22 +1,61 @@
 package com.complainhub.service;
 
+import com.complainhub.config.FirebaseConfig;
+import com.complainhub.repository.UserRepository;
 import com.google.firebase.auth.*;
-import com.google.firebase.cloud.FirestoreClient;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.DocumentReference;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class UserService {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private FirebaseConfig firebase;
+
+    @Value("${complainhub.auth.known-users.max-entries:100000}")
+    private int maxKnownUsers;
+
+    // uids whose users/{uid} profile is known to exist, so the login upsert can skip its read
+    private final Set<String> knownUsers = ConcurrentHashMap.newKeySet();
+    private final LongAdder knownUserHits = new LongAdder();
+    private final LongAdder knownUserMisses = new LongAdder();
+    private Timer listAuthUsersTimer;
+
+    @PostConstruct
+    public void registerMeters() {
+        FunctionCounter.builder("complainhub.auth.known.users", knownUserHits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("complainhub.auth.known.users", knownUserMisses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        listAuthUsersTimer = Timer.builder("complainhub.auth.list.users").publishPercentileHistogram().register(meterRegistry);
+    }
+
     public ResponseEntity<?> editUser(String id, Map<String, Object> payload) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            DocumentReference docRef = db.collection("users").document(id);
             Map<String, Object> updates = new HashMap<>();
             if (payload.containsKey("name")) {
                 updates.put("name", payload.get("name"));
@@ -27,7 +66,7 @@ public class UserService {
             if (updates.isEmpty()) {
                 return ResponseEntity.badRequest().body("No valid fields to update");
             }
-            docRef.update(updates).get();
+            userRepository.update(id, updates);
             return ResponseEntity.ok("User updated successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error updating user: " + e.getMessage());
@@ -40,10 +79,9 @@ public class UserService {
                     .setPassword(password)
                     .setDisplayName(name)
                     .setEmailVerified(false);
-            UserRecord userRecord = FirebaseAuth.getInstance().createUser(request);
+            UserRecord userRecord = firebase.auth().createUser(request);
 
-            // Store additional info in Firestore
-            Firestore db = FirestoreClient.getFirestore();
+            // Store additional info in the users collection
             Map<String, Object> userData = new HashMap<>();
             userData.put("uid", userRecord.getUid());
             userData.put("email", email);
@@ -53,21 +91,29 @@ public class UserService {
             userData.put("studentId", studentId);
             userData.put("status", status);
             userData.put("blockReason", blockReason);
-            db.collection("users").document(userRecord.getUid()).set(userData);
+            userRepository.save(userRecord.getUid(), userData);
+            rememberUser(userRecord.getUid());
 
             return ResponseEntity.ok(userData);
         } catch (FirebaseAuthException e) {
             return ResponseEntity.status(400).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error saving user profile: " + e.getMessage());
         }
     }
 
-    // Upsert user data in Firestore if missing (for existing Auth users)
+    // Upsert user data if missing (for existing Auth users)
     public void upsertUserDataIfMissing(String uid, String email, String name, String role) {
+        if (knownUsers.contains(uid)) {
+            knownUserHits.increment();
+            return;
+        }
+        knownUserMisses.increment();
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            com.google.api.core.ApiFuture<com.google.cloud.firestore.DocumentSnapshot> future = db.collection("users").document(uid).get();
-            com.google.cloud.firestore.DocumentSnapshot document = future.get();
-            if (document.exists()) return;
+            if (userRepository.findById(uid).isPresent()) {
+                rememberUser(uid);
+                return;
+            }
             Map<String, Object> userData = new HashMap<>();
             userData.put("uid", uid);
             userData.put("email", email);
@@ -77,10 +123,30 @@ public class UserService {
             userData.put("studentId", "");
             userData.put("status", "active");
             userData.put("blockReason", "");
-            db.collection("users").document(uid).set(userData);
+            userRepository.save(uid, userData);
+            rememberUser(uid);
         } catch (Exception ignored) {}
     }
 
+    // Past the cap new uids simply aren't remembered and fall back to the read
+    private void rememberUser(String uid) {
+        if (knownUsers.size() < maxKnownUsers) {
+            knownUsers.add(uid);
+        }
+    }
+
+    public Map<String, Object> knownUserStats() {
+        long hitCount = knownUserHits.sum();
+        long missCount = knownUserMisses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", knownUsers.size());
+        stats.put("maxEntries", maxKnownUsers);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
     public ResponseEntity<?> signin(String email, String password) {
         // Firebase Admin SDK does not support password verification directly.
         // In production, use custom tokens or verify ID tokens from frontend.
@@ -95,24 +161,32 @@ public class UserService {
 
     public ResponseEntity<?> getAllUsers() {
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            java.util.List<com.google.cloud.firestore.QueryDocumentSnapshot> documents = db.collection("users").get().get().getDocuments();
-            java.util.List<java.util.Map<String, Object>> users = new java.util.ArrayList<>();
-            for (com.google.cloud.firestore.QueryDocumentSnapshot doc : documents) {
-                users.add(doc.getData());
-            }
-            return ResponseEntity.ok(users);
+            return ResponseEntity.ok(userRepository.findAll());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to fetch users: " + e.getMessage());
         }
     }
 
-    public ResponseEntity<?> getAllAuthUsers() {
+    public CompletableFuture<ResponseEntity<?>> getAllAuthUsers() {
+        List<Map<String, Object>> users = new ArrayList<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<Void> pages;
         try {
-            java.util.List<java.util.Map<String, Object>> users = new java.util.ArrayList<>();
-            com.google.firebase.auth.ListUsersPage page = FirebaseAuth.getInstance().listUsers(null);
-            for (com.google.firebase.auth.ExportedUserRecord user : page.iterateAll()) {
-                java.util.Map<String, Object> userMap = new java.util.HashMap<>();
+            pages = collectAuthUsers(firebase.auth(), null, users);
+        } catch (Exception e) {
+            pages = CompletableFuture.failedFuture(e);
+        }
+        return pages.whenComplete((done, error) -> sample.stop(listAuthUsersTimer))
+                .<ResponseEntity<?>>thenApply(done -> ResponseEntity.ok(users))
+                .exceptionally(e -> ResponseEntity.status(500).body("Failed to fetch auth users: "
+                        + (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage()));
+    }
+
+    // Requests the next page only when the previous one arrives, on the Auth client's callback thread
+    private CompletableFuture<Void> collectAuthUsers(FirebaseAuth auth, String pageToken, List<Map<String, Object>> users) {
+        return ApiFutureAdapter.toCompletableFuture(auth.listUsersAsync(pageToken)).thenCompose(page -> {
+            for (ExportedUserRecord user : page.getValues()) {
+                Map<String, Object> userMap = new HashMap<>();
                 userMap.put("uid", user.getUid());
                 userMap.put("email", user.getEmail());
                 userMap.put("displayName", user.getDisplayName());
@@ -123,19 +197,39 @@ public class UserService {
                 userMap.put("disabled", user.isDisabled());
                 users.add(userMap);
             }
-            return ResponseEntity.ok(users);
+            return page.hasNextPage() ? collectAuthUsers(auth, page.getNextPageToken(), users) : CompletableFuture.completedFuture(null);
+        });
+    }
+
+    // Auth users joined with their profiles: {"items": [...], "nextPageToken": "..." | null}
+    public ResponseEntity<?> getDirectoryPage(int pageSize, String pageToken) {
+        if (pageSize < 1 || pageSize > UserDirectory.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("pageSize must be between 1 and " + UserDirectory.MAX_PAGE_SIZE);
+        }
+        if (!firebase.available()) {
+            return ResponseEntity.status(503).body("User directory needs Firebase Auth, which is not configured");
+        }
+        try {
+            UserDirectory.Page page = userDirectory.page(pageSize, pageToken);
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", page.users());
+            response.put("nextPageToken", page.nextPageToken());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            return ResponseEntity.status(500).body("Failed to fetch auth users: " + e.getMessage());
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IllegalArgumentException) {
+                return ResponseEntity.badRequest().body("Invalid page token: " + cause.getMessage());
+            }
+            return ResponseEntity.status(500).body("Failed to fetch user directory: " + cause.getMessage());
         }
     }
 
     public ResponseEntity<?> blockUser(String id, String blockReason) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
             Map<String, Object> updates = new HashMap<>();
             updates.put("status", "blocked");
             updates.put("blockReason", blockReason);
-            db.collection("users").document(id).update(updates);
+            userRepository.update(id, updates);
             return ResponseEntity.ok("User blocked successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to block user: " + e.getMessage());
@@ -144,11 +238,10 @@ public class UserService {
 
     public ResponseEntity<?> unblockUser(String id) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
             Map<String, Object> updates = new HashMap<>();
             updates.put("status", "active");
             updates.put("blockReason", "");
-            db.collection("users").document(id).update(updates);
+            userRepository.update(id, updates);
             return ResponseEntity.ok("User unblocked successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to unblock user: " + e.getMessage());
@@ -0,0 +1,55 @@
+package com.complainhub.service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Claims of a verified ID token. The getters mirror {@link com.google.firebase.auth.FirebaseToken},
+ * so the JSON returned by /api/auth/verifyToken keeps the same shape.
+ */
+public final class VerifiedToken {
+    private final Map<String, Object> claims;
+
+    public VerifiedToken(Map<String, Object> claims) {
+        this.claims = Collections.unmodifiableMap(claims);
+    }
+
+    public String getUid() {
+        return (String) claims.get("sub");
+    }
+
+    public String getTenantId() {
+        Object firebase = claims.get("firebase");
+        return firebase instanceof Map<?, ?> map ? (String) map.get("tenant") : null;
+    }
+
+    public String getIssuer() {
+        return (String) claims.get("iss");
+    }
+
+    public String getName() {
+        return (String) claims.get("name");
+    }
+
+    public String getPicture() {
+        return (String) claims.get("picture");
+    }
+
+    public String getEmail() {
+        return (String) claims.get("email");
+    }
+
+    public boolean isEmailVerified() {
+        return Boolean.TRUE.equals(claims.get("email_verified"));
+    }
+
+    /** Expiry ("exp") in epoch seconds, or 0 when absent. */
+    public long expiresAtEpochSeconds() {
+        Object exp = claims.get("exp");
+        return exp instanceof Number number ? number.longValue() : 0;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+}
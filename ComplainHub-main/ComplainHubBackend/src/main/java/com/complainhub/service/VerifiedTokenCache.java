@@ -0,0 +1,120 @@
+package com.complainhub.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of verified ID tokens in front of {@link IdTokenVerifier}, keyed by the SHA-256 of the
+ * token so raw tokens are never held. Entries are dropped at the token's own "exp"; verification does
+ * not check revocation, so a cached result is exactly as valid as a fresh one until then.
+ */
+@Component
+public class VerifiedTokenCache {
+    @Autowired
+    private IdTokenVerifier idTokenVerifier;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${complainhub.auth.token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${complainhub.auth.token-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private Timer verifySuccess;
+    private Timer verifyFailure;
+
+    @PostConstruct
+    public void registerMeters() {
+        verifySuccess = Timer.builder("complainhub.auth.verify").tag("outcome", "success")
+                .publishPercentileHistogram().register(meterRegistry);
+        verifyFailure = Timer.builder("complainhub.auth.verify").tag("outcome", "error")
+                .publishPercentileHistogram().register(meterRegistry);
+        FunctionCounter.builder("complainhub.auth.token.cache", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("complainhub.auth.token.cache", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+    }
+
+    public VerifiedToken verify(String idToken) throws Exception {
+        if (!enabled || idToken == null) {
+            return timedVerify(idToken);
+        }
+        String key = hash(idToken);
+        long now = System.currentTimeMillis() / 1000;
+        VerifiedToken cached = tokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtEpochSeconds() > now) {
+                hits.increment();
+                return cached;
+            }
+            tokens.remove(key, cached);
+            expired.increment();
+        }
+        misses.increment();
+        VerifiedToken token = timedVerify(idToken);
+        if (token.expiresAtEpochSeconds() > now && (tokens.size() < maxEntries || purgeExpired(now))) {
+            tokens.put(key, token);
+        }
+        return token;
+    }
+
+    private VerifiedToken timedVerify(String idToken) throws Exception {
+        long start = System.nanoTime();
+        try {
+            VerifiedToken token = idTokenVerifier.verify(idToken);
+            verifySuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return token;
+        } catch (Exception e) {
+            verifyFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    // Sweeps expired entries when the cache is full; returns whether there is room afterwards
+    private synchronized boolean purgeExpired(long now) {
+        if (tokens.size() < maxEntries) {
+            return true;
+        }
+        int before = tokens.size();
+        tokens.values().removeIf(token -> token.expiresAtEpochSeconds() <= now);
+        expired.add(before - tokens.size());
+        return tokens.size() < maxEntries;
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", tokens.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("expired", expired.sum());
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private static String hash(String idToken) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(idToken.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}
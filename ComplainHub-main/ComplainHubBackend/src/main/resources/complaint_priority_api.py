@@ -120,5 +120,24 @@ def predict_priority(req: ComplaintRequest):
     pred = model.predict([text])[0]
     return {"priority": pred, "source": "ml"}
 
+class ComplaintBatchRequest(BaseModel):
+    complaints: list[str]
+
+@app.post("/predict_priority_batch")
+def predict_priority_batch(req: ComplaintBatchRequest):
+    results = [None] * len(req.complaints)
+    ml_indexes = []
+    for i, text in enumerate(req.complaints):
+        rule_priority = keyword_priority(text)
+        if rule_priority:
+            results[i] = {"priority": rule_priority, "source": "rule"}
+        else:
+            ml_indexes.append(i)
+    if ml_indexes:
+        preds = model.predict([req.complaints[i] for i in ml_indexes])
+        for i, pred in zip(ml_indexes, preds):
+            results[i] = {"priority": pred, "source": "ml"}
+    return {"results": results}
+
 if __name__ == "__main__":
     uvicorn.run(app, host="0.0.0.0", port=8000)
@@ -1,5 +1,6 @@
 import pandas as pd
 import re
+import json
 from sklearn.feature_extraction.text import TfidfVectorizer
 from sklearn.naive_bayes import MultinomialNB
 from sklearn.pipeline import Pipeline
@@ -77,29 +78,30 @@ KEYWORD_PRIORITY = {
     'hostel': 'High',
 }
 
+# Academic/teacher/college life phrases, checked before the keyword table
+ACADEMIC_PHRASES = [
+    'assignment deadline', 'marks not updated', 'marks not uploaded', 'marks not given',
+    'result not declared', 'result not published', 'result delayed',
+    'professor not available', 'teacher not available', 'class cancelled',
+    'lecture cancelled', 'syllabus not covered', 'syllabus incomplete',
+    'attendance shortage', 'attendance issue', 'attendance not marked',
+    'unfair grading', 'unfair marks', 'unfair evaluation',
+    'revaluation not done', 'rechecking not done',
+    'project guide not assigned', 'lab not conducted',
+    'internal marks low', 'external marks low',
+    'subject change', 'backlog not cleared', 'paper leak', 'paper out of syllabus',
+    'copy checking issue', 'copy not checked', 'practical not held',
+    'semester fee issue', 'academic calendar not followed',
+    'university rules not followed', 'class test not held',
+    'sessional not conducted', 'grades not updated', 'cgpa issue', 'gpa issue',
+    'credit not given', 'continuous absence of teacher', 'faculty absent',
+    'no teacher assigned', 'no professor assigned', 'class timing issue',
+    'academic misconduct', 'cheating in exam', 'plagiarism',
+]
+
 def keyword_priority(text):
     text = text.lower()
-    # Check for academic/teacher/college life phrases
-    academic_phrases = [
-        'assignment deadline', 'marks not updated', 'marks not uploaded', 'marks not given',
-        'result not declared', 'result not published', 'result delayed',
-        'professor not available', 'teacher not available', 'class cancelled',
-        'lecture cancelled', 'syllabus not covered', 'syllabus incomplete',
-        'attendance shortage', 'attendance issue', 'attendance not marked',
-        'unfair grading', 'unfair marks', 'unfair evaluation',
-        'revaluation not done', 'rechecking not done',
-        'project guide not assigned', 'lab not conducted',
-        'internal marks low', 'external marks low',
-        'subject change', 'backlog not cleared', 'paper leak', 'paper out of syllabus',
-        'copy checking issue', 'copy not checked', 'practical not held',
-        'semester fee issue', 'academic calendar not followed',
-        'university rules not followed', 'class test not held',
-        'sessional not conducted', 'grades not updated', 'cgpa issue', 'gpa issue',
-        'credit not given', 'continuous absence of teacher', 'faculty absent',
-        'no teacher assigned', 'no professor assigned', 'class timing issue',
-        'academic misconduct', 'cheating in exam', 'plagiarism',
-    ]
-    for phrase in academic_phrases:
+    for phrase in ACADEMIC_PHRASES:
         if phrase in text:
             return 'High'
     # Keyword-based matching
@@ -126,3 +128,42 @@ model.fit(df['complaint'], df['priority'])
 joblib.dump(model, 'complaint_priority_model.joblib')
 
 print('Model trained and saved as complaint_priority_model.joblib')
+
+# Portable export for the in-JVM classifier (com.complainhub.service.PriorityModel)
+def export_portable_model(model, path):
+    tfidf = model.named_steps['tfidf']
+    clf = model.named_steps['clf']
+    vocabulary = [None] * len(tfidf.vocabulary_)
+    for term, index in tfidf.vocabulary_.items():
+        vocabulary[index] = term
+    portable = {
+        'format': 'complainhub-priority-model/1',
+        'phrases': ACADEMIC_PHRASES,
+        'keywords': [[keyword, priority] for keyword, priority in KEYWORD_PRIORITY.items()],
+        'tokenPattern': tfidf.token_pattern,
+        'classes': [str(c) for c in clf.classes_],
+        'classLogPrior': clf.class_log_prior_.tolist(),
+        'vocabulary': vocabulary,
+        'idf': tfidf.idf_.tolist(),
+        'featureLogProb': clf.feature_log_prob_.tolist(),
+    }
+    with open(path, 'w') as f:
+        json.dump(portable, f)
+
+export_portable_model(model, 'complaint_priority_model.json')
+
+print('Portable model exported as complaint_priority_model.json')
+
+# Expected labels for the Java parity test (src/test/.../PriorityModelParityTest): what
+# priority_predictor returns for every dataset row, whether a rule or the model decided it, and
+# the model's own label, so the naive Bayes path is checked on rows a rule catches first
+EXPECTED_PATH = '../../test/resources/complaint_priority_expected.csv'
+expected = pd.DataFrame({
+    'complaint': df['complaint'],
+    'priority': [priority_predictor(text) for text in df['complaint']],
+    'source': ['rule' if keyword_priority(text) else 'ml' for text in df['complaint']],
+    'model': model.predict(df['complaint']),
+})
+expected.to_csv(EXPECTED_PATH, index=False)
+
+print('Expected labels written to', EXPECTED_PATH)
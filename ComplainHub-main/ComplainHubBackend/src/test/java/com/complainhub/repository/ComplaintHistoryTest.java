@@ -0,0 +1,141 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComplaintHistoryTest {
+    @Test
+    void appendsWithoutReadingTheComplaint() {
+        Iterator<String> ids = List.of("e1", "e2").iterator();
+        ComplaintHistory.Plan plan = ComplaintHistory.append(
+                Map.of(ComplaintHistory.COMMENTS, comment(null, 5, "hello")), ids::next, true);
+        assertEquals(1, plan.entries().size());
+        assertEquals("e1", plan.entries().get(0).id());
+        assertEquals(Map.of("commentCount", 1L), plan.increments());
+        assertEquals("e1", plan.arrayAppends().get(ComplaintHistory.COMMENTS).get("id"));
+        assertTrue(plan.fields().isEmpty());
+
+        ComplaintHistory.Plan withoutArrays = ComplaintHistory.append(
+                Map.of(ComplaintHistory.UPDATES, Map.of("status", "resolved")), ids::next, false);
+        assertEquals(Map.of("updateCount", 1L), withoutArrays.increments());
+        assertTrue(withoutArrays.arrayAppends().isEmpty());
+    }
+
+    @Test
+    void migrationMovesTheArraysOutOnce() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put(ComplaintHistory.COMMENTS, List.of(comment(null, 1, "first"), comment("kept", 2, "second"),
+                comment(null, 3, "third"), comment(null, 4, "fourth")));
+        Map<String, List<Map<String, Object>>> stored = new HashMap<>();
+        stored.put(ComplaintHistory.COMMENTS, List.of(comment("kept", 2, "second"), comment("later", 5, "fifth")));
+
+        ComplaintHistory.Plan plan = ComplaintHistory.migrate(legacy, stored);
+        assertEquals(List.of("legacy-00000", "legacy-00002", "legacy-00003"), plan.entries().stream().map(ComplaintHistory.Entry::id).toList());
+        assertEquals(5L, plan.fields().get("commentCount"));
+        assertEquals(0L, plan.fields().get("updateCount"));
+        assertEquals(List.of("third", "fourth", "fifth"), contents(plan.fields().get("recentComments")));
+        assertEquals(List.of(ComplaintHistory.COMMENTS), plan.removed());
+        assertEquals(ComplaintHistory.SCHEMA_VERSION, plan.fields().get(ComplaintHistory.SCHEMA_FIELD));
+
+        // Repeating an interrupted migration finds every element already stored under the same id
+        List<Map<String, Object>> all = new ArrayList<>(stored.get(ComplaintHistory.COMMENTS));
+        for (ComplaintHistory.Entry entry : plan.entries()) {
+            Map<String, Object> written = new HashMap<>(entry.data());
+            written.put("id", entry.id());
+            all.add(written);
+        }
+        ComplaintHistory.Plan again = ComplaintHistory.migrate(legacy, Map.of(ComplaintHistory.COMMENTS, all));
+        assertTrue(again.entries().isEmpty());
+        assertEquals(plan.fields(), again.fields());
+    }
+
+    @Test
+    void tellsCompleteArraysFromPartialOnes() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put(ComplaintHistory.COMMENTS, List.of(comment(null, 1, "a"), comment(null, 2, "b")));
+        legacy.put("commentCount", 1L);
+        assertFalse(ComplaintHistory.hasCompleteArray(legacy, ComplaintHistory.COMMENTS));
+        assertEquals(2, ComplaintHistory.count(legacy, ComplaintHistory.COMMENTS));
+
+        Map<String, Object> migrated = ComplaintHistory.newDocument(Map.of("title", "t"), true);
+        assertTrue(ComplaintHistory.hasCompleteArray(migrated, ComplaintHistory.COMMENTS));
+        migrated.put("commentCount", 1L);
+        assertFalse(ComplaintHistory.hasCompleteArray(migrated, ComplaintHistory.COMMENTS));
+        assertEquals(1, ComplaintHistory.count(migrated, ComplaintHistory.COMMENTS));
+
+        Map<String, Object> withoutArrays = ComplaintHistory.newDocument(Map.of("comments", List.of()), false);
+        assertFalse(ComplaintHistory.hasArrays(withoutArrays));
+        assertFalse(ComplaintHistory.hasCompleteArray(withoutArrays, ComplaintHistory.COMMENTS));
+    }
+
+    @Test
+    void mergesArrayAndStoredEntriesOncePerId() {
+        List<Map<String, Object>> merged = ComplaintHistory.merged(
+                List.of(comment("a", 3, "array a"), comment("b", 1, "array b")),
+                List.of(comment("a", 3, "stored a"), comment("c", 2, "stored c")), ComplaintHistory.COMMENTS);
+        assertEquals(List.of("array b", "stored c", "array a"), contents(merged));
+    }
+
+    @Test
+    void restoresOnlyArraysMissingEntries() {
+        Map<String, Object> migrated = ComplaintHistory.newDocument(Map.of(), false);
+        migrated.put(ComplaintHistory.COMMENTS, List.of(comment("new", 9, "appended by a client")));
+        Map<String, List<Map<String, Object>>> stored = Map.of(ComplaintHistory.COMMENTS, List.of(comment("old", 1, "stored")));
+
+        ComplaintHistory.Plan plan = ComplaintHistory.restoreArrays(migrated, stored);
+        assertEquals(List.of("stored", "appended by a client"), contents(plan.fields().get(ComplaintHistory.COMMENTS)));
+        assertEquals(2L, plan.fields().get("commentCount"));
+        assertEquals(List.of(), plan.fields().get(ComplaintHistory.UPDATES));
+        assertEquals(0L, plan.fields().get("updateCount"));
+
+        Map<String, Object> restored = new HashMap<>(migrated);
+        restored.putAll(plan.fields());
+        assertTrue(ComplaintHistory.restoreArrays(restored, stored).fields().isEmpty());
+    }
+
+    @Test
+    void pagesNewestFirstByTimeThenId() {
+        List<Map<String, Object>> entries = List.of(comment("a", 1, "1"), comment("b", 2, "2"), comment("c", 2, "3"),
+                comment("d", 3, "4"), comment("e", 4, "5"));
+        HistoryPage first = ComplaintHistory.page(entries, ComplaintHistory.COMMENTS, 2, null);
+        assertEquals(List.of("5", "4"), contents(first.items()));
+        HistoryPage second = ComplaintHistory.page(entries, ComplaintHistory.COMMENTS, 2, first.next());
+        assertEquals(List.of("3", "2"), contents(second.items()));
+        HistoryPage last = ComplaintHistory.page(entries, ComplaintHistory.COMMENTS, 2, second.next());
+        assertEquals(List.of("1"), contents(last.items()));
+        assertNull(last.next());
+    }
+
+    @Test
+    void previewsTheNewestEntriesOldestFirst() {
+        List<Map<String, Object>> newest = List.of(comment("d", 4, "4"), comment("c", 3, "3"), comment("b", 2, "2"), comment("a", 1, "1"));
+        Map<String, Object> fields = ComplaintHistory.previewFields(Map.of(ComplaintHistory.COMMENTS, newest));
+        assertEquals(List.of("2", "3", "4"), contents(fields.get("recentComments")));
+    }
+
+    private static Map<String, Object> comment(String id, long seconds, String content) {
+        Map<String, Object> comment = new HashMap<>();
+        if (id != null) {
+            comment.put("id", id);
+        }
+        comment.put("content", content);
+        comment.put("createdAt", Timestamp.ofTimeSecondsAndNanos(seconds, 0));
+        return comment;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> contents(Object entries) {
+        return ((List<Map<String, Object>>) entries).stream().map(entry -> entry.get("content")).toList();
+    }
+}
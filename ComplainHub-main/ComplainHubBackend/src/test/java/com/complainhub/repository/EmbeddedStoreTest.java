@@ -0,0 +1,168 @@
+package com.complainhub.repository;
+
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedStoreTest {
+    private static final long NO_COMPACTION = Long.MAX_VALUE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheLogOnReopen() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("a", document("open", 1));
+        store.put("b", document("open", 2));
+        store.update("a", current -> {
+            current.put("status", "resolved");
+            return current;
+        });
+        store.delete("b");
+        assertFalse(Files.exists(directory.resolve("snapshot")));
+
+        EmbeddedStore reopened = open(NO_COMPACTION);
+        assertEquals(Set.of("a"), reopened.ids());
+        assertEquals("resolved", reopened.get("a").get("status"));
+        assertEquals(Set.of("a"), reopened.idsWhere("status", "resolved"));
+        assertTrue(reopened.idsWhere("status", "open").isEmpty());
+        reopened.close();
+        store.close();
+    }
+
+    @Test
+    void cutsATornRecordOffTheEndOfTheLog() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("a", document("open", 1));
+        long valid = Files.size(directory.resolve("log"));
+        // A record whose length promises more bytes than were written before the crash
+        Files.write(directory.resolve("log"), new byte[]{0, 0, 1, 0, '{', '"'}, StandardOpenOption.APPEND);
+
+        EmbeddedStore reopened = open(NO_COMPACTION);
+        assertEquals(Set.of("a"), reopened.ids());
+        assertEquals(valid, Files.size(directory.resolve("log")));
+        reopened.put("b", document("open", 2));
+        assertEquals(Set.of("a", "b"), open(NO_COMPACTION).ids());
+    }
+
+    @Test
+    void compactsIntoASnapshotAndTruncatesTheLog() throws IOException {
+        EmbeddedStore store = open(1);
+        store.put("a", document("open", 1));
+        store.put("b", document("open", 2));
+        store.delete("a");
+        assertEquals(0, Files.size(directory.resolve("log")));
+        assertTrue(Files.exists(directory.resolve("snapshot")));
+
+        EmbeddedStore reopened = open(NO_COMPACTION);
+        assertEquals(Set.of("b"), reopened.ids());
+        assertEquals(Timestamp.of(new Date(2_000)), reopened.get("b").get("createdAt"));
+    }
+
+    @Test
+    void logRecordsNewerThanTheSnapshotWin() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("a", document("open", 1));
+        store.close();
+        EmbeddedStore second = open(NO_COMPACTION);
+        second.put("a", document("resolved", 1));
+        second.put("b", document("open", 2));
+
+        EmbeddedStore reopened = open(NO_COMPACTION);
+        assertEquals("resolved", reopened.get("a").get("status"));
+        assertEquals(Set.of("a", "b"), reopened.ids());
+    }
+
+    @Test
+    void snapshotsLargerThanOneMappingWindowRoundTrip() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        String body = "x".repeat(1 << 20);
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (int i = 0; i < 80; i++) {
+            Map<String, Object> document = document("open", i);
+            document.put("description", i + body);
+            documents.put("c" + i, document);
+        }
+        assertTrue(store.insertAll(documents));
+        store.close();
+        assertTrue(Files.size(directory.resolve("snapshot")) > 80L << 20);
+
+        EmbeddedStore reopened = open(NO_COMPACTION);
+        assertEquals(80, reopened.size());
+        assertEquals("79" + body, reopened.get("c79").get("description"));
+        reopened.close();
+    }
+
+    @Test
+    void insertAllWritesNothingWhenAnIdIsTaken() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("a", document("open", 1));
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        batch.put("b", document("open", 2));
+        batch.put("a", document("open", 3));
+        assertFalse(store.insertAll(batch));
+        assertNull(store.get("b"));
+        assertEquals(Set.of("a"), open(NO_COMPACTION).ids());
+    }
+
+    @Test
+    void ordersNewestFirstAndNormalizesValues() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("old", document("open", 1));
+        store.put("new", document("open", 3));
+        store.put("mid", document("open", 2));
+        List<String> ids = new ArrayList<>();
+        for (EmbeddedStore.OrderKey key : store.newestFirst(null)) {
+            ids.add(key.id());
+        }
+        assertEquals(List.of("new", "mid", "old"), ids);
+
+        Map<String, Object> reopened = open(NO_COMPACTION).get("mid");
+        assertEquals(7L, reopened.get("upvotes"));
+        assertEquals(List.of(Map.of("at", Timestamp.of(new Date(5_000)))), reopened.get("updates"));
+    }
+
+    @Test
+    void notifiesSubscribersOfLaterWrites() throws IOException {
+        EmbeddedStore store = open(NO_COMPACTION);
+        store.put("a", document("open", 1));
+        Map<String, Map<String, Object>> seen = new HashMap<>();
+        store.subscribe(initial -> seen.putAll(initial), seen::put);
+        store.put("b", document("open", 2));
+        store.delete("a");
+        assertTrue(seen.containsKey("a"));
+        assertNull(seen.get("a"));
+        assertEquals("open", seen.get("b").get("status"));
+    }
+
+    private EmbeddedStore open(long compactThresholdBytes) throws IOException {
+        return new EmbeddedStore(directory, List.of("status"), "createdAt", compactThresholdBytes, false);
+    }
+
+    private static Map<String, Object> document(String status, int createdAtSeconds) {
+        Map<String, Object> document = new HashMap<>();
+        document.put("status", status);
+        document.put("createdAt", new Date(createdAtSeconds * 1000L));
+        document.put("upvotes", 7);
+        document.put("updates", List.of(Map.of("at", new Date(5_000))));
+        return document;
+    }
+}
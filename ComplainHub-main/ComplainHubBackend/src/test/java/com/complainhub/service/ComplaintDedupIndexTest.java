@@ -0,0 +1,158 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintRepository;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintDedupIndexTest {
+    private static final String LEAK = "Water leaking from the ceiling of room 204 in block B";
+    private static final String LEAK_AGAIN = "Hello sir, water is leaking from the ceilling of room 204 in block B, please fix asap";
+    private static final String WIFI = "Wifi keeps disconnecting in the library reading hall";
+    private static final long HOUR = 3_600_000;
+
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final List<Map<String, Object>> stored = new ArrayList<>();
+    private final ExecutorService other = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void stop() {
+        other.shutdownNow();
+    }
+
+    @Test
+    void flagsARewordedComplaintAsADuplicateOfTheStoredOne() throws Exception {
+        ComplaintDedupIndex index = load(100);
+        ComplaintDedupIndex.Reservation first = index.reserve(LEAK, now());
+        assertFalse(first.candidate().isDuplicate());
+        index.confirm(first, "c1");
+
+        ComplaintDedupIndex.Reservation second = index.reserve(LEAK_AGAIN, now());
+        assertEquals("c1", second.candidate().duplicateOf());
+        assertEquals("c1", second.candidate().clusterId());
+        index.confirm(second, "c2");
+        assertFalse(index.reserve(WIFI, now()).candidate().isDuplicate());
+        assertEquals("c1", index.check(LEAK).clusterId());
+
+        assertTrue(index.claimClusterLeader("c1"));
+        assertFalse(index.claimClusterLeader("c1"));
+    }
+
+    @Test
+    void forgetsAReleasedReservation() throws Exception {
+        ComplaintDedupIndex index = load(100);
+        index.release(index.reserve(LEAK, now()));
+        assertFalse(index.reserve(LEAK_AGAIN, now()).candidate().isDuplicate());
+    }
+
+    @Test
+    void aLookAlikeWaitsForThePendingComplaintItMatches() throws Exception {
+        ComplaintDedupIndex index = load(100);
+        ComplaintDedupIndex.Reservation first = index.reserve(LEAK, now());
+        Future<ComplaintDedupIndex.Reservation> second = other.submit(() -> index.reserve(LEAK_AGAIN, now()));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        index.confirm(first, "c1");
+        ComplaintDedupIndex.Candidate candidate = second.get(5, TimeUnit.SECONDS).candidate();
+        assertEquals("c1", candidate.duplicateOf());
+        assertEquals("c1", candidate.clusterId());
+    }
+
+    @Test
+    void aLookAlikeOfAReleasedComplaintStartsItsOwnCluster() throws Exception {
+        ComplaintDedupIndex index = load(100);
+        ComplaintDedupIndex.Reservation first = index.reserve(LEAK, now());
+        Future<ComplaintDedupIndex.Reservation> second = other.submit(() -> index.reserve(LEAK_AGAIN, now()));
+        Thread.sleep(100);
+        index.release(first);
+
+        ComplaintDedupIndex.Reservation reservation = second.get(5, TimeUnit.SECONDS);
+        assertFalse(reservation.candidate().isDuplicate());
+        index.confirm(reservation, "c2");
+        assertEquals("c2", index.check(LEAK).clusterId());
+    }
+
+    @Test
+    void loadsOnlyTheWindowAndKeepsStoredClusters() throws Exception {
+        stored.add(document("recent", LEAK, 1, "c0"));
+        stored.add(document("old", WIFI, 100, null));
+        ComplaintDedupIndex index = load(100);
+        assertEquals(1, index.stats().get("complaints"));
+
+        ComplaintDedupIndex.Candidate candidate = index.check(LEAK_AGAIN);
+        assertEquals("recent", candidate.duplicateOf());
+        assertEquals("c0", candidate.clusterId());
+        assertFalse(index.check(WIFI).isDuplicate());
+        assertFalse(index.claimClusterLeader("recent"));
+    }
+
+    @Test
+    void dropsTheOldestComplaintPastMaxEntries() throws Exception {
+        ComplaintDedupIndex index = load(1);
+        index.confirm(index.reserve(LEAK, now()), "c1");
+        index.confirm(index.reserve(WIFI, now()), "c2");
+        assertFalse(index.check(LEAK_AGAIN).isDuplicate());
+        assertEquals("c2", index.check(WIFI).duplicateOf());
+    }
+
+    @Test
+    void flagsNothingUntilLoaded() throws Exception {
+        ComplaintDedupIndex index = index(100);
+        index.confirm(index.reserve(LEAK, now()), "c1");
+        assertFalse(index.reserve(LEAK_AGAIN, now()).candidate().isDuplicate());
+        assertNull(index.check(LEAK).duplicateOf());
+    }
+
+    private ComplaintDedupIndex index(int maxEntries) throws Exception {
+        when(repository.findPage(any(), anyInt(), any())).thenAnswer(invocation -> new ComplaintPage(new ArrayList<>(stored), null));
+        ComplaintDedupIndex index = new ComplaintDedupIndex();
+        ReflectionTestUtils.setField(index, "complaintRepository", repository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "windowHours", 72L);
+        ReflectionTestUtils.setField(index, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(index, "threshold", 0.65);
+        return index;
+    }
+
+    private ComplaintDedupIndex load(int maxEntries) throws Exception {
+        ComplaintDedupIndex index = index(maxEntries);
+        ReflectionTestUtils.invokeMethod(index, "load");
+        assertEquals(true, index.stats().get("ready"));
+        return index;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static Map<String, Object> document(String id, String text, long hoursAgo, String clusterId) {
+        Map<String, Object> document = new HashMap<>();
+        document.put("id", id);
+        document.put("title", text);
+        document.put("createdAt", Timestamp.of(new Date(now() - hoursAgo * HOUR)));
+        document.put("clusterId", clusterId);
+        return document;
+    }
+}
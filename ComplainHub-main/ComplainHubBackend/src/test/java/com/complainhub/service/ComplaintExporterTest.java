@@ -0,0 +1,174 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintQuery;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.PageCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintExporterTest {
+    private static final Comparator<Map<String, Object>> NEWEST_FIRST = Comparator
+            .comparing((Map<String, Object> document) -> (Timestamp) document.get("createdAt"))
+            .thenComparing(document -> (String) document.get("id"))
+            .reversed();
+
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final List<Map<String, Object>> stored = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<PageCursor> cursors = new ArrayList<>();
+    private ComplaintExporter exporter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Pages newest first after the cursor, like the repositories
+        when(repository.findPage(any(), anyInt(), any())).thenAnswer(invocation -> {
+            ComplaintQuery query = invocation.getArgument(0);
+            int pageSize = invocation.getArgument(1);
+            PageCursor cursor = invocation.getArgument(2);
+            cursors.add(cursor);
+            List<Map<String, Object>> sorted = new ArrayList<>(stored);
+            sorted.sort(NEWEST_FIRST);
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (Map<String, Object> document : sorted) {
+                if (items.size() == pageSize) {
+                    return new ComplaintPage(items, PageCursor.after(items.get(items.size() - 1)));
+                }
+                boolean after = cursor == null || NEWEST_FIRST.compare(document, Map.of("createdAt", cursor.createdAt(), "id", cursor.id())) > 0;
+                if (after && query.matches(document)) {
+                    items.add(document);
+                }
+            }
+            return new ComplaintPage(items, null);
+        });
+        exporter = new ComplaintExporter();
+        ReflectionTestUtils.setField(exporter, "complaintRepository", repository);
+        ReflectionTestUtils.setField(exporter, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(exporter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(exporter, "pageSize", 2);
+        ReflectionTestUtils.setField(exporter, "timeoutMillis", 60_000L);
+    }
+
+    @Test
+    void writesTheTrainingDatasetColumns() throws IOException {
+        store("a", "2026-03-01T10:00:00Z", "Fan", "Fan broken,\n  room  12", "HIGH", null);
+        store("b", "2026-03-01T11:00:00Z", "Projector not working", " ", "low", null);
+        store("c", "2026-03-01T12:00:00Z", "Wifi", "Wifi down", null, null);
+        store("d", "2026-03-01T13:00:00Z", "Wifi", "Wifi down again", "medium", "c");
+        store("e", "2026-03-01T14:00:00Z", "Lift", "Lift stuck", "urgent", null);
+
+        assertEquals("complaint,priority\n"
+                + "Projector not working,Low\n"
+                + "\"Fan broken, room 12\",High\n", export(ComplaintExporter.Format.TRAINING, Map.of(), null, null));
+        assertEquals(2.0, meterRegistry.counter("complainhub.export.rows", "format", "training").count());
+        assertEquals("complaints_priority_dataset.csv", ComplaintExporter.fileName(ComplaintExporter.Format.TRAINING, false));
+    }
+
+    @Test
+    void quotesCsvCellsOnlyWhenNeeded() throws IOException {
+        Map<String, Object> document = store("a", "2026-03-01T10:00:00Z", "Say \"hi\"", "two\nlines", "high", null);
+        document.put("status", "open");
+        document.put("commentCount", 4L);
+
+        String[] lines = export(ComplaintExporter.Format.CSV, Map.of(), null, null).split("\n", 2);
+        assertEquals("id,createdAt,updatedAt,status,category,priority,department,title,description,studentId,studentName,"
+                + "assignedTo,resolvedAt,rejectionReason,commentCount,updateCount,duplicateOf,clusterId", lines[0]);
+        assertEquals("a,2026-03-01T10:00:00Z,2026-03-01T10:00:00Z,open,others,high,,\"Say \"\"hi\"\"\",\"two\nlines\",,,,,,4,0,,\n", lines[1]);
+    }
+
+    @Test
+    void exportsTheWindowAndFiltersAcrossPages() throws IOException {
+        store("before", "2026-02-28T23:59:59Z", "t", "before", "low", null).put("status", "open");
+        store("first", "2026-03-01T00:00:00Z", "t", "first", "low", null).put("status", "open");
+        store("closed", "2026-03-01T12:00:00Z", "t", "closed", "low", null).put("status", "resolved");
+        store("middle", "2026-03-02T12:00:00Z", "t", "middle", "low", null).put("status", "open");
+        store("last", "2026-03-02T23:59:59Z", "t", "last", "low", null).put("status", "open");
+        store("after", "2026-03-03T00:00:00Z", "t", "after", "low", null).put("status", "open");
+
+        String csv = export(ComplaintExporter.Format.TRAINING, Map.of("status", "open"),
+                ComplaintExporter.bound("2026-03-01", false), ComplaintExporter.bound("2026-03-02", true));
+        assertEquals("complaint,priority\nlast,Low\nmiddle,Low\nfirst,Low\n", csv);
+        // The first page starts just before the end of the window, and the export stops at the first older complaint
+        assertEquals(Instant.parse("2026-03-02T23:59:59.999999999Z"), toInstant(cursors.get(0).createdAt()));
+        assertEquals(2, cursors.size());
+    }
+
+    @Test
+    void writesGzippedNdjson() throws IOException {
+        store("a", "2026-03-01T10:00:00Z", "Fan", "broken", "high", null);
+        store("b", "2026-03-01T11:00:00Z", "Wifi", "down", null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.write(out, ComplaintExporter.Format.NDJSON, Map.of(), null, null, true);
+
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = text.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode newest = objectMapper.readTree(lines[0]);
+        assertEquals("b", newest.get("id").asText());
+        assertEquals("Wifi", newest.get("title").asText());
+        assertEquals("a", objectMapper.readTree(lines[1]).get("id").asText());
+        assertEquals("application/gzip", ComplaintExporter.contentType(ComplaintExporter.Format.NDJSON, true));
+    }
+
+    @Test
+    void parsesWindowBounds() {
+        assertEquals(Instant.parse("2026-03-01T00:00:00Z"), toInstant(ComplaintExporter.bound("2026-03-01", false)));
+        assertEquals(Instant.parse("2026-03-02T00:00:00Z"), toInstant(ComplaintExporter.bound("2026-03-01", true)));
+        assertEquals(Instant.parse("2026-03-01T08:30:00Z"), toInstant(ComplaintExporter.bound("2026-03-01T08:30:00Z", true)));
+        assertNull(ComplaintExporter.bound("", false));
+        assertThrows(IllegalArgumentException.class, () -> ComplaintExporter.bound("01/03/2026", false));
+    }
+
+    private String export(ComplaintExporter.Format format, Map<String, String> filters, Timestamp from, Timestamp to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.write(out, format, filters, from, to, false);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Object> store(String id, String createdAt, String title, String description, String priority, String duplicateOf) {
+        Instant instant = Instant.parse(createdAt);
+        Map<String, Object> document = new HashMap<>();
+        document.put("id", id);
+        document.put("createdAt", Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano()));
+        document.put("title", title);
+        document.put("description", description);
+        if (priority != null) {
+            document.put("priority", priority);
+        }
+        if (duplicateOf != null) {
+            document.put("duplicateOf", duplicateOf);
+        }
+        stored.add(document);
+        return document;
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+}
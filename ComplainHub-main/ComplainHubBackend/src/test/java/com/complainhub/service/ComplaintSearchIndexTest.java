@@ -0,0 +1,198 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintRepository;
+import com.complainhub.repository.HistoryPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComplaintSearchIndexTest {
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final Map<String, Map<String, Object>> stored = new LinkedHashMap<>();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        when(repository.findAll(any())).thenAnswer(invocation -> documents());
+        when(repository.findUpdatedSince(any(), any())).thenAnswer(invocation -> documents());
+        when(repository.findPage(any(), anyInt(), any())).thenAnswer(invocation -> new ComplaintPage(documents(), null));
+        // Comments of these (unmigrated) complaints live in their arrays, which the repository serves newest first
+        when(repository.findHistory(anyString(), anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            List<Map<String, Object>> comments = new ArrayList<>((List<Map<String, Object>>) stored.get(invocation.getArgument(0))
+                    .getOrDefault("comments", List.of()));
+            Collections.reverse(comments);
+            return Optional.of(new HistoryPage(comments, null));
+        });
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        store("a", "Room light", "water on the floor", "open");
+        store("b", "Water leak", "in the bathroom", "open");
+        ComplaintSearchIndex index = load();
+        assertEquals(List.of("b", "a"), ids(index.search("water", Map.of(), false, 10)));
+    }
+
+    @Test
+    void ranksRarerTermsHigher() {
+        store("a", "Broken", "hostel fan", "open");
+        store("b", "Broken", "hostel door", "open");
+        store("c", "Broken", "hostel window", "open");
+        store("d", "Broken", "mess fan", "open");
+        store("e", "Broken", "mess door", "open");
+        ComplaintSearchIndex index = load();
+        ComplaintSearchIndex.Hits hits = index.search("hostel fan", Map.of(), false, 2).orElseThrow();
+        assertEquals(4, hits.total());
+        assertEquals("a", hits.hits().get(0).id());
+        // "fan" is in two complaints and "hostel" in three, so the mess fan beats the other hostel ones
+        assertEquals("d", hits.hits().get(1).id());
+    }
+
+    @Test
+    void expandsOnlyTheLastTermAsAPrefix() {
+        store("a", "Water leak", "bathroom", "open");
+        store("b", "Wifi", "weak signal", "open");
+        ComplaintSearchIndex index = load();
+        assertEquals(List.of("a"), ids(index.search("wat", Map.of(), true, 10)));
+        assertEquals(List.of(), ids(index.search("wat", Map.of(), false, 10)));
+        assertEquals(List.of("b"), ids(index.search("wat wi", Map.of(), true, 10)));
+    }
+
+    @Test
+    void appliesFacetFiltersAndStatusEvents() {
+        store("a", "Water leak", "bathroom", "open");
+        store("b", "Water cooler", "not cold", "resolved");
+        ComplaintSearchIndex index = load();
+        assertEquals(List.of("a"), ids(index.search("water", Map.of("status", "open"), false, 10)));
+        assertEquals(List.of(), ids(index.search("water", Map.of("status", "escalated"), false, 10)));
+
+        index.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, "a", Map.of("status", "resolved"), Map.of()));
+        assertEquals(2, index.search("water", Map.of("status", "resolved"), false, 10).orElseThrow().total());
+        assertEquals(List.of(), ids(index.search("water", Map.of("status", "open"), false, 10)));
+    }
+
+    @Test
+    void indexesEventsReceivedWhileLoading() {
+        ComplaintSearchIndex index = index();
+        index.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, "a", complaint("Fan noise", "room 12", "open"), null));
+        index.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.COMMENTED, "a", Map.of(), Map.of("content", "still rattling")));
+        assertTrue(index.search("fan", Map.of(), false, 10).isEmpty());
+        ReflectionTestUtils.invokeMethod(index, "load");
+        assertEquals(List.of("a"), ids(index.search("rattling", Map.of(), false, 10)));
+    }
+
+    @Test
+    void reconcilePicksUpOutsideChangesOnce() {
+        store("a", "Water leak", "bathroom", "open");
+        ComplaintSearchIndex index = load();
+        assertEquals(0, reconcile(index));
+
+        stored.get("a").put("status", "resolved");
+        stored.get("a").put("comments", List.of(Map.of("content", "plumber came")));
+        stored.get("a").put("updatedAt", new Date());
+        store("b", "Fan noise", "room 12", "open");
+        assertEquals(2, reconcile(index));
+        assertEquals(0, reconcile(index));
+
+        assertEquals(List.of("a"), ids(index.search("water", Map.of("status", "resolved"), false, 10)));
+        assertEquals(List.of("a"), ids(index.search("plumber", Map.of(), false, 10)));
+        assertEquals(List.of("b"), ids(index.search("fan", Map.of(), false, 10)));
+        ComplaintSearchIndex.Hit once = index.search("plumber", Map.of(), false, 10).orElseThrow().hits().get(0);
+        reconcile(index);
+        assertEquals(once, index.search("plumber", Map.of(), false, 10).orElseThrow().hits().get(0));
+    }
+
+    @Test
+    void restoresFromTheCheckpoint() throws Exception {
+        store("a", "Water leak", "bathroom", "open");
+        ComplaintSearchIndex index = load();
+        index.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.COMMENTED, "a", Map.of(), Map.of("content", "plumber came")));
+        index.stop();
+
+        store("b", "Water cooler", "not cold", "open");
+        clearInvocations(repository);
+        ComplaintSearchIndex restored = load();
+        verify(repository, never()).findAll(any());
+        assertEquals(2, restored.stats().get("complaints"));
+        assertEquals(List.of("a"), ids(restored.search("plumber", Map.of(), false, 10)));
+        assertEquals(List.of("b"), ids(restored.search("cooler", Map.of(), false, 10)));
+    }
+
+    private ComplaintSearchIndex index() {
+        ComplaintSearchIndex index = new ComplaintSearchIndex();
+        ReflectionTestUtils.setField(index, "complaintRepository", repository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "indexFile", directory.resolve("search-index.bin").toString());
+        ReflectionTestUtils.setField(index, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(index, "reconcileIntervalSeconds", 0L);
+        return index;
+    }
+
+    private ComplaintSearchIndex load() {
+        ComplaintSearchIndex index = index();
+        ReflectionTestUtils.invokeMethod(index, "load");
+        assertTrue(index.isReady());
+        return index;
+    }
+
+    private static int reconcile(ComplaintSearchIndex index) {
+        Integer changed = ReflectionTestUtils.invokeMethod(index, "reconcile");
+        return changed;
+    }
+
+    private void store(String id, String title, String description, String status) {
+        stored.put(id, complaint(title, description, status));
+    }
+
+    private List<Map<String, Object>> documents() {
+        List<Map<String, Object>> documents = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> entry : stored.entrySet()) {
+            Map<String, Object> document = new HashMap<>(entry.getValue());
+            document.put("id", entry.getKey());
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static Map<String, Object> complaint(String title, String description, String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", title);
+        data.put("description", description);
+        data.put("status", status);
+        data.put("category", "general");
+        data.put("department", "hostel");
+        data.put("createdAt", new Date());
+        data.put("updatedAt", new Date());
+        return data;
+    }
+
+    private static List<String> ids(Optional<ComplaintSearchIndex.Hits> hits) {
+        return hits.orElseThrow().hits().stream().map(ComplaintSearchIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,217 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintPage;
+import com.complainhub.repository.ComplaintRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComplaintStatsTest {
+    private static final long HOUR = 3_600_000;
+
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final Map<String, Map<String, Object>> stored = new LinkedHashMap<>();
+    private final long now = System.currentTimeMillis();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.findAll(any())).thenAnswer(invocation -> documents());
+        when(repository.findUpdatedSince(any(), any())).thenAnswer(invocation -> documents());
+        when(repository.findPage(any(), anyInt(), any())).thenAnswer(invocation -> new ComplaintPage(documents(), null));
+    }
+
+    @Test
+    void countsEachDimensionWithTheListDefaults() {
+        Map<String, Object> bare = new HashMap<>();
+        bare.put("createdAt", new Date(now));
+        stored.put("a", bare);
+        store("b", "open", "hostel", 2, Long.MIN_VALUE);
+        ComplaintStats stats = load();
+
+        Map<String, Object> snapshot = stats.snapshot(1, 1).orElseThrow();
+        assertEquals(2, snapshot.get("total"));
+        assertEquals(Map.of("pending", 1L, "open", 1L), snapshot.get("byStatus"));
+        assertEquals(Map.of("others", 2L), snapshot.get("byCategory"));
+        assertEquals(Map.of("", 1L, "hostel", 1L), snapshot.get("byDepartment"));
+        assertEquals(Map.of("low", 2L), snapshot.get("byPriority"));
+    }
+
+    @Test
+    void bucketsResolutionTimesByDoublingHours() {
+        store("fast", "resolved", "hostel", 1, now - HOUR / 2);
+        store("slow", "resolved", "hostel", 4, now - HOUR);
+        store("open", "open", "hostel", 10, Long.MIN_VALUE);
+        ComplaintStats stats = load();
+
+        Map<String, Object> resolution = resolution(stats);
+        assertEquals(2L, resolution.get("count"));
+        assertEquals(1.75, (Double) resolution.get("averageHours"), 1e-9);
+        assertEquals(1L, resolution.get("p50Hours"));
+        assertEquals(4L, resolution.get("p90Hours"));
+        assertEquals(1L, histogram(resolution, 0));
+        assertEquals(1L, histogram(resolution, 2));
+    }
+
+    @Test
+    void countsOnlyTheLatestResolutionOfAComplaint() {
+        store("a", "open", "hostel", 3, Long.MIN_VALUE);
+        ComplaintStats stats = load();
+
+        stats.onComplaintEvent(statusUpdated("a", "resolved", now));
+        stats.onComplaintEvent(statusUpdated("a", "resolved", now));
+        assertEquals(1L, resolution(stats).get("count"));
+        assertEquals(1L, histogram(resolution(stats), 2));
+
+        stats.onComplaintEvent(statusUpdated("a", "open", now));
+        assertEquals(0L, resolution(stats).get("count"));
+        assertNull(resolution(stats).get("p50Hours"));
+        assertEquals(Map.of("open", 1L), stats.snapshot(1, 1).orElseThrow().get("byStatus"));
+
+        stats.onComplaintEvent(statusUpdated("a", "resolved", now + 10 * HOUR));
+        assertEquals(1L, resolution(stats).get("count"));
+        assertEquals(1L, histogram(resolution(stats), 4));
+        assertEquals(0L, histogram(resolution(stats), 2));
+    }
+
+    @Test
+    void appliesEventsReceivedWhileLoading() {
+        ComplaintStats stats = stats(24);
+        stats.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, "a", complaint("open", "hostel", 0, Long.MIN_VALUE), null));
+        assertTrue(stats.snapshot(1, 1).isEmpty());
+        ReflectionTestUtils.invokeMethod(stats, "load");
+        assertEquals(1, stats.snapshot(1, 1).orElseThrow().get("total"));
+        assertEquals(1L, today(stats).get("created"));
+    }
+
+    @Test
+    void reconcilePicksUpOutsideStatusChangesOnce() {
+        store("a", "open", "hostel", 2, Long.MIN_VALUE);
+        ComplaintStats stats = load();
+        assertEquals(0, reconcile(stats));
+
+        stored.get("a").put("status", "resolved");
+        stored.get("a").put("resolvedAt", new Date(now));
+        store("b", "open", "academic", 1, Long.MIN_VALUE);
+        assertEquals(2, reconcile(stats));
+        assertEquals(0, reconcile(stats));
+
+        Map<String, Object> snapshot = stats.snapshot(1, 1).orElseThrow();
+        assertEquals(Map.of("resolved", 1L, "open", 1L), snapshot.get("byStatus"));
+        assertEquals(1L, resolution(stats).get("count"));
+    }
+
+    @Test
+    void restoresFromTheCheckpointAndRebuildsAStaleOne() throws Exception {
+        store("a", "resolved", "hostel", 3, now);
+        ComplaintStats stats = load();
+        stats.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, "b", complaint("open", "hostel", 1, Long.MIN_VALUE), null));
+        stats.stop();
+
+        clearInvocations(repository);
+        ComplaintStats restored = load();
+        verify(repository, never()).findAll(any());
+        assertEquals(2, restored.snapshot(1, 1).orElseThrow().get("total"));
+        assertEquals(1L, resolution(restored).get("count"));
+
+        Thread.sleep(10);
+        ComplaintStats rebuilt = stats(0);
+        ReflectionTestUtils.invokeMethod(rebuilt, "load");
+        verify(repository, times(1)).findAll(any());
+        assertEquals(1, rebuilt.snapshot(1, 1).orElseThrow().get("total"));
+    }
+
+    private ComplaintStats stats(long maxCheckpointAgeHours) {
+        ComplaintStats stats = new ComplaintStats();
+        ReflectionTestUtils.setField(stats, "complaintRepository", repository);
+        ReflectionTestUtils.setField(stats, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(stats, "enabled", true);
+        ReflectionTestUtils.setField(stats, "checkpointFile", directory.resolve("complaint-stats.json").toString());
+        ReflectionTestUtils.setField(stats, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(stats, "retentionDays", 400);
+        ReflectionTestUtils.setField(stats, "reconcileIntervalSeconds", 0L);
+        ReflectionTestUtils.setField(stats, "maxCheckpointAgeHours", maxCheckpointAgeHours);
+        return stats;
+    }
+
+    private ComplaintStats load() {
+        ComplaintStats stats = stats(24);
+        ReflectionTestUtils.invokeMethod(stats, "load");
+        assertTrue(stats.snapshot(1, 1).isPresent());
+        return stats;
+    }
+
+    private static int reconcile(ComplaintStats stats) {
+        Integer changed = ReflectionTestUtils.invokeMethod(stats, "reconcile");
+        return changed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> resolution(ComplaintStats stats) {
+        return (Map<String, Object>) stats.snapshot(1, 1).orElseThrow().get("resolution");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object histogram(Map<String, Object> resolution, int bucket) {
+        return ((List<Map<String, Object>>) resolution.get("histogram")).get(bucket).get("count");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> today(ComplaintStats stats) {
+        return ((List<Map<String, Object>>) stats.snapshot(1, 1).orElseThrow().get("daily")).get(0);
+    }
+
+    private ComplaintEvent statusUpdated(String id, String status, long at) {
+        return new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, id, Map.of("status", status, "updatedAt", new Date(at)), Map.of());
+    }
+
+    private void store(String id, String status, String department, long createdHoursAgo, long resolvedAt) {
+        stored.put(id, complaint(status, department, createdHoursAgo, resolvedAt));
+    }
+
+    private Map<String, Object> complaint(String status, String department, long createdHoursAgo, long resolvedAt) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", status);
+        data.put("department", department);
+        data.put("createdAt", new Date(now - createdHoursAgo * HOUR));
+        data.put("updatedAt", new Date(now));
+        if (resolvedAt != Long.MIN_VALUE) {
+            data.put("resolvedAt", new Date(resolvedAt));
+        }
+        return data;
+    }
+
+    private List<Map<String, Object>> documents() {
+        List<Map<String, Object>> documents = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> entry : stored.entrySet()) {
+            Map<String, Object> document = new HashMap<>(entry.getValue());
+            document.put("id", entry.getKey());
+            documents.add(document);
+        }
+        return documents;
+    }
+}
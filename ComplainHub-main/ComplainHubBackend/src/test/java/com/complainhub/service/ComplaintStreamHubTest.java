@@ -0,0 +1,181 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintStreamHubTest {
+    private final ComplaintView view = mock(ComplaintView.class);
+    private ComplaintStreamHub hub;
+
+    @AfterEach
+    void stop() {
+        if (hub != null) {
+            hub.stop();
+        }
+    }
+
+    @Test
+    void sendsEachClientOnlyTheEventsItSubscribedTo() throws Exception {
+        start(16, 64);
+        MockHttpServletResponse all = open(null, null);
+        MockHttpServletResponse owner = open("u1", null);
+        MockHttpServletResponse other = open("u2", null);
+
+        created("a", "u1");
+        when(view.ownerOf("a")).thenReturn(Optional.of("u1"));
+        hub.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.COMMENTED, "a", Map.of(), Map.of("content", "any news?")));
+        created("b", "u2");
+
+        awaitContains(all, "\"id\":\"b\"");
+        awaitContains(owner, "any news?");
+        awaitContains(other, "\"id\":\"b\"");
+        assertTrue(all.getContentAsString().contains("event:commented"));
+        assertFalse(owner.getContentAsString().contains("\"id\":\"b\""));
+        assertFalse(other.getContentAsString().contains("\"id\":\"a\""));
+    }
+
+    @Test
+    void resumesAfterTheLastEventId() throws Exception {
+        start(16, 64);
+        created("a", "u1");
+        String afterFirst = lastEventId();
+        created("b", "u1");
+        created("c", "u2");
+
+        MockHttpServletResponse all = open(null, afterFirst);
+        MockHttpServletResponse owner = open("u1", afterFirst);
+        created("d", "u1");
+        awaitContains(all, "\"id\":\"d\"");
+        awaitContains(owner, "\"id\":\"d\"");
+        assertFalse(all.getContentAsString().contains("\"id\":\"a\""));
+        assertTrue(all.getContentAsString().contains("\"id\":\"c\""));
+        assertTrue(owner.getContentAsString().contains("\"id\":\"b\""));
+        assertFalse(owner.getContentAsString().contains("\"id\":\"c\""));
+        assertFalse(all.getContentAsString().contains("event:reset"));
+    }
+
+    @Test
+    void sendsAResetWhenTheLastEventIdCannotBeResumed() throws Exception {
+        start(16, 4);
+        created("a", "u1");
+        String overwritten = lastEventId();
+        for (int i = 0; i < 5; i++) {
+            created("n" + i, "u1");
+        }
+        String previousBoot = "0-" + overwritten.substring(overwritten.lastIndexOf('-') + 1);
+
+        awaitContains(open(null, overwritten), "event:reset");
+        awaitContains(open(null, previousBoot), "event:reset");
+        awaitContains(open(null, "garbage"), "event:reset");
+        MockHttpServletResponse resumed = open(null, lastEventId());
+        created("z", "u1");
+        awaitContains(resumed, "\"id\":\"z\"");
+        assertFalse(resumed.getContentAsString().contains("event:reset"));
+    }
+
+    @Test
+    void disconnectsAClientWhoseQueueOverflows() throws Exception {
+        start(2, 64);
+        // Nothing drains the queues, as if every client had stopped reading
+        ExecutorService stalled = Executors.newSingleThreadExecutor();
+        stalled.shutdown();
+        ReflectionTestUtils.setField(hub, "senders", stalled);
+        assertTrue(hub.subscribe(null, null).isPresent());
+        assertTrue(hub.subscribe("u2", null).isPresent());
+
+        created("a", "u1");
+        created("b", "u1");
+        assertEquals(2L, hub.stats().get("clients"));
+        created("c", "u1");
+        assertEquals(1L, hub.stats().get("clients"));
+        assertEquals(1L, hub.stats().get("droppedClients"));
+    }
+
+    @Test
+    void refusesClientsPastTheLimit() {
+        start(16, 64);
+        ReflectionTestUtils.setField(hub, "maxClients", 1);
+        assertTrue(hub.subscribe(null, null).isPresent());
+        assertTrue(hub.subscribe("u1", null).isEmpty());
+    }
+
+    private void start(int clientBuffer, int replaySize) {
+        hub = new ComplaintStreamHub();
+        ReflectionTestUtils.setField(hub, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(hub, "complaintView", view);
+        ReflectionTestUtils.setField(hub, "complaintRepository", mock(ComplaintRepository.class));
+        ReflectionTestUtils.setField(hub, "maxClients", 100);
+        ReflectionTestUtils.setField(hub, "clientBuffer", clientBuffer);
+        ReflectionTestUtils.setField(hub, "replaySize", replaySize);
+        ReflectionTestUtils.setField(hub, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(hub, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(hub, "senderThreads", 2);
+        hub.start();
+    }
+
+    private void created(String id, String uid) {
+        hub.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, id, Map.of("uid", uid, "title", "Complaint " + id), null));
+    }
+
+    private String lastEventId() {
+        return (String) hub.stats().get("lastEventId");
+    }
+
+    // Hands the emitter to Spring MVC's return value handler, as a controller returning it would
+    private MockHttpServletResponse open(String uid, String lastEventId) throws Exception {
+        SseEmitter emitter = hub.subscribe(uid, lastEventId).orElseThrow();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        ResponseBodyEmitterReturnValueHandler handler = new ResponseBodyEmitterReturnValueHandler(
+                List.of(new StringHttpMessageConverter(), new MappingJackson2HttpMessageConverter()));
+        MethodParameter returnType = new MethodParameter(ComplaintStreamHubTest.class.getDeclaredMethod("stream"), -1);
+        handler.handleReturnValue(emitter, returnType, new ModelAndViewContainer(), webRequest);
+        return response;
+    }
+
+    @SuppressWarnings("unused")
+    private SseEmitter stream() {
+        return null;
+    }
+
+    private static void awaitContains(MockHttpServletResponse response, String text) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (response.getContentAsString().contains(text)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Stream never sent " + text + ": " + response.getContentAsString());
+    }
+}
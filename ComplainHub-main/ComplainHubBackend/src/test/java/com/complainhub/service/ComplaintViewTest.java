@@ -0,0 +1,159 @@
+package com.complainhub.service;
+
+import com.complainhub.model.Complaint;
+import com.complainhub.repository.ComplaintChangeListener.Change;
+import com.complainhub.repository.ComplaintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComplaintViewTest {
+    private static final long HOUR = 3_600_000;
+
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final Map<String, Map<String, Object>> stored = new HashMap<>();
+    private final List<Set<String>> fetched = new ArrayList<>();
+    private ComplaintView view;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.findByIds(any())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            fetched.add(new TreeSet<>(ids));
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (String id : ids) {
+                Map<String, Object> data = new HashMap<>(stored.get(id));
+                data.put("id", id);
+                result.add(data);
+            }
+            return result;
+        });
+        view = view(100, 1000);
+    }
+
+    @Test
+    void answersFiltersFromTheIndexes() {
+        load(complaint("a", "u1", "open", "hostel", 0), complaint("b", "u1", "resolved", "hostel", 0),
+                complaint("c", "u2", "open", "academic", 0));
+        assertEquals(Set.of("a", "c"), ids(view.findAll(filters("status", "open"), false).orElseThrow()));
+        assertEquals(Set.of("a"), ids(view.findAll(Map.of("status", "open", "department", "hostel"), false).orElseThrow()));
+        assertEquals(Set.of("a", "b"), ids(view.findByUser("u1").orElseThrow()));
+        assertEquals("u2", view.ownerOf("c").orElseThrow());
+    }
+
+    @Test
+    void dropsTheOldestSettledBodiesFirstAndFetchesThemOnDemand() throws Exception {
+        view = view(2, 1000);
+        load(complaint("newest", "u", "resolved", "hostel", 1), complaint("oldest", "u", "resolved", "hostel", 4),
+                complaint("older", "u", "resolved", "hostel", 3), complaint("open", "u", "open", "hostel", 5));
+
+        // The open complaint is never dropped, so only one resolved body fits the target of two
+        assertEquals(2, view.stats().get("cachedBodies"));
+        assertEquals(Set.of("newest", "oldest", "older", "open"), ids(view.findAll(filters("status", null), false).orElseThrow()));
+        assertEquals(List.of(Set.of("oldest", "older")), fetched);
+    }
+
+    @Test
+    void fetchesEvictedBodiesOnlyWhenTheirKeysMatch() throws Exception {
+        view = view(1, 1000);
+        load(complaint("kept", "u", "resolved", "hostel", 1), complaint("dropped", "u", "resolved", "academic", 2));
+
+        assertEquals(Set.of("kept"), ids(view.findAll(filters("department", "hostel"), false).orElseThrow()));
+        verify(repository, never()).findByIds(any());
+    }
+
+    @Test
+    void dropsSettledBodiesPastRetention() {
+        ReflectionTestUtils.setField(view, "resolvedRetentionHours", 24L);
+        load(complaint("recent", "u", "resolved", "hostel", 1), complaint("stale", "u", "resolved", "hostel", 48),
+                complaint("open", "u", "open", "hostel", 48));
+        assertEquals(2, view.stats().get("cachedBodies"));
+    }
+
+    @Test
+    void resetReplacesEverythingSeenBefore() {
+        load(complaint("a", "u", "open", "hostel", 0), complaint("b", "u", "open", "hostel", 0));
+        view.onChanges(true, List.of(complaint("b", "u", "open", "hostel", 0)));
+        view.onChanges(false, List.of(new Change("c", null)));
+        assertEquals(Set.of("b"), ids(view.findAll(filters("status", "open"), false).orElseThrow()));
+        assertFalse(view.ownerOf("a").isPresent());
+    }
+
+    @Test
+    void turnsItselfOffPastMaxComplaints() {
+        view = view(100, 2);
+        load(complaint("a", "u", "open", "hostel", 0), complaint("b", "u", "open", "hostel", 0),
+                complaint("c", "u", "open", "hostel", 0));
+        assertFalse(view.isServing());
+        assertTrue(view.findAll(filters("status", "open"), false).isEmpty());
+        assertEquals(true, view.stats().get("overflowed"));
+        assertEquals(0, view.stats().get("complaints"));
+    }
+
+    @Test
+    void stopsServingWhenTheFeedFails() {
+        load(complaint("a", "u", "open", "hostel", 0));
+        view.onError(new IllegalStateException("listener closed"));
+        assertFalse(view.isServing());
+        assertTrue(view.findByUser("u").isEmpty());
+        view.stop();
+    }
+
+    private ComplaintView view(int maxCachedBodies, int maxComplaints) {
+        ComplaintView view = new ComplaintView();
+        ReflectionTestUtils.setField(view, "complaintRepository", repository);
+        ReflectionTestUtils.setField(view, "enabled", true);
+        ReflectionTestUtils.setField(view, "maxCachedBodies", maxCachedBodies);
+        ReflectionTestUtils.setField(view, "maxComplaints", maxComplaints);
+        ReflectionTestUtils.setField(view, "resolvedRetentionHours", 720L);
+        return view;
+    }
+
+    private void load(Change... changes) {
+        for (Change change : changes) {
+            stored.put(change.id(), change.data());
+        }
+        view.onChanges(true, List.of(changes));
+    }
+
+    private static Change complaint(String id, String uid, String status, String department, long settledHoursAgo) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", uid);
+        data.put("title", "Complaint " + id);
+        data.put("description", "About " + id);
+        data.put("status", status);
+        data.put("department", department);
+        data.put("category", "general");
+        data.put("updatedAt", new Date(System.currentTimeMillis() - settledHoursAgo * HOUR));
+        return new Change(id, data);
+    }
+
+    private static Map<String, String> filters(String key, String value) {
+        Map<String, String> filters = new HashMap<>();
+        filters.put(key, value);
+        return filters;
+    }
+
+    private static Set<String> ids(List<Complaint> complaints) {
+        return complaints.stream().map(Complaint::id).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,216 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComplaintWorkQueueTest {
+    private static final long HOUR = 3_600_000;
+    private static final long SECOND = 1000;
+
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final PriorityClassifier classifier = mock(PriorityClassifier.class);
+    private final List<Map<String, Object>> stored = new ArrayList<>();
+    private final long now = System.currentTimeMillis();
+    private ComplaintWorkQueue queue;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.findAll(any())).thenAnswer(invocation -> stored);
+        when(classifier.classifyAll(anyList())).thenAnswer(invocation -> {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Object text : (List<?>) invocation.getArgument(0)) {
+                results.add(Map.of("priority", text.toString().contains("fire") ? "High" : "Low"));
+            }
+            return results;
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void ordersByEscalationLevelThenPriorityThenDeadline() {
+        store("low", "low", "academic", 0);
+        store("high-new", "high", "academic", 0);
+        store("medium", "medium", "academic", 0);
+        store("high-old", "high", "academic", 1);
+        // Low's SLA is 168 h, so 200 h in it has been escalated twice
+        store("overdue-low", "low", "academic", 200);
+        store("resolved", "high", "academic", 300).put("status", "resolved");
+        load("");
+
+        assertEquals(List.of("overdue-low", "high-old", "high-new", "medium", "low"), ids(queue.top(10, null)));
+        assertEquals(2, queue.top(1, null).get(0).escalationLevel());
+        assertEquals(List.of(4, 0, 1, 0), queue.stats().get("byEscalationLevel"));
+    }
+
+    @Test
+    void capsDeadlinesAtTheDepartmentSla() {
+        store("academic", "low", "academic", 2);
+        store("hostel", "low", "Hostel", 2);
+        load("hostel:1, academic:100");
+
+        ComplaintWorkQueue.Slot first = queue.top(1, null).get(0);
+        assertEquals("hostel", first.id());
+        assertEquals(1, first.escalationLevel());
+        assertEquals(first.createdAt() + HOUR, first.dueAt());
+        assertEquals(List.of("hostel"), ids(queue.top(10, "hostel")));
+    }
+
+    @Test
+    void escalatesEveryStepPastTheDeadlineUpToTheMaxLevel() {
+        store("a", "high", "academic", 0);
+        store("b", "low", "academic", 0);
+        load("");
+        long due = queue.top(1, null).get(0).dueAt();
+
+        assertEquals(0, queue.escalate(due - 1));
+        assertEquals(1, queue.escalate(due));
+        assertEquals(List.of("a", "b"), ids(queue.top(10, null)));
+        assertEquals(1, queue.escalate(due + 24 * HOUR));
+        // One more step for "a", and all three for "b", whose deadline has passed meanwhile
+        assertEquals(4, queue.escalate(due + 1000 * HOUR));
+        assertEquals(3, queue.top(1, null).get(0).escalationLevel());
+        assertEquals(List.of(0, 0, 0, 2), queue.stats().get("byEscalationLevel"));
+        assertEquals(0, queue.escalate(due + 100_000 * HOUR));
+        assertEquals(6L, queue.stats().get("escalations"));
+    }
+
+    @Test
+    void leasesClaimsUntilReleasedOrExpired() {
+        store("a", "high", "academic", 3);
+        store("b", "high", "academic", 2);
+        store("c", "high", "academic", 1);
+        load("");
+
+        List<ComplaintWorkQueue.Slot> claimed = queue.claim("admin-1", 2, 60, null, now);
+        assertEquals(List.of("a", "b"), ids(claimed));
+        assertEquals(now + 60 * SECOND, claimed.get(0).leaseExpiresAt());
+        assertEquals(List.of("c"), ids(queue.top(10, null)));
+        assertThrows(IllegalStateException.class, () -> queue.release("a", "admin-2"));
+        assertThrows(IllegalStateException.class, () -> queue.release("c", "admin-1"));
+        assertThrows(NoSuchElementException.class, () -> queue.release("missing", "admin-1"));
+
+        assertEquals(now + 90 * SECOND, queue.renew("b", "admin-1", 60, now + 30 * SECOND).leaseExpiresAt());
+        assertEquals(1, queue.expireLeases(now + 61 * SECOND));
+        assertEquals(List.of("a", "c"), ids(queue.top(10, null)));
+        assertNull(queue.top(1, null).get(0).claimedBy());
+
+        ComplaintWorkQueue.Slot released = queue.release("b", "admin-1");
+        assertNull(released.claimedBy());
+        assertEquals(List.of("a", "b", "c"), ids(queue.top(10, null)));
+        assertEquals(1L, queue.stats().get("expiredLeases"));
+    }
+
+    @Test
+    void boundsLeaseLengths() {
+        store("a", "high", "academic", 2);
+        store("b", "high", "academic", 1);
+        load("");
+        assertEquals(now + 900 * SECOND, queue.claim("admin", 1, 0, null, now).get(0).leaseExpiresAt());
+        assertEquals(now + 3600 * SECOND, queue.claim("admin", 1, 86_400, null, now).get(0).leaseExpiresAt());
+        assertTrue(queue.claim("admin", 1, 60, null, now).isEmpty());
+    }
+
+    @Test
+    void followsCreatesAndStatusChanges() throws Exception {
+        when(classifier.classify(anyString())).thenReturn(Map.of("priority", "High"));
+        store("a", "medium", "academic", 1);
+        load("");
+        queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.CREATED, "b", complaint(null, "academic", 0), null));
+        queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, "a", Map.of("status", "resolved"), Map.of()));
+        queue.onComplaintEvent(new ComplaintEvent(ComplaintEvent.Type.STATUS_UPDATED, "c", Map.of("status", "resolved"), Map.of()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"classifier".equals(queue.top(1, null).get(0).prioritySource())) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Complaint was never classified");
+            }
+            Thread.sleep(10);
+        }
+        ComplaintWorkQueue.Slot slot = queue.top(10, null).get(0);
+        assertEquals("b", slot.id());
+        assertEquals("High", slot.priority());
+        assertEquals(1, queue.stats().get("open"));
+    }
+
+    @Test
+    void ranksUnprioritizedComplaintsWithTheClassifierOnLoad() throws Exception {
+        store("quiet", null, "hostel", 2).put("description", "tap is dripping");
+        store("fire", null, "hostel", 1).put("description", "fire alarm keeps going off");
+        store("stored", "medium", "hostel", 3);
+        load("");
+
+        List<ComplaintWorkQueue.Slot> slots = queue.top(10, null);
+        assertEquals(List.of("fire", "stored", "quiet"), ids(slots));
+        assertEquals("classifier", slots.get(0).prioritySource());
+        assertEquals("stored", slots.get(1).prioritySource());
+    }
+
+    private void load(String departmentSlaHours) {
+        queue = new ComplaintWorkQueue();
+        ReflectionTestUtils.setField(queue, "complaintRepository", repository);
+        ReflectionTestUtils.setField(queue, "priorityClassifier", classifier);
+        ReflectionTestUtils.setField(queue, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "highSlaHours", 24L);
+        ReflectionTestUtils.setField(queue, "mediumSlaHours", 72L);
+        ReflectionTestUtils.setField(queue, "lowSlaHours", 168L);
+        ReflectionTestUtils.setField(queue, "departmentSlaHours", departmentSlaHours);
+        ReflectionTestUtils.setField(queue, "escalationStepHours", 24L);
+        ReflectionTestUtils.setField(queue, "maxLevel", 3);
+        ReflectionTestUtils.setField(queue, "defaultLeaseSeconds", 900L);
+        ReflectionTestUtils.setField(queue, "maxLeaseSeconds", 3600L);
+        ReflectionTestUtils.setField(queue, "tickSeconds", 3600L);
+        queue.init();
+        ReflectionTestUtils.invokeMethod(queue, "load");
+        assertTrue(queue.isReady());
+    }
+
+    private Map<String, Object> store(String id, String priority, String department, long createdHoursAgo) {
+        Map<String, Object> document = complaint(priority, department, createdHoursAgo);
+        document.put("id", id);
+        stored.add(document);
+        return document;
+    }
+
+    private Map<String, Object> complaint(String priority, String department, long createdHoursAgo) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", "pending");
+        data.put("priority", priority);
+        data.put("department", department);
+        data.put("title", "Complaint");
+        data.put("createdAt", new Date(now - createdHoursAgo * HOUR));
+        return data;
+    }
+
+    private static List<String> ids(List<ComplaintWorkQueue.Slot> slots) {
+        return slots.stream().map(ComplaintWorkQueue.Slot::id).toList();
+    }
+}
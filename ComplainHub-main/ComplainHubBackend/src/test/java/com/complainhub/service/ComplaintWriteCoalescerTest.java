@@ -0,0 +1,172 @@
+package com.complainhub.service;
+
+import com.complainhub.repository.ComplaintRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ComplaintWriteCoalescerTest {
+    private final ComplaintRepository repository = mock(ComplaintRepository.class);
+    private final List<List<Object>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blockFirst;
+    private volatile Exception batchFailure;
+    private ComplaintWriteCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Ids are "id-" + title; the first batch can be held until released
+        when(repository.createAll(anyList())).thenAnswer(invocation -> {
+            List<Map<String, Object>> documents = invocation.getArgument(0);
+            List<Object> titles = new ArrayList<>();
+            for (Map<String, Object> document : documents) {
+                titles.add(document.get("title"));
+            }
+            batches.add(titles);
+            entered.countDown();
+            if (blockFirst && batches.size() == 1) {
+                release.await();
+            }
+            if (batchFailure != null) {
+                throw batchFailure;
+            }
+            List<String> ids = new ArrayList<>();
+            for (Object title : titles) {
+                ids.add("id-" + title);
+            }
+            return ids;
+        });
+        when(repository.create(any())).thenAnswer(invocation -> {
+            Object title = ((Map<?, ?>) invocation.getArgument(0)).get("title");
+            if ("bad".equals(title)) {
+                throw new IllegalArgumentException("bad document");
+            }
+            return "single-" + title;
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (coalescer != null) {
+            coalescer.stop();
+        }
+    }
+
+    @Test
+    void completesEachComplaintWithItsOwnId() throws Exception {
+        start(true, 16);
+        CompletableFuture<String> first = coalescer.submit(complaint("a"));
+        CompletableFuture<String> second = coalescer.submit(complaint("b"));
+        assertEquals("id-a", get(first));
+        assertEquals("id-b", get(second));
+    }
+
+    @Test
+    void commitsComplaintsQueuedDuringACommitTogether() throws Exception {
+        blockFirst = true;
+        start(true, 16);
+        CompletableFuture<String> first = coalescer.submit(complaint("a"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = coalescer.submit(complaint("b"));
+        CompletableFuture<String> third = coalescer.submit(complaint("c"));
+        release.countDown();
+        assertEquals("id-a", get(first));
+        assertEquals("id-b", get(second));
+        assertEquals("id-c", get(third));
+        assertEquals(List.of(List.of("a"), List.of("b", "c")), batches);
+        assertEquals(2L, coalescer.stats().get("commits"));
+    }
+
+    @Test
+    void writesAFailedBatchOneByOne() throws Exception {
+        blockFirst = true;
+        start(true, 16);
+        CompletableFuture<String> first = coalescer.submit(complaint("a"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        batchFailure = new IllegalStateException("batch rejected");
+        CompletableFuture<String> bad = coalescer.submit(complaint("bad"));
+        CompletableFuture<String> good = coalescer.submit(complaint("good"));
+        release.countDown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(first));
+        assertSame(batchFailure, error.getCause());
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(ExecutionException.class, () -> get(bad)).getCause());
+        assertEquals("single-good", get(good));
+        assertEquals(1L, coalescer.stats().get("fallbacks"));
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        blockFirst = true;
+        start(true, 1);
+        coalescer.submit(complaint("a"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        coalescer.submit(complaint("b"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(coalescer.submit(complaint("c"))));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    @Test
+    void stopFailsQueuedComplaintsAndRejectsNewOnes() throws Exception {
+        blockFirst = true;
+        start(true, 16);
+        coalescer.submit(complaint("a"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = coalescer.submit(complaint("b"));
+        coalescer.stop();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(queued));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        CompletableFuture<String> late = coalescer.submit(complaint("c"));
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    @Test
+    void writesDirectlyWhenDisabled() throws Exception {
+        start(false, 16);
+        assertEquals("single-a", get(coalescer.submit(complaint("a"))));
+        verify(repository, never()).createAll(anyList());
+    }
+
+    private void start(boolean enabled, int queueCapacity) {
+        coalescer = new ComplaintWriteCoalescer();
+        ReflectionTestUtils.setField(coalescer, "complaintRepository", repository);
+        ReflectionTestUtils.setField(coalescer, "enabled", enabled);
+        ReflectionTestUtils.setField(coalescer, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(coalescer, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(coalescer, "maxWaitMillis", 3L);
+        coalescer.start();
+    }
+
+    private static Map<String, Object> complaint(String title) {
+        return Map.of("title", title);
+    }
+
+    private static String get(CompletableFuture<String> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
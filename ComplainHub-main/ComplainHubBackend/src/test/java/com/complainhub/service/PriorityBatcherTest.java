@@ -0,0 +1,144 @@
+package com.complainhub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityBatcherTest {
+    private final StubClassifier classifier = new StubClassifier();
+    private PriorityBatcher batcher;
+
+    @AfterEach
+    void stop() {
+        classifier.release.countDown();
+        if (batcher != null) {
+            batcher.stop();
+        }
+    }
+
+    @Test
+    void completesEachRequestWithItsOwnResult() throws Exception {
+        start(16);
+        CompletableFuture<Map<String, Object>> first = batcher.submit("water leak");
+        CompletableFuture<Map<String, Object>> second = batcher.submit("wifi down");
+        assertEquals("water leak", get(first).get("priority"));
+        assertEquals("wifi down", get(second).get("priority"));
+    }
+
+    @Test
+    void coalescesRequestsQueuedWhileABatchRuns() throws Exception {
+        classifier.blockFirstCall();
+        start(16);
+        CompletableFuture<Map<String, Object>> first = batcher.submit("a");
+        assertTrue(classifier.entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<String, Object>> second = batcher.submit("b");
+        CompletableFuture<Map<String, Object>> third = batcher.submit("c");
+        classifier.release.countDown();
+        assertEquals("a", get(first).get("priority"));
+        assertEquals("b", get(second).get("priority"));
+        assertEquals("c", get(third).get("priority"));
+        assertEquals(List.of(List.of("a"), List.of("b", "c")), classifier.calls);
+    }
+
+    @Test
+    void failsEveryRequestOfAFailedBatch() throws Exception {
+        classifier.failure = new IllegalStateException("model unavailable");
+        start(16);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(batcher.submit("a")));
+        assertSame(classifier.failure, error.getCause());
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        classifier.blockFirstCall();
+        start(1);
+        batcher.submit("a");
+        assertTrue(classifier.entered.await(5, TimeUnit.SECONDS));
+        batcher.submit("b");
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(batcher.submit("c")));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    @Test
+    void stopFailsQueuedRequestsAndRejectsNewOnes() throws Exception {
+        classifier.blockFirstCall();
+        start(16);
+        CompletableFuture<Map<String, Object>> running = batcher.submit("a");
+        assertTrue(classifier.entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<String, Object>> queued = batcher.submit("b");
+        batcher.stop();
+        assertThrows(ExecutionException.class, () -> get(running));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(queued));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        CompletableFuture<Map<String, Object>> late = batcher.submit("c");
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    private void start(int queueCapacity) {
+        batcher = new PriorityBatcher();
+        ReflectionTestUtils.setField(batcher, "priorityClassifier", classifier);
+        ReflectionTestUtils.setField(batcher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 256);
+        ReflectionTestUtils.setField(batcher, "maxWaitMillis", 2L);
+        batcher.start();
+    }
+
+    private static Map<String, Object> get(CompletableFuture<Map<String, Object>> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    // Echoes each text back as its priority; can hold its first call until released
+    private static final class StubClassifier extends PriorityClassifier {
+        final List<List<String>> calls = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blockFirst;
+        volatile RuntimeException failure;
+
+        void blockFirstCall() {
+            blockFirst = true;
+        }
+
+        @Override
+        public boolean isLocal() {
+            return true;
+        }
+
+        @Override
+        public List<Map<String, Object>> classifyAll(List<String> complaintTexts) {
+            calls.add(List.copyOf(complaintTexts));
+            entered.countDown();
+            if (blockFirst && calls.size() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("interrupted", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            List<Map<String, Object>> results = new ArrayList<>(complaintTexts.size());
+            for (String text : complaintTexts) {
+                results.add(Map.of("priority", text, "source", "rule"));
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.complainhub.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scores complaints_priority_dataset.csv with complaint_priority_model.json and compares every row
+ * with complaint_priority_expected.csv. Both files were last written by train_complaint_priority_model.py
+ * running on small pure-Python stand-ins for pandas, joblib, TfidfVectorizer() and MultinomialNB()
+ * (sklearn could not be installed), not by a real sklearn fit. complaint_priority_model.joblib, which
+ * the remote mode loads, is older still: a fit of only the first 220 dataset rows. So this test pins
+ * the Java port to the stand-in's labels; rerun the script with sklearn installed to regenerate the
+ * JSON, this fixture and the joblib together. After that, a failure here means the Java rules or
+ * scoring have drifted from the Python.
+ */
+class PriorityModelParityTest {
+    private static PriorityModel model;
+    private static List<String[]> dataset;
+    private static List<String[]> expected;
+
+    @BeforeAll
+    static void load() throws IOException {
+        try (InputStream in = resource("complaint_priority_model.json")) {
+            model = PriorityModel.load(in);
+        }
+        dataset = readCsv("complaints_priority_dataset.csv");
+        expected = readCsv("complaint_priority_expected.csv");
+    }
+
+    @Test
+    void expectedLabelsCoverTheDataset() {
+        assertEquals(dataset.size(), expected.size(), "expected labels are stale, rerun the training script");
+        for (int i = 0; i < dataset.size(); i++) {
+            assertEquals(dataset.get(i)[0], expected.get(i)[0], "row " + (i + 2) + " differs, rerun the training script");
+        }
+    }
+
+    @Test
+    void predictionsMatchTheTrainingScript() {
+        List<String> mismatches = new ArrayList<>();
+        for (String[] row : expected) {
+            PriorityModel.Prediction prediction = model.predict(row[0]);
+            if (!prediction.priority().equals(row[1]) || !prediction.source().equals(row[2])) {
+                mismatches.add(row[0] + " -> " + prediction.priority() + "/" + prediction.source()
+                        + ", expected " + row[1] + "/" + row[2]);
+            }
+        }
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " rows differ:\n" + String.join("\n", mismatches));
+    }
+
+    @Test
+    void modelLabelsMatchTheTrainingScript() {
+        List<String> mismatches = new ArrayList<>();
+        for (String[] row : expected) {
+            String priority = model.modelPriority(row[0]);
+            if (!priority.equals(row[3])) {
+                mismatches.add(row[0] + " -> " + priority + ", expected " + row[3]);
+            }
+        }
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " rows differ:\n" + String.join("\n", mismatches));
+    }
+
+    // KEYWORD_PRIORITY lists 'lab' twice; a Python dict keeps the first position and the last value
+    @Test
+    void duplicateKeywordTakesTheLastValueAtTheFirstPosition() {
+        assertEquals(new PriorityModel.Prediction("Medium", "rule"), model.predict("Lab equipment is broken"));
+        assertEquals(new PriorityModel.Prediction("Medium", "rule"), model.predict("The lab is not clean"));
+    }
+
+    private static InputStream resource(String name) throws IOException {
+        InputStream in = PriorityModelParityTest.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Missing test resource: " + name);
+        }
+        return in;
+    }
+
+    // The files are written by pandas: a header row, then fields quoted only when they need it
+    private static List<String[]> readCsv(String name) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource(name), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    rows.add(parseLine(line));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.complainhub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestRateLimiterTest {
+    private static final String CREATE = RequestRateLimiter.CREATE_COMPLAINT;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsTheBurstThenAsksToRetryWhenTheNextTokenIsDue() {
+        RequestRateLimiter limiter = limiter(3, 1, 100_000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire(CREATE, "uid:a"));
+        }
+        assertEquals(60, limiter.acquire(CREATE, "uid:a"));
+        assertEquals(0, limiter.acquire(CREATE, "uid:b"));
+        assertEquals(1.0, meterRegistry.counter("complainhub.rate-limit.rejected", "endpoint", CREATE).count());
+    }
+
+    @Test
+    void refillsAtThePerMinuteRate() throws Exception {
+        // Ten tokens a second
+        RequestRateLimiter limiter = limiter(1, 600, 100_000);
+        assertEquals(0, limiter.acquire(CREATE, "uid:a"));
+        assertEquals(1, limiter.acquire(CREATE, "uid:a"));
+        Thread.sleep(150);
+        assertEquals(0, limiter.acquire(CREATE, "uid:a"));
+    }
+
+    @Test
+    void forgetsTheLeastRecentlyUsedCallerWhenAStripeIsFull() {
+        // Two buckets per stripe
+        RequestRateLimiter limiter = limiter(1, 1, 128);
+        List<String> callers = sameStripe(3);
+        String a = callers.get(0);
+        String b = callers.get(1);
+        String c = callers.get(2);
+        limiter.acquire(CREATE, a);
+        limiter.acquire(CREATE, b);
+        assertTrue(limiter.acquire(CREATE, a) > 0);
+
+        limiter.acquire(CREATE, c);
+        assertTrue(limiter.acquire(CREATE, a) > 0);
+        assertEquals(0, limiter.acquire(CREATE, b));
+    }
+
+    @Test
+    void neverHoldsMoreThanMaxKeysBuckets() {
+        RequestRateLimiter limiter = limiter(1, 1, 640);
+        for (int i = 0; i < 5000; i++) {
+            limiter.acquire(CREATE, "ip:10.0." + i);
+        }
+        int buckets = 0;
+        for (Object stripe : (Object[]) ReflectionTestUtils.getField(limiter, "stripes")) {
+            buckets += ((Map<?, ?>) ReflectionTestUtils.getField(stripe, "buckets")).size();
+        }
+        assertTrue(buckets <= 640, buckets + " buckets");
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        RequestRateLimiter limiter = limiter(1, 1, 100_000);
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.acquire(CREATE, "uid:a"));
+        }
+        assertEquals(0, limiter.acquire("complaint.unknown", "uid:a"));
+    }
+
+    private RequestRateLimiter limiter(int burst, int perMinute, int maxKeys) {
+        RequestRateLimiter limiter = new RequestRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "maxKeys", maxKeys);
+        ReflectionTestUtils.setField(limiter, "createBurst", burst);
+        ReflectionTestUtils.setField(limiter, "createPerMinute", perMinute);
+        limiter.init();
+        return limiter;
+    }
+
+    // Callers whose buckets share a stripe, found the way the limiter picks stripes
+    private static List<String> sameStripe(int count) {
+        List<String> callers = new ArrayList<>();
+        int stripe = stripe("uid:0");
+        for (int i = 0; callers.size() < count; i++) {
+            if (stripe("uid:" + i) == stripe) {
+                callers.add("uid:" + i);
+            }
+        }
+        return callers;
+    }
+
+    private static int stripe(String caller) {
+        return ((CREATE + '\u0000' + caller).hashCode() & Integer.MAX_VALUE) % 64;
+    }
+}
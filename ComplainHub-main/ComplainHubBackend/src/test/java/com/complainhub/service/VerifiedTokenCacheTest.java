@@ -0,0 +1,117 @@
+package com.complainhub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerifiedTokenCacheTest {
+    private final AtomicInteger verifications = new AtomicInteger();
+    // Seconds from now until each verified token expires
+    private volatile long lifetimeSeconds = 3600;
+    private volatile Exception failure;
+
+    @Test
+    void servesRepeatedTokensFromTheCache() throws Exception {
+        VerifiedTokenCache cache = cache(true, 100);
+        VerifiedToken first = cache.verify("token-a");
+        assertSame(first, cache.verify("token-a"));
+        assertEquals("uid-token-a", cache.verify("token-a").getUid());
+        assertEquals(1, verifications.get());
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(1, cache.stats().get("entries"));
+    }
+
+    @Test
+    void verifiesAgainOnceTheTokenHasExpired() throws Exception {
+        VerifiedTokenCache cache = cache(true, 100);
+        lifetimeSeconds = 1;
+        cache.verify("token-a");
+        Thread.sleep(1100);
+        lifetimeSeconds = 3600;
+        cache.verify("token-a");
+        assertEquals(2, verifications.get());
+        assertEquals(1L, cache.stats().get("expired"));
+        cache.verify("token-a");
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void neverCachesAnAlreadyExpiredToken() throws Exception {
+        VerifiedTokenCache cache = cache(true, 100);
+        lifetimeSeconds = -1;
+        cache.verify("token-a");
+        cache.verify("token-a");
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.stats().get("entries"));
+    }
+
+    @Test
+    void doesNotCacheFailures() throws Exception {
+        VerifiedTokenCache cache = cache(true, 100);
+        failure = new IllegalArgumentException("bad signature");
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> cache.verify("token-a")));
+        failure = null;
+        cache.verify("token-a");
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void stopsAddingWhenFullOfLiveTokens() throws Exception {
+        VerifiedTokenCache cache = cache(true, 1);
+        cache.verify("token-a");
+        cache.verify("token-b");
+        cache.verify("token-b");
+        cache.verify("token-a");
+        assertEquals(3, verifications.get());
+        assertEquals(1, cache.stats().get("entries"));
+    }
+
+    @Test
+    void makesRoomByDroppingExpiredTokens() throws Exception {
+        VerifiedTokenCache cache = cache(true, 1);
+        lifetimeSeconds = 1;
+        cache.verify("token-a");
+        Thread.sleep(1100);
+        lifetimeSeconds = 3600;
+        cache.verify("token-b");
+        cache.verify("token-b");
+        assertEquals(2, verifications.get());
+        assertEquals(1L, cache.stats().get("expired"));
+    }
+
+    @Test
+    void verifiesEveryCallWhenDisabled() throws Exception {
+        VerifiedTokenCache cache = cache(false, 100);
+        cache.verify("token-a");
+        cache.verify("token-a");
+        assertEquals(2, verifications.get());
+    }
+
+    private VerifiedTokenCache cache(boolean enabled, int maxEntries) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        IdTokenVerifier verifier = idToken -> {
+            verifications.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            Map<String, Object> claims = new HashMap<>();
+            claims.put("sub", "uid-" + idToken);
+            claims.put("exp", System.currentTimeMillis() / 1000 + lifetimeSeconds);
+            return new VerifiedToken(claims);
+        };
+        ReflectionTestUtils.setField(cache, "idTokenVerifier", verifier);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        cache.registerMeters();
+        return cache;
+    }
+}